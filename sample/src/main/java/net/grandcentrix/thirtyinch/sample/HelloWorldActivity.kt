@@ -27,6 +27,7 @@ import net.grandcentrix.thirtyinch.TiActivity
 import net.grandcentrix.thirtyinch.logginginterceptor.LoggingInterceptor
 import net.grandcentrix.thirtyinch.sample.fragmentlifecycle.FragmentLifecycleActivity
 import net.grandcentrix.thirtyinch.sample.fragmentlifecycle.viewpager.LifecycleViewPagerActivity
+import net.grandcentrix.thirtyinch.sample.startup.StartupBenchmarkActivity
 
 class HelloWorldActivity : TiActivity<HelloWorldPresenter, HelloWorldView>(), HelloWorldView {
 
@@ -70,6 +71,18 @@ class HelloWorldActivity : TiActivity<HelloWorldPresenter, HelloWorldView>(), He
                 startActivity(Intent(this, LifecycleViewPagerActivity::class.java))
                 return true
             }
+            R.id.start_startup_benchmark_sync -> {
+                StartupBenchmarkActivity.start(this, async = false)
+                return true
+            }
+            R.id.start_startup_benchmark_async -> {
+                StartupBenchmarkActivity.start(this, async = true)
+                return true
+            }
+            R.id.start_startup_benchmark_synchronous_first_bind -> {
+                StartupBenchmarkActivity.start(this, async = false, synchronousFirstBind = true)
+                return true
+            }
         }
         return super.onOptionsItemSelected(item)
     }
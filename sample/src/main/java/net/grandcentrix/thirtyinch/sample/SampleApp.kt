@@ -17,6 +17,7 @@ package net.grandcentrix.thirtyinch.sample
 
 import android.app.Application
 import net.grandcentrix.thirtyinch.TiLog
+import net.grandcentrix.thirtyinch.TiTracer
 
 class SampleApp : Application() {
 
@@ -25,5 +26,7 @@ class SampleApp : Application() {
 
         // log ThirtyInch output with logcat
         TiLog.setLogger(TiLog.LOGCAT)
+        // show presenter creation and view binding in systrace
+        TiTracer.setTracer(TiTracer.SYSTRACE)
     }
 }
@@ -20,7 +20,6 @@ import net.grandcentrix.thirtyinch.TiConfiguration
 import net.grandcentrix.thirtyinch.TiFragment
 import net.grandcentrix.thirtyinch.sample.R
 import net.grandcentrix.thirtyinch.sample.fragmentlifecycle.FragmentLifecycleActivity.Companion.fragmentLifecycleActivityInstanceCount
-import net.grandcentrix.thirtyinch.util.BackstackReader
 import rx.subjects.PublishSubject
 import java.util.UUID
 
@@ -334,7 +333,7 @@ abstract class TestFragment : TiFragment<TestPresenter, TestPresenter.TestView>(
         addedState.onNext(isAdded)
         detachedState.onNext(isDetached)
         removingState.onNext(isRemoving)
-        inBackStackState.onNext(BackstackReader.isInBackStack(this))
+        inBackStackState.onNext(isFragmentInBackstack)
 
         val activity = activity ?: return
         isActivityFinishingState.onNext(activity.isFinishing)
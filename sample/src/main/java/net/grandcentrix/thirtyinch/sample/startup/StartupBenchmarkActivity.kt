@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.sample.startup
+
+import android.content.Context
+import android.content.Intent
+import android.os.AsyncTask
+import android.os.Bundle
+import android.os.SystemClock
+import android.util.Log
+import android.view.ViewTreeObserver
+import android.widget.TextView
+import net.grandcentrix.thirtyinch.TiActivity
+import net.grandcentrix.thirtyinch.TiConfiguration
+import java.util.concurrent.Executor
+
+/**
+ * Measures the startup time of an Activity with a slow presenter. Compares creating the
+ * presenter on the main thread with creating it on a background thread via
+ * [getPresenterCreationExecutor], and posting the first bind with binding it synchronously via
+ * [TiConfiguration.Builder.setSynchronousFirstBindEnabled].
+ *
+ * `adb logcat -s StartupBenchmark` prints the times of each start.
+ */
+class StartupBenchmarkActivity : TiActivity<StartupBenchmarkPresenter, StartupBenchmarkPresenter.StartupView>(),
+        StartupBenchmarkPresenter.StartupView {
+
+    companion object {
+
+        private const val EXTRA_ASYNC = "async"
+
+        private const val EXTRA_SYNCHRONOUS_FIRST_BIND = "synchronous_first_bind"
+
+        private const val PRESENTER_WORK_MILLIS = 500L
+
+        private const val TAG = "StartupBenchmark"
+
+        fun start(context: Context, async: Boolean, synchronousFirstBind: Boolean = false) {
+            context.startActivity(Intent(context, StartupBenchmarkActivity::class.java)
+                    .putExtra(EXTRA_ASYNC, async)
+                    .putExtra(EXTRA_SYNCHRONOUS_FIRST_BIND, synchronousFirstBind))
+        }
+    }
+
+    private val async by lazy { intent.getBooleanExtra(EXTRA_ASYNC, false) }
+
+    private val synchronousFirstBind by lazy {
+        intent.getBooleanExtra(EXTRA_SYNCHRONOUS_FIRST_BIND, false)
+    }
+
+    private var createdAt = 0L
+
+    private var attachedMillis = -1L
+
+    private var firstContentMillis = -1L
+
+    private var firstFrameMillis = -1L
+
+    private val output by lazy { TextView(this) }
+
+    override fun providePresenter() = StartupBenchmarkPresenter(PRESENTER_WORK_MILLIS,
+            TiConfiguration.Builder()
+                    .setSynchronousFirstBindEnabled(synchronousFirstBind)
+                    .build())
+
+    override fun getPresenterCreationExecutor(): Executor? =
+            if (async) AsyncTask.THREAD_POOL_EXECUTOR else null
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        createdAt = SystemClock.elapsedRealtime()
+        super.onCreate(savedInstanceState)
+        output.text = "creating presenter…"
+        setContentView(output)
+
+        output.viewTreeObserver.addOnPreDrawListener(object : ViewTreeObserver.OnPreDrawListener {
+            override fun onPreDraw(): Boolean {
+                val now = SystemClock.elapsedRealtime() - createdAt
+                if (firstFrameMillis < 0) {
+                    firstFrameMillis = now
+                }
+                if (attachedMillis >= 0) {
+                    // the first frame showing what the presenter sent to the view
+                    output.viewTreeObserver.removeOnPreDrawListener(this)
+                    firstContentMillis = now
+                    showResult()
+                }
+                return true
+            }
+        })
+    }
+
+    override fun showAttached() {
+        attachedMillis = SystemClock.elapsedRealtime() - createdAt
+        output.text = "presenter attached"
+    }
+
+    private fun showResult() {
+        val mode = if (async) "async" else "sync"
+        val bind = if (synchronousFirstBind) "synchronous" else "posted"
+        val result = "$mode presenter creation, $bind first bind: " +
+                "first frame after ${firstFrameMillis}ms, view attached after ${attachedMillis}ms, " +
+                "first content after ${firstContentMillis}ms"
+        Log.i(TAG, result)
+        output.text = result
+    }
+}
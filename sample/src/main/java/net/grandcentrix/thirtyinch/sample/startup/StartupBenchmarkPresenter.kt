@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.sample.startup
+
+import android.os.SystemClock
+import net.grandcentrix.thirtyinch.TiConfiguration
+import net.grandcentrix.thirtyinch.TiPresenter
+import net.grandcentrix.thirtyinch.TiView
+
+/**
+ * Presenter with an expensive constructor and [onCreate], like one reading a database or
+ * parsing a large configuration
+ */
+class StartupBenchmarkPresenter(private val workMillis: Long, config: TiConfiguration) :
+        TiPresenter<StartupBenchmarkPresenter.StartupView>(config) {
+
+    interface StartupView : TiView {
+
+        fun showAttached()
+    }
+
+    init {
+        // simulates expensive object graph creation in providePresenter()
+        SystemClock.sleep(workMillis / 2)
+    }
+
+    override fun onCreate() {
+        super.onCreate()
+        SystemClock.sleep(workMillis / 2)
+    }
+
+    override fun onAttachView(view: StartupView) {
+        super.onAttachView(view)
+        view.showAttached()
+    }
+}
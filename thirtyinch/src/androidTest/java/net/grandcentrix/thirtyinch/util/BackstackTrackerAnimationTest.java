@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.testing.FragmentScenario;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+
+public class BackstackTrackerAnimationTest {
+
+    public static class ChildFragment extends Fragment {
+
+        final CountDownLatch mDestroyed = new CountDownLatch(1);
+
+        volatile boolean mInBackStackOnDestroy;
+
+        BackstackTracker mTracker;
+
+        @Override
+        public void onDestroy() {
+            // TiFragment decides whether to destroy the presenter here
+            mInBackStackOnDestroy = mTracker.isInBackStack(this);
+            super.onDestroy();
+            mDestroyed.countDown();
+        }
+    }
+
+    public static class HostFragment extends Fragment {
+
+        @Override
+        public View onCreateView(@NonNull final LayoutInflater inflater,
+                @Nullable final ViewGroup container, @Nullable final Bundle savedInstanceState) {
+            final FrameLayout layout = new FrameLayout(inflater.getContext());
+            layout.setId(CONTAINER_ID);
+            return layout;
+        }
+    }
+
+    private static final int CONTAINER_ID = 1;
+
+    @Test
+    public void popWithAnimation() throws Exception {
+        final ChildFragment child = new ChildFragment();
+        final FragmentScenario<HostFragment> scenario =
+                FragmentScenario.launchInContainer(HostFragment.class);
+
+        scenario.onFragment(new FragmentScenario.FragmentAction<HostFragment>() {
+            @Override
+            public void perform(@NonNull final HostFragment host) {
+                final FragmentManager fragmentManager = host.getChildFragmentManager();
+                child.mTracker = BackstackTracker.getInstance(fragmentManager);
+                fragmentManager.beginTransaction()
+                        .setCustomAnimations(android.R.anim.fade_in, android.R.anim.fade_out,
+                                android.R.anim.fade_in, android.R.anim.fade_out)
+                        .add(CONTAINER_ID, child)
+                        .addToBackStack(null)
+                        .commit();
+                fragmentManager.executePendingTransactions();
+
+                fragmentManager.popBackStack();
+                fragmentManager.executePendingTransactions();
+            }
+        });
+
+        // destroyed after the exit animation, the pop doesn't keep it
+        assertThat(child.mDestroyed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(child.mInBackStackOnDestroy).isFalse();
+    }
+
+    @Test
+    public void replaceWithAnimation() throws Exception {
+        final ChildFragment first = new ChildFragment();
+        final FragmentScenario<HostFragment> scenario =
+                FragmentScenario.launchInContainer(HostFragment.class);
+
+        scenario.onFragment(new FragmentScenario.FragmentAction<HostFragment>() {
+            @Override
+            public void perform(@NonNull final HostFragment host) {
+                final FragmentManager fragmentManager = host.getChildFragmentManager();
+                first.mTracker = BackstackTracker.getInstance(fragmentManager);
+                fragmentManager.beginTransaction()
+                        .add(CONTAINER_ID, first)
+                        .commit();
+                fragmentManager.executePendingTransactions();
+
+                fragmentManager.beginTransaction()
+                        .setCustomAnimations(android.R.anim.fade_in, android.R.anim.fade_out,
+                                android.R.anim.fade_in, android.R.anim.fade_out)
+                        .replace(CONTAINER_ID, new Fragment())
+                        .addToBackStack(null)
+                        .commit();
+                fragmentManager.executePendingTransactions();
+
+                assertThat(first.mTracker.isInBackStack(first)).isTrue();
+            }
+        });
+
+        // the back stack keeps the replaced fragment
+        assertThat(first.mDestroyed.getCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import net.grandcentrix.thirtyinch.internal.TiPresenterSavior;
+
+/**
+ * Allows retaining presenters for hosts other than {@link android.app.Activity}, i.e. custom
+ * views, navigation destinations or services. Register resolvers with
+ * {@link TiPresenter#addHostScopeResolver(HostScopeResolver)}.
+ * <p>
+ * A resolver gives every host a stable id which survives the recreation of the host, i.e. by
+ * writing it into the saved state of a custom view, and reports when a host finished for good.
+ * All presenters of a finished host get destroyed.
+ * </p>
+ * <code>
+ * <pre>
+ * TiPresenter.addHostScopeResolver(new HostScopeResolver&lt;MapView&gt;() {
+ *     public Class&lt;MapView&gt; getHostType() {
+ *         return MapView.class;
+ *     }
+ *
+ *     public long getHostId(MapView host) {
+ *         return host.getRetainedId(); // restored from onRestoreInstanceState
+ *     }
+ *
+ *     public void startTracking(MapView host, long hostId, HostFinishListener listener) {
+ *         host.setRetainedId(hostId); // written in onSaveInstanceState
+ *         host.setOnFinishListener(() -&gt; listener.onHostFinished(hostId));
+ *     }
+ *
+ *     public void stopTracking(MapView host, long hostId) {
+ *         host.setRetainedId(TiPresenterSavior.NO_ID);
+ *     }
+ * });
+ * </pre>
+ * </code>
+ *
+ * @param <H> the host type
+ */
+public interface HostScopeResolver<H> {
+
+    /**
+     * Receives the finish event of a host
+     */
+    interface HostFinishListener {
+
+        /**
+         * Called when a host finished and will not be recreated. Destroys all presenters
+         * retained for this host.
+         *
+         * @param hostId the id passed to {@link #startTracking(Object, long, HostFinishListener)}
+         */
+        void onHostFinished(long hostId);
+    }
+
+    /**
+     * @param host the host of a presenter
+     * @return the id passed to {@link #startTracking(Object, long, HostFinishListener)} for
+     * this host or a previous instance of it, {@link TiPresenterSavior#NO_ID} when the host is
+     * not tracked
+     */
+    long getHostId(@NonNull H host);
+
+    /**
+     * @return the type of hosts handled by this resolver, including subclasses
+     */
+    @NonNull
+    Class<H> getHostType();
+
+    /**
+     * Called when the first presenter was saved for the host. The resolver must return
+     * {@code hostId} from {@link #getHostId(Object)} for this host and all its future instances
+     * until it finishes.
+     *
+     * @param host     the host
+     * @param hostId   the new id of the host, never {@link TiPresenterSavior#NO_ID}
+     * @param listener call {@link HostFinishListener#onHostFinished(long)} when the host
+     *                 finished
+     */
+    void startTracking(@NonNull H host, long hostId, @NonNull HostFinishListener listener);
+
+    /**
+     * Called when the last presenter of the host was freed. The id is not valid anymore, the next
+     * saved presenter starts tracking the host with a new id.
+     */
+    void stopTracking(@NonNull H host, long hostId);
+}
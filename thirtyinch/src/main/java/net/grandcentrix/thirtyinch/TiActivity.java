@@ -21,12 +21,14 @@ import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.internal.DelegatedTiActivity;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.PresenterAccessor;
 import net.grandcentrix.thirtyinch.internal.PresenterSavior;
+import net.grandcentrix.thirtyinch.internal.PresenterSnapshotStore;
 import net.grandcentrix.thirtyinch.internal.TiActivityDelegate;
 import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
@@ -101,6 +103,9 @@ public abstract class TiActivity<P extends TiPresenter<V>, V extends TiView>
     @Override
     protected void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        mDelegate.setPrefetchToken(TiPresenterPrefetch.getToken(getIntent()));
+        mDelegate.setPresenterCreationExecutor(getPresenterCreationExecutor());
+        mDelegate.setSnapshotStore(PresenterSnapshotStore.getInstance(this));
         mDelegate.onCreate_afterSuper(savedInstanceState);
     }
 
@@ -111,6 +116,20 @@ public abstract class TiActivity<P extends TiPresenter<V>, V extends TiView>
         mDelegate.onStart_afterSuper();
     }
 
+    @CallSuper
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mDelegate.onResume_afterSuper();
+    }
+
+    @CallSuper
+    @Override
+    protected void onPause() {
+        mDelegate.onPause_beforeSuper();
+        super.onPause();
+    }
+
     @CallSuper
     @Override
     protected void onStop() {
@@ -139,6 +158,13 @@ public abstract class TiActivity<P extends TiPresenter<V>, V extends TiView>
         return mDelegate.addBindViewInterceptor(interceptor);
     }
 
+    @NonNull
+    @Override
+    public final Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors) {
+        return mDelegate.addBindViewInterceptors(interceptors);
+    }
+
     @Override
     public final Object getHostingContainer() {
         return this;
@@ -163,13 +189,28 @@ public abstract class TiActivity<P extends TiPresenter<V>, V extends TiView>
     }
 
     /**
-     * is {@code null} before {@link #onCreate(Bundle)}
+     * is {@code null} before {@link #onCreate(Bundle)} and while the presenter is created on the
+     * {@link #getPresenterCreationExecutor()}
      */
     @Override
     public final P getPresenter() {
         return mDelegate.getPresenter();
     }
 
+    /**
+     * Override to provide and create the presenter of this Activity on a background thread instead
+     * of the main thread, i.e. when {@link TiPresenterProvider#providePresenter()} or
+     * {@link TiPresenter#onCreate()} are slow. {@link #getPresenter()} returns {@code null} until
+     * the presenter is created, the view gets bound as soon as it is available. Calls to the view
+     * made with {@link TiPresenter#sendToView(ViewAction)} are queued until then.
+     *
+     * @return executor creating the presenter, {@code null} (default) for the main thread
+     */
+    @Nullable
+    protected Executor getPresenterCreationExecutor() {
+        return null;
+    }
+
     @Override
     public final Executor getUiThreadExecutor() {
         return mUiThreadExecutor;
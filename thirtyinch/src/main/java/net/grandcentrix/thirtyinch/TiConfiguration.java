@@ -63,6 +63,24 @@ public class TiConfiguration {
             return mConfig;
         }
 
+        /**
+         * Max number of tasks of one {@link TiPresenter} running in parallel on the shared
+         * background pool of {@link TiPresenter#getBackgroundExecutor()}. Further tasks wait in
+         * the queue of the presenter and don't block the pool for other presenters.
+         * <p>
+         * default <code>2</code>
+         *
+         * @param concurrency at least 1
+         */
+        public Builder setBackgroundConcurrency(final int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException(
+                        "concurrency has to be at least 1 but was " + concurrency);
+            }
+            mConfig.mBackgroundConcurrency = concurrency;
+            return this;
+        }
+
         /**
          * When enabled you can add the {@link CallOnMainThread} annotation to <code>void</code>
          * methods of your {@link TiView} interface.
@@ -100,6 +118,31 @@ public class TiConfiguration {
             return this;
         }
 
+        /**
+         * Time a detached view can come back without tearing down the {@link TiPresenter}. A
+         * {@link TiPresenter#detachView()} followed by {@link TiPresenter#attachView(TiView)} of
+         * the same view within this period calls neither {@link TiPresenter#onDetachView()} nor
+         * {@link TiPresenter#onAttachView(TiView)}, i.e. when a permission dialog or a
+         * multi-window switch stops the {@link Activity} for a moment. Actions sent with
+         * {@link TiPresenter#sendToView(ViewAction)} in the meantime wait until the view comes
+         * back.
+         * <p>
+         * When the period passes, another view gets attached or the presenter gets destroyed
+         * the view is detached as usual.
+         * <p>
+         * default <code>0</code>, detaching immediately
+         *
+         * @param millis grace period in milliseconds, not negative
+         */
+        public Builder setDetachGracePeriodMillis(final long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException(
+                        "grace period can't be negative but was " + millis);
+            }
+            mConfig.mDetachGracePeriodMillis = millis;
+            return this;
+        }
+
         /**
          * When enabled you can add the {@link DistinctUntilChanged} annotation to
          * <code>void</code> methods of your {@link TiView} with at least one argument.
@@ -141,6 +184,29 @@ public class TiConfiguration {
             return this;
         }
 
+        /**
+         * Interval in which view actions are delivered to a visible but inactive view, i.e. a
+         * paused {@link Activity} or a Fragment in the offscreen pages of a ViewPager. While the
+         * presenter has the {@link TiPresenter.DeliveryPriority#LOW} priority, actions sent with
+         * {@link TiPresenter#sendToViewConflated(Object, ViewAction)} replace the undelivered
+         * action of the same key and all actions are delivered together once per interval.
+         * Pending actions are delivered right away when the view becomes active again.
+         * <p>
+         * Use {@link Long#MAX_VALUE} to deliver actions only when the view becomes active again.
+         * <p>
+         * default <code>0</code>, actions are delivered right away regardless of the priority
+         *
+         * @param millis interval in milliseconds, not negative
+         */
+        public Builder setInactiveDeliveryIntervalMillis(final long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException(
+                        "interval can't be negative but was " + millis);
+            }
+            mConfig.mInactiveDeliveryIntervalMillis = millis;
+            return this;
+        }
+
         /**
          * When set to <code>true</code> the {@link TiPresenter} will be restored when the {@link
          * Activity} recreates due to a configuration changes such as the orientation change.
@@ -169,16 +235,62 @@ public class TiConfiguration {
             return this;
         }
 
+        /**
+         * When set to <code>true</code> the state written in
+         * {@link TiPresenter#onSaveSnapshot(java.io.DataOutput)} is stored in an app-private
+         * memory-mapped file when the {@link Activity} saves its instance state. When the process
+         * got killed in the background, the new {@link TiPresenter} instance receives the
+         * snapshot in {@link TiPresenter#onRestoreSnapshot(java.io.DataInput)} before
+         * {@link TiPresenter#onCreate()} and can show its first frame without reloading.
+         * <p>
+         * Snapshots don't go through the savedInstanceState {@link Bundle} and don't count
+         * towards its size limit. Requires {@link #setRetainPresenterEnabled(boolean)}.
+         * <p>
+         * default <code>false</code>
+         */
+        public Builder setStateSnapshotEnabled(final boolean enabled) {
+            mConfig.mStateSnapshotEnabled = enabled;
+            return this;
+        }
+
+        /**
+         * When set to <code>true</code> the view gets bound to the {@link TiPresenter} directly
+         * in the first {@link Activity#onStart()} of an {@link Activity} or Fragment instance.
+         * {@link TiPresenter#onAttachView(TiView)} runs and the actions queued with
+         * {@link TiPresenter#sendToView(ViewAction)} are executed before the first frame is
+         * drawn.
+         * <p>
+         * When set to <code>false</code> the binding is posted to the main thread and happens
+         * after all work already queued there, which often delays the first content by a frame
+         * or more. Later starts, i.e. when returning from the background, are always posted.
+         * <p>
+         * default <code>false</code>
+         */
+        public Builder setSynchronousFirstBindEnabled(final boolean enabled) {
+            mConfig.mSynchronousFirstBindEnabled = enabled;
+            return this;
+        }
+
     }
 
     public static final TiConfiguration DEFAULT = new Builder().build();
 
+    private int mBackgroundConcurrency = 2;
+
     private boolean mCallOnMainThreadInterceptorEnabled = true;
 
+    private long mDetachGracePeriodMillis = 0;
+
     private boolean mDistinctUntilChangedInterceptorEnabled = true;
 
+    private long mInactiveDeliveryIntervalMillis = 0;
+
     private boolean mRetainPresenter = true;
 
+    private boolean mStateSnapshotEnabled = false;
+
+    private boolean mSynchronousFirstBindEnabled = false;
+
     /**
      * use {@link Builder} to construct a configuration.
      */
@@ -196,25 +308,59 @@ public class TiConfiguration {
 
         final TiConfiguration that = (TiConfiguration) o;
 
+        if (mBackgroundConcurrency != that.mBackgroundConcurrency) {
+            return false;
+        }
         if (mCallOnMainThreadInterceptorEnabled != that.mCallOnMainThreadInterceptorEnabled) {
             return false;
         }
+        if (mDetachGracePeriodMillis != that.mDetachGracePeriodMillis) {
+            return false;
+        }
         if (mDistinctUntilChangedInterceptorEnabled
                 != that.mDistinctUntilChangedInterceptorEnabled) {
             return false;
         }
-        return mRetainPresenter == that.mRetainPresenter;
+        if (mInactiveDeliveryIntervalMillis != that.mInactiveDeliveryIntervalMillis) {
+            return false;
+        }
+        if (mRetainPresenter != that.mRetainPresenter) {
+            return false;
+        }
+        if (mStateSnapshotEnabled != that.mStateSnapshotEnabled) {
+            return false;
+        }
+        return mSynchronousFirstBindEnabled == that.mSynchronousFirstBindEnabled;
 
     }
 
     @Override
     public int hashCode() {
-        int result = (mCallOnMainThreadInterceptorEnabled ? 1 : 0);
+        int result = mBackgroundConcurrency;
+        result = 31 * result + (mCallOnMainThreadInterceptorEnabled ? 1 : 0);
+        result = 31 * result
+                + (int) (mDetachGracePeriodMillis ^ (mDetachGracePeriodMillis >>> 32));
         result = 31 * result + (mDistinctUntilChangedInterceptorEnabled ? 1 : 0);
+        result = 31 * result + (int) (mInactiveDeliveryIntervalMillis
+                ^ (mInactiveDeliveryIntervalMillis >>> 32));
         result = 31 * result + (mRetainPresenter ? 1 : 0);
+        result = 31 * result + (mStateSnapshotEnabled ? 1 : 0);
+        result = 31 * result + (mSynchronousFirstBindEnabled ? 1 : 0);
         return result;
     }
 
+    public int getBackgroundConcurrency() {
+        return mBackgroundConcurrency;
+    }
+
+    public long getDetachGracePeriodMillis() {
+        return mDetachGracePeriodMillis;
+    }
+
+    public long getInactiveDeliveryIntervalMillis() {
+        return mInactiveDeliveryIntervalMillis;
+    }
+
     public boolean isCallOnMainThreadInterceptorEnabled() {
         return mCallOnMainThreadInterceptorEnabled;
     }
@@ -223,6 +369,14 @@ public class TiConfiguration {
         return mDistinctUntilChangedInterceptorEnabled;
     }
 
+    public boolean isStateSnapshotEnabled() {
+        return mStateSnapshotEnabled;
+    }
+
+    public boolean isSynchronousFirstBindEnabled() {
+        return mSynchronousFirstBindEnabled;
+    }
+
     public boolean shouldRetainPresenter() {
         return mRetainPresenter;
     }
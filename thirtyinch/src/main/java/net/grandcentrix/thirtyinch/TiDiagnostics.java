@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.internal.PresenterLeakWatcher;
+import net.grandcentrix.thirtyinch.internal.PresenterSavior;
+import net.grandcentrix.thirtyinch.util.RetainedSizeEstimator;
+
+/**
+ * Inspects the presenters retained across configuration changes (see
+ * {@link TiConfiguration.Builder#setRetainPresenterEnabled(boolean)}) and detects presenters
+ * which are still reachable after their Activity finished.
+ * <code>
+ * <pre>
+ * final TiDiagnostics diagnostics = TiDiagnostics.getInstance();
+ * for (final TiDiagnostics.RetainedPresenter retained : diagnostics.getRetainedPresenters(true)) {
+ *     Log.d(TAG, retained.toString());
+ * }
+ * for (final TiDiagnostics.LeakedPresenter leak : diagnostics.findLeaks(10, TimeUnit.SECONDS)) {
+ *     Log.w(TAG, "leaked " + leak);
+ * }
+ * </pre>
+ * </code>
+ * Collecting the information is not free, use it in debug builds or debug screens.
+ */
+public class TiDiagnostics {
+
+    /**
+     * A presenter which is still reachable after its host finished
+     */
+    public static final class LeakedPresenter {
+
+        private final PresenterLeakWatcher.WatchedPresenter mWatched;
+
+        private final long mNanosSinceHostFinished;
+
+        LeakedPresenter(final PresenterLeakWatcher.WatchedPresenter watched, final long now) {
+            mWatched = watched;
+            mNanosSinceHostFinished = now - watched.getWatchedAtNanos();
+        }
+
+        /**
+         * @return {@link TiPresenter#toString()} of the leaked presenter
+         */
+        @NonNull
+        public String getDescription() {
+            return mWatched.getDescription();
+        }
+
+        /**
+         * @return id of the finished host
+         */
+        public long getHostId() {
+            return mWatched.getHostId();
+        }
+
+        public long getNanosSinceHostFinished() {
+            return mNanosSinceHostFinished;
+        }
+
+        /**
+         * Don't keep a reference to the returned presenter, this would leak it.
+         *
+         * @return the leaked presenter or {@code null} when it was garbage collected since it
+         * was reported
+         */
+        @Nullable
+        public TiPresenter getPresenter() {
+            return mWatched.get();
+        }
+
+        @Override
+        public String toString() {
+            return "LeakedPresenter{"
+                    + "presenter=" + getDescription()
+                    + ", hostId=" + getHostId()
+                    + ", sinceHostFinished="
+                    + TimeUnit.NANOSECONDS.toMillis(mNanosSinceHostFinished) + "ms"
+                    + "}";
+        }
+    }
+
+    /**
+     * Snapshot of a retained presenter
+     */
+    public static final class RetainedPresenter {
+
+        private final long mAgeNanos;
+
+        private final long mHostId;
+
+        private final long mIdleNanos;
+
+        private final TiPresenter mPresenter;
+
+        private final long mPresenterId;
+
+        private final int mQueuedActionCount;
+
+        private final long mRetainedSizeBytes;
+
+        private final TiPresenter.State mState;
+
+        RetainedPresenter(final long hostId, final long presenterId,
+                final TiPresenter presenter, final long now, final long retainedSizeBytes) {
+            mHostId = hostId;
+            mPresenterId = presenterId;
+            mPresenter = presenter;
+            mState = presenter.getState();
+            mAgeNanos = presenter.getCreatedNanos() == 0 ? 0 : now - presenter.getCreatedNanos();
+            mIdleNanos = mState != TiPresenter.State.VIEW_DETACHED ? 0
+                    : now - presenter.getLastUsedNanos();
+            mQueuedActionCount = presenter.getQueuedViewActions().size();
+            mRetainedSizeBytes = retainedSizeBytes;
+        }
+
+        /**
+         * @return time since {@link TiPresenter#create()}, {@code 0} when not created yet
+         */
+        public long getAgeNanos() {
+            return mAgeNanos;
+        }
+
+        /**
+         * @return id of the host (Activity) the presenter is retained for
+         */
+        public long getHostId() {
+            return mHostId;
+        }
+
+        /**
+         * @return time since the view was attached the last time or since the presenter was
+         * created when it never had a view. {@code 0} while a view is attached.
+         */
+        public long getIdleNanos() {
+            return mIdleNanos;
+        }
+
+        @NonNull
+        public TiPresenter getPresenter() {
+            return mPresenter;
+        }
+
+        /**
+         * @return the id the presenter is saved with in the savedInstanceState of its host
+         */
+        public long getPresenterId() {
+            return mPresenterId;
+        }
+
+        /**
+         * @return number of {@link ViewAction}s waiting for a view
+         * @see TiPresenter#sendToView(ViewAction)
+         */
+        public int getQueuedActionCount() {
+            return mQueuedActionCount;
+        }
+
+        /**
+         * @return the estimated heap size in bytes retained by the presenter, {@code -1} when not
+         * estimated
+         * @see RetainedSizeEstimator
+         */
+        public long getRetainedSizeBytes() {
+            return mRetainedSizeBytes;
+        }
+
+        @NonNull
+        public TiPresenter.State getState() {
+            return mState;
+        }
+
+        @Override
+        public String toString() {
+            return "RetainedPresenter{"
+                    + "presenter=" + mPresenter
+                    + ", hostId=" + mHostId
+                    + ", state=" + mState
+                    + ", age=" + TimeUnit.NANOSECONDS.toMillis(mAgeNanos) + "ms"
+                    + ", idle=" + TimeUnit.NANOSECONDS.toMillis(mIdleNanos) + "ms"
+                    + ", queuedActions=" + mQueuedActionCount
+                    + (mRetainedSizeBytes >= 0 ? ", retainedSize=" + mRetainedSizeBytes + "B" : "")
+                    + "}";
+        }
+    }
+
+    private static TiDiagnostics INSTANCE;
+
+    private final PresenterSavior mSavior;
+
+    /**
+     * @return diagnostics for the presenters retained by {@link PresenterSavior#getInstance()}
+     */
+    public static synchronized TiDiagnostics getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new TiDiagnostics(PresenterSavior.getInstance());
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    TiDiagnostics(final PresenterSavior savior) {
+        mSavior = savior;
+    }
+
+    /**
+     * Finds presenters which are still reachable {@code threshold} after their Activity
+     * finished. No garbage collection is triggered, run one before for accurate results.
+     */
+    @NonNull
+    public List<LeakedPresenter> findLeaks(final long threshold, @NonNull final TimeUnit unit) {
+        final long now = System.nanoTime();
+        final List<PresenterLeakWatcher.WatchedPresenter> retained =
+                mSavior.getLeakWatcher().getRetained(unit.toNanos(threshold));
+        final ArrayList<LeakedPresenter> leaks = new ArrayList<>(retained.size());
+        for (final PresenterLeakWatcher.WatchedPresenter watched : retained) {
+            leaks.add(new LeakedPresenter(watched, now));
+        }
+        return leaks;
+    }
+
+    /**
+     * @return all presenters currently retained, without size estimate
+     */
+    @NonNull
+    public List<RetainedPresenter> getRetainedPresenters() {
+        return getRetainedPresenters(false);
+    }
+
+    /**
+     * @param estimateRetainedSize {@code true} to estimate the heap size of every presenter. This
+     *                             walks the object graph with reflection and is slow.
+     * @return all presenters currently retained
+     */
+    @NonNull
+    public List<RetainedPresenter> getRetainedPresenters(final boolean estimateRetainedSize) {
+        final long now = System.nanoTime();
+        final ArrayList<RetainedPresenter> result = new ArrayList<>();
+        for (final Map.Entry<Long, List<Map.Entry<Long, TiPresenter>>> host
+                : mSavior.getRetainedPresenters().entrySet()) {
+            for (final Map.Entry<Long, TiPresenter> entry : host.getValue()) {
+                final TiPresenter presenter = entry.getValue();
+                final long size = estimateRetainedSize
+                        ? RetainedSizeEstimator.estimate(presenter, TiPresenter.class) : -1;
+                result.add(new RetainedPresenter(host.getKey(), entry.getKey(), presenter, now,
+                        size));
+            }
+        }
+        return result;
+    }
+}
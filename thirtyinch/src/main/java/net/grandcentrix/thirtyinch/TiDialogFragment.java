@@ -23,19 +23,21 @@ import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatDialogFragment;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.internal.DelegatedTiFragment;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.PresenterAccessor;
 import net.grandcentrix.thirtyinch.internal.PresenterSavior;
+import net.grandcentrix.thirtyinch.internal.PresenterSnapshotStore;
 import net.grandcentrix.thirtyinch.internal.TiFragmentDelegate;
 import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
 import net.grandcentrix.thirtyinch.internal.TiViewProvider;
 import net.grandcentrix.thirtyinch.internal.UiThreadExecutor;
 import net.grandcentrix.thirtyinch.util.AnnotationUtil;
-import net.grandcentrix.thirtyinch.util.BackstackReader;
+import net.grandcentrix.thirtyinch.util.BackstackTracker;
 
 public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiView>
         extends AppCompatDialogFragment
@@ -46,6 +48,8 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
             + ":" + TiDialogFragment.class.getSimpleName()
             + "@" + Integer.toHexString(this.hashCode());
 
+    private BackstackTracker mBackstackTracker;
+
     private final TiFragmentDelegate<P, V> mDelegate =
             new TiFragmentDelegate<>(this, this, this, this, PresenterSavior.getInstance());
 
@@ -53,6 +57,10 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
     @Override
     public void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        mBackstackTracker = BackstackTracker.getInstance(getFragmentManager());
+        mDelegate.setPrefetchToken(TiPresenterPrefetch.getToken(getArguments()));
+        mDelegate.setPresenterCreationExecutor(getPresenterCreationExecutor());
+        mDelegate.setSnapshotStore(PresenterSnapshotStore.getInstance(getActivity()));
         mDelegate.onCreate_afterSuper(savedInstanceState);
     }
 
@@ -72,6 +80,20 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
         mDelegate.onStart_afterSuper();
     }
 
+    @CallSuper
+    @Override
+    public void onResume() {
+        super.onResume();
+        mDelegate.onResume_afterSuper();
+    }
+
+    @CallSuper
+    @Override
+    public void onPause() {
+        mDelegate.onPause_beforeSuper();
+        super.onPause();
+    }
+
     @CallSuper
     @Override
     public void onStop() {
@@ -106,6 +128,13 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
         return mDelegate.addBindViewInterceptor(interceptor);
     }
 
+    @NonNull
+    @Override
+    public final Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors) {
+        return mDelegate.addBindViewInterceptors(interceptors);
+    }
+
     @Override
     public final Object getHostingContainer() {
         return getHost();
@@ -134,6 +163,20 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
         return mDelegate.getPresenter();
     }
 
+    /**
+     * Override to provide and create the presenter of this Fragment on a background thread instead
+     * of the main thread, i.e. when {@link TiPresenterProvider#providePresenter()} or
+     * {@link TiPresenter#onCreate()} are slow. {@link #getPresenter()} returns {@code null} until
+     * the presenter is created, the view gets bound as soon as it is available. Calls to the view
+     * made with {@link TiPresenter#sendToView(ViewAction)} are queued until then.
+     *
+     * @return executor creating the presenter, {@code null} (default) for the main thread
+     */
+    @Nullable
+    protected Executor getPresenterCreationExecutor() {
+        return null;
+    }
+
     @Override
     public final Executor getUiThreadExecutor() {
         return new UiThreadExecutor();
@@ -160,7 +203,7 @@ public abstract class TiDialogFragment<P extends TiPresenter<V>, V extends TiVie
 
     @Override
     public final boolean isFragmentInBackstack() {
-        return BackstackReader.isInBackStack(this);
+        return mBackstackTracker != null && mBackstackTracker.isInBackStack(this);
     }
 
     @Override
@@ -16,7 +16,6 @@
 package net.grandcentrix.thirtyinch;
 
 import android.os.Bundle;
-import net.grandcentrix.thirtyinch.util.BackstackReader;
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -26,18 +25,21 @@ import androidx.fragment.app.FragmentTransaction;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.internal.DelegatedTiFragment;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
 import net.grandcentrix.thirtyinch.internal.PresenterAccessor;
 import net.grandcentrix.thirtyinch.internal.PresenterSavior;
+import net.grandcentrix.thirtyinch.internal.PresenterSnapshotStore;
 import net.grandcentrix.thirtyinch.internal.TiFragmentDelegate;
 import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
 import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
 import net.grandcentrix.thirtyinch.internal.TiViewProvider;
 import net.grandcentrix.thirtyinch.internal.UiThreadExecutor;
 import net.grandcentrix.thirtyinch.util.AnnotationUtil;
+import net.grandcentrix.thirtyinch.util.BackstackTracker;
 
 /**
  * An Fragment which has a {@link TiPresenter} to build the Model View Presenter architecture on
@@ -113,6 +115,8 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
             + ":" + TiFragment.class.getSimpleName()
             + "@" + Integer.toHexString(this.hashCode());
 
+    private BackstackTracker mBackstackTracker;
+
     private final TiFragmentDelegate<P, V> mDelegate =
             new TiFragmentDelegate<>(this, this, this, this, PresenterSavior.getInstance());
 
@@ -122,6 +126,10 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
     @Override
     public void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        mBackstackTracker = BackstackTracker.getInstance(getFragmentManager());
+        mDelegate.setPrefetchToken(TiPresenterPrefetch.getToken(getArguments()));
+        mDelegate.setPresenterCreationExecutor(getPresenterCreationExecutor());
+        mDelegate.setSnapshotStore(PresenterSnapshotStore.getInstance(getActivity()));
         mDelegate.onCreate_afterSuper(savedInstanceState);
     }
 
@@ -141,6 +149,20 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
         mDelegate.onStart_afterSuper();
     }
 
+    @CallSuper
+    @Override
+    public void onResume() {
+        super.onResume();
+        mDelegate.onResume_afterSuper();
+    }
+
+    @CallSuper
+    @Override
+    public void onPause() {
+        mDelegate.onPause_beforeSuper();
+        super.onPause();
+    }
+
     @CallSuper
     @Override
     public void onStop() {
@@ -175,6 +197,13 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
         return mDelegate.addBindViewInterceptor(interceptor);
     }
 
+    @NonNull
+    @Override
+    public final Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors) {
+        return mDelegate.addBindViewInterceptors(interceptors);
+    }
+
     @Override
     public final Object getHostingContainer() {
         return getHost();
@@ -199,13 +228,28 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
     }
 
     /**
-     * is {@code null} before {@link #onCreate(Bundle)}
+     * is {@code null} before {@link #onCreate(Bundle)} and while the presenter is created on the
+     * {@link #getPresenterCreationExecutor()}
      */
     @Override
     public final P getPresenter() {
         return mDelegate.getPresenter();
     }
 
+    /**
+     * Override to provide and create the presenter of this Fragment on a background thread instead
+     * of the main thread, i.e. when {@link TiPresenterProvider#providePresenter()} or
+     * {@link TiPresenter#onCreate()} are slow. {@link #getPresenter()} returns {@code null} until
+     * the presenter is created, the view gets bound as soon as it is available. Calls to the view
+     * made with {@link TiPresenter#sendToView(ViewAction)} are queued until then.
+     *
+     * @return executor creating the presenter, {@code null} (default) for the main thread
+     */
+    @Nullable
+    protected Executor getPresenterCreationExecutor() {
+        return null;
+    }
+
     @Override
     public final Executor getUiThreadExecutor() {
         return mUiThreadExecutor;
@@ -232,7 +276,7 @@ public abstract class TiFragment<P extends TiPresenter<V>, V extends TiView> ext
 
     @Override
     public boolean isFragmentInBackstack() {
-        return BackstackReader.isInBackStack(this);
+        return mBackstackTracker != null && mBackstackTracker.isInBackStack(this);
     }
 
     @Override
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Values shared by all presenters of one host, i.e. the presenter of an {@link
+ * android.app.Activity} and the presenters of its Fragments. Data several presenters need, like
+ * the user profile, is loaded once instead of once per presenter.
+ * <code>
+ * <pre>
+ * getBackgroundExecutor().execute(new Runnable() {
+ *     public void run() {
+ *         final User user = getHostCache().get("user", new TiHostCache.Loader&lt;User&gt;() {
+ *             public User load() throws Exception {
+ *                 return api.loadUser();
+ *             }
+ *         });
+ *         ...
+ *     }
+ * });
+ * </pre>
+ * </code>
+ * The cache survives configuration changes and gets cleared when the host finishes. It holds at
+ * most {@link #getMaxSize()} values, the least recently used value gets evicted first.
+ * <p>
+ * All methods are thread safe.
+ * </p>
+ *
+ * @see TiPresenter#getHostCache()
+ */
+public class TiHostCache {
+
+    /**
+     * Loads the value of a key when it isn't cached
+     */
+    public interface Loader<T> {
+
+        T load() throws Exception;
+    }
+
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    /**
+     * running loads by key, callers of the same key wait for the same load. Loads removed by
+     * {@link #clear()} or {@link #invalidate(String)} don't store their result.
+     */
+    private final HashMap<String, FutureTask<Object>> mLoading = new HashMap<>();
+
+    private final int mMaxSize;
+
+    private final LinkedHashMap<String, Object> mValues;
+
+    public TiHostCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize max number of cached values, at least 1
+     */
+    public TiHostCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize has to be at least 1 but was " + maxSize);
+        }
+        mMaxSize = maxSize;
+        // access order for LRU eviction
+        mValues = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Object> eldest) {
+                return size() > mMaxSize;
+            }
+        };
+    }
+
+    /**
+     * removes all values, loads running right now don't store their results
+     */
+    public synchronized void clear() {
+        mValues.clear();
+        mLoading.clear();
+    }
+
+    /**
+     * Returns the cached value of the {@code key} or loads it with the {@code loader} on the
+     * calling thread. When the value is already being loaded by another thread, waits for that
+     * load instead of loading it again. Failed loads are not cached, the next call loads again.
+     * <p>
+     * Blocks, don't call it on the main thread.
+     * </p>
+     *
+     * @throws Exception the exception thrown by the loader
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull final String key, @NonNull final Loader<T> loader)
+            throws Exception {
+        final FutureTask<Object> load;
+        final boolean loadHere;
+        synchronized (this) {
+            if (mValues.containsKey(key)) {
+                return (T) mValues.get(key);
+            }
+            final FutureTask<Object> running = mLoading.get(key);
+            loadHere = running == null;
+            if (loadHere) {
+                load = new FutureTask<>(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return loader.load();
+                    }
+                });
+                mLoading.put(key, load);
+            } else {
+                load = running;
+            }
+        }
+
+        if (loadHere) {
+            load.run();
+            synchronized (this) {
+                if (mLoading.get(key) == load) {
+                    mLoading.remove(key);
+                    try {
+                        mValues.put(key, load.get());
+                    } catch (ExecutionException e) {
+                        // failed, not cached
+                    }
+                }
+            }
+        }
+
+        try {
+            return (T) load.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * @return the cached value, {@code null} when not cached
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public synchronized <T> T getIfPresent(@NonNull final String key) {
+        return (T) mValues.get(key);
+    }
+
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * removes the cached value of the {@code key}, a running load doesn't store its result
+     */
+    public synchronized void invalidate(@NonNull final String key) {
+        mValues.remove(key);
+        mLoading.remove(key);
+    }
+
+    public synchronized void put(@NonNull final String key, @Nullable final Object value) {
+        mValues.put(key, value);
+    }
+
+    public synchronized int size() {
+        return mValues.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TiHostCache{size=" + mValues.size() + ", loading=" + mLoading.size() + "}";
+    }
+}
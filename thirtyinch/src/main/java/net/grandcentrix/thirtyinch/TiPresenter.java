@@ -16,6 +16,7 @@
 package net.grandcentrix.thirtyinch;
 
 
+import static androidx.annotation.RestrictTo.Scope.LIBRARY;
 import static androidx.annotation.RestrictTo.Scope.SUBCLASSES;
 
 import android.app.Activity;
@@ -26,12 +27,24 @@ import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
 import android.widget.Toast;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.internal.IdleDispatcher;
 import net.grandcentrix.thirtyinch.internal.OneTimeRemovable;
+import net.grandcentrix.thirtyinch.internal.PresenterSavior;
 import net.grandcentrix.thirtyinch.test.TiTestPresenter;
 
 /**
@@ -42,6 +55,23 @@ import net.grandcentrix.thirtyinch.test.TiTestPresenter;
  */
 public abstract class TiPresenter<V extends TiView> {
 
+    /**
+     * How urgently view actions are delivered, set by the host of the view. See
+     * {@link #setDeliveryPriority(DeliveryPriority)}
+     */
+    public enum DeliveryPriority {
+        /**
+         * the view is active, i.e. a resumed Activity. Actions are delivered right away.
+         */
+        HIGH,
+        /**
+         * the view is visible but not active, i.e. a paused Activity or a Fragment in the
+         * offscreen pages of a ViewPager. Actions are conflated and delivered in the interval of
+         * {@link TiConfiguration#getInactiveDeliveryIntervalMillis()}
+         */
+        LOW
+    }
+
     /**
      * The LifecycleState of a {@link TiPresenter}
      */
@@ -70,6 +100,23 @@ public abstract class TiPresenter<V extends TiView> {
 
     private static TiConfiguration sDefaultConfig = TiConfiguration.DEFAULT;
 
+    /**
+     * runs the actions of {@link #sendToViewWhenIdle(ViewAction)}, shared by all presenters
+     */
+    private static IdleDispatcher sIdleDispatcher;
+
+    /**
+     * schedules the end of the detach grace periods and the throttled delivery of view actions,
+     * see {@link TiConfiguration#getDetachGracePeriodMillis()} and
+     * {@link TiConfiguration#getInactiveDeliveryIntervalMillis()}
+     */
+    private static ScheduledExecutorService sTimer;
+
+    /**
+     * created on first use, see {@link #getBackgroundExecutor()}
+     */
+    private TiPresenterExecutor mBackgroundExecutor;
+
     /**
      * list of the added observers
      */
@@ -89,6 +136,55 @@ public abstract class TiPresenter<V extends TiView> {
 
     private final TiConfiguration mConfig;
 
+    private volatile DeliveryPriority mDeliveryPriority = DeliveryPriority.HIGH;
+
+    /**
+     * incremented by {@link #clearPendingWork()}, idle actions sent before are dropped
+     */
+    private volatile int mPendingWorkGeneration = 0;
+
+    /**
+     * cancels the pending detach when the view comes back within the grace period
+     */
+    @Nullable
+    private ScheduledFuture<?> mDetachTimeout;
+
+    /**
+     * the view detached within the grace period, still attached for the lifecycle. {@code null}
+     * when no detach is pending.
+     */
+    @Nullable
+    private V mDetachingView;
+
+    /**
+     * finishes the pending detach on the ui thread, replaced for every pending detach
+     */
+    @Nullable
+    private Runnable mFinishDetach;
+
+    /**
+     * {@link System#nanoTime()} when {@link #onCreate()} completed
+     */
+    private volatile long mCreatedNanos = 0;
+
+    /**
+     * {@link System#nanoTime()} of the last completed create, attach or detach transition
+     */
+    private volatile long mLastUsedNanos = 0;
+
+    /**
+     * set by the delegate, see {@link #getHostCache()}
+     */
+    @Nullable
+    private volatile TiHostCache mHostCache;
+
+    /**
+     * replaces the shared {@link IdleDispatcher} for this presenter, see
+     * {@link #setIdleExecutor(Executor)}
+     */
+    @Nullable
+    private volatile Executor mIdleExecutor;
+
     private LinkedBlockingQueue<ViewAction<V>> mPostponedViewActions = new LinkedBlockingQueue<>();
 
     private State mState = State.INITIALIZED;
@@ -99,8 +195,41 @@ public abstract class TiPresenter<V extends TiView> {
     @Nullable
     private Executor mUiThreadExecutor;
 
+    /**
+     * delivers the throttled actions when the interval passed, guarded by
+     * {@link #mThrottledViewActions}
+     */
+    @Nullable
+    private ScheduledFuture<?> mThrottledDelivery;
+
+    /**
+     * actions waiting for the next throttled delivery by conflation key, in the order they have
+     * been sent
+     */
+    private final LinkedHashMap<Object, ViewAction<V>> mThrottledViewActions =
+            new LinkedHashMap<>();
+
     private V mView;
 
+    /**
+     * list of the added view action observers, actions can be sent from any thread
+     */
+    private final List<TiViewActionObserver> mViewActionObservers =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a resolver which allows retaining presenters for hosts other than {@link Activity}.
+     * Add resolvers before the first presenter of such a host is saved, i.e. in
+     * {@link android.app.Application#onCreate()}.
+     *
+     * @return a {@link Removable} to remove the resolver again
+     * @see HostScopeResolver
+     */
+    @NonNull
+    public static Removable addHostScopeResolver(@NonNull final HostScopeResolver<?> resolver) {
+        return PresenterSavior.getInstance().addHostScopeResolver(resolver);
+    }
+
     public static void setDefaultConfig(final TiConfiguration config) {
         sDefaultConfig = config;
     }
@@ -147,6 +276,31 @@ public abstract class TiPresenter<V extends TiView> {
         };
     }
 
+    /**
+     * Observes the {@link ViewAction}s sent to the view with {@link #sendToView(ViewAction)}, i.e.
+     * to measure how long they wait for the view.
+     *
+     * @return a {@link Removable} allowing to remove the {@link TiViewActionObserver} from the
+     * {@link TiPresenter} before it reaches its termination state
+     */
+    public Removable addViewActionObserver(@NonNull final TiViewActionObserver observer) {
+        if (mState == State.DESTROYED) {
+            throw new IllegalStateException("Don't add observers "
+                    + "when the presenter reached the DESTROYED state. "
+                    + "They wont get any new events anyways.");
+        }
+
+        mViewActionObservers.add(observer);
+
+        return new OneTimeRemovable() {
+
+            @Override
+            public void onRemove() {
+                mViewActionObservers.remove(observer);
+            }
+        };
+    }
+
     /**
      * bind a new view to this presenter.
      *
@@ -167,6 +321,18 @@ public abstract class TiPresenter<V extends TiView> {
                             + "Binding a view is not allowed");
         }
 
+        if (mDetachingView != null) {
+            if (view.equals(mDetachingView)) {
+                cancelPendingDetach();
+                mView = view;
+                TiLog.v(TAG, "not calling onAttachView(), view came back within the grace period");
+                sendPostponedActionsToView(view);
+                return;
+            }
+            // a different view, the previous one won't come back
+            finishPendingDetach();
+        }
+
         if (isViewAttached()) {
             if (view.equals(mView)) {
                 TiLog.v(TAG, "not calling onAttachView(), view already attached");
@@ -182,19 +348,54 @@ public abstract class TiPresenter<V extends TiView> {
         }
 
         mView = view;
-        moveToState(State.VIEW_ATTACHED, false);
-        mCalled = false;
-        TiLog.v(TAG, "onAttachView(TiView)");
-        onAttachView(view);
-        if (!mCalled) {
-            throw new SuperNotCalledException("Presenter " + this
-                    + " did not call through to super.onAttachView(TiView)");
+        synchronized (this) {
+            if (mBackgroundExecutor != null) {
+                mBackgroundExecutor.setViewScopeActive(true);
+            }
+        }
+        TiTracer.beginSection(getTraceSection(mState, State.VIEW_ATTACHED));
+        try {
+            moveToState(State.VIEW_ATTACHED, false);
+            mCalled = false;
+            TiLog.v(TAG, "onAttachView(TiView)");
+            onAttachView(view);
+            if (!mCalled) {
+                throw new SuperNotCalledException("Presenter " + this
+                        + " did not call through to super.onAttachView(TiView)");
+            }
+            moveToState(State.VIEW_ATTACHED, true);
+        } finally {
+            TiTracer.endSection();
         }
-        moveToState(State.VIEW_ATTACHED, true);
 
         sendPostponedActionsToView(view);
     }
 
+    /**
+     * Drops the view actions which haven't been delivered yet (queued, throttled and idle actions)
+     * and cancels the tasks of the {@link #getBackgroundExecutor()}. Called by
+     * {@link TiPresenterPool#release(TiPresenter)} before the presenter serves the next item.
+     * Tasks which are already running get interrupted.
+     */
+    void clearPendingWork() {
+        mPendingWorkGeneration++;
+        mPostponedViewActions.clear();
+        synchronized (mThrottledViewActions) {
+            if (mThrottledDelivery != null) {
+                mThrottledDelivery.cancel(false);
+                mThrottledDelivery = null;
+            }
+            mThrottledViewActions.clear();
+        }
+        synchronized (this) {
+            if (mBackgroundExecutor != null) {
+                // a new executor is created for the next item on first use
+                mBackgroundExecutor.cancelAll();
+                mBackgroundExecutor = null;
+            }
+        }
+    }
+
     /**
      * Initializes the presenter. This is like the constructor. Keeping things separate allows
      * manually injecting fields in test cases after initializing the presenter and then start the
@@ -207,15 +408,21 @@ public abstract class TiPresenter<V extends TiView> {
             TiLog.w(TAG, "not calling onCreate(), it was already called");
             return;
         }
-        moveToState(State.VIEW_DETACHED, false);
-        mCalled = false;
-        TiLog.v(TAG, "onCreate()");
-        onCreate();
-        if (!mCalled) {
-            throw new SuperNotCalledException("Presenter " + this
-                    + " did not call through to super.onCreate()");
+        TiTracer.beginSection(getTraceSection(mState, State.VIEW_DETACHED));
+        try {
+            moveToState(State.VIEW_DETACHED, false);
+            mCalled = false;
+            TiLog.v(TAG, "onCreate()");
+            onCreate();
+            if (!mCalled) {
+                throw new SuperNotCalledException("Presenter " + this
+                        + " did not call through to super.onCreate()");
+            }
+            moveToState(State.VIEW_DETACHED, true);
+        } finally {
+            TiTracer.endSection();
         }
-        moveToState(State.VIEW_DETACHED, true);
+        mCreatedNanos = mLastUsedNanos;
     }
 
     /**
@@ -226,6 +433,7 @@ public abstract class TiPresenter<V extends TiView> {
      * @see #onDestroy()
      */
     public final void destroy() {
+        finishPendingDetach();
         if (isViewAttached()) {
             throw new IllegalStateException(
                     "view is attached, can't destroy the presenter. First call detachView()");
@@ -236,18 +444,60 @@ public abstract class TiPresenter<V extends TiView> {
             return;
         }
 
-        moveToState(State.DESTROYED, false);
-        mCalled = false;
-        TiLog.v(TAG, "onDestroy()");
-        onDestroy();
-        if (!mCalled) {
-            throw new SuperNotCalledException("Presenter " + this
-                    + " did not call through to super.onDestroy()");
+        synchronized (this) {
+            if (mBackgroundExecutor != null) {
+                mBackgroundExecutor.cancelAll();
+            }
+        }
+        TiTracer.beginSection(getTraceSection(mState, State.DESTROYED));
+        try {
+            moveToState(State.DESTROYED, false);
+            mCalled = false;
+            TiLog.v(TAG, "onDestroy()");
+            onDestroy();
+            if (!mCalled) {
+                throw new SuperNotCalledException("Presenter " + this
+                        + " did not call through to super.onDestroy()");
+            }
+            moveToState(State.DESTROYED, true);
+        } finally {
+            TiTracer.endSection();
         }
-        moveToState(State.DESTROYED, true);
 
         // release everything, no new states will be posted
         mLifecycleObservers.clear();
+        mViewActionObservers.clear();
+    }
+
+    /**
+     * Destroys a presenter which is retained without a view to free memory, i.e. when the system
+     * runs low on memory and the host of this presenter is in the background or in the back
+     * stack. {@link #onEvicted()} gets called right before {@link #onDestroy()}.
+     * <p>
+     * The host will create a new presenter instance when it returns.
+     * <p>
+     * Only called by the {@link net.grandcentrix.thirtyinch.internal.PresenterSavior} which
+     * removes the presenter from the scope of its host first. Control the eviction with
+     * {@link net.grandcentrix.thirtyinch.internal.PresenterSavior#setEvictionBudget(int)}.
+     *
+     * @see #onEvicted()
+     */
+    @RestrictTo(LIBRARY)
+    public final void evict() {
+        finishPendingDetach();
+        if (isViewAttached()) {
+            throw new IllegalStateException(
+                    "view is attached, can't evict the presenter. First call detachView()");
+        }
+
+        if (!isInitialized()) {
+            TiLog.v(TAG, "not calling onEvicted(), presenter is in state " + mState);
+            return;
+        }
+
+        TiLog.v(TAG, "onEvicted()");
+        onEvicted();
+        destroy();
     }
 
     /**
@@ -255,23 +505,79 @@ public abstract class TiPresenter<V extends TiView> {
      * available anymore.
      * Calling detachView in {@code Fragment#onDestroyView()} makes sense because observing a
      * discarded view does not.
+     * <p>
+     * With a {@link TiConfiguration#getDetachGracePeriodMillis() detach grace period}
+     * {@link #onDetachView()} is postponed until the period passes. {@link #getView()} returns
+     * {@code null} right away and actions sent with {@link #sendToView(ViewAction)} wait for the
+     * view. Presenters without {@link #setUiThreadExecutor(Executor) ui thread executor} detach
+     * right away, the grace period can only end on the ui thread.
+     * </p>
      */
     public final void detachView() {
         if (!isViewAttached()) {
             TiLog.v(TAG, "not calling onDetachView(), not woken up");
             return;
         }
-        moveToState(State.VIEW_DETACHED, false);
-        mCalled = false;
-        TiLog.v(TAG, "onDetachView()");
-        onDetachView();
-        if (!mCalled) {
-            throw new SuperNotCalledException("Presenter " + this
-                    + " did not call through to super.onDetachView()");
+        final long gracePeriod = mConfig.getDetachGracePeriodMillis();
+        if (gracePeriod > 0 && mUiThreadExecutor != null) {
+            postponeDetach(gracePeriod);
+            return;
         }
+        performDetach();
+    }
 
-        moveToState(State.VIEW_DETACHED, true);
-        mView = null;
+    /**
+     * Calls the {@link #onDetachView()} postponed by the detach grace period right away, the view
+     * won't come back. I.e. when a {@link TiPresenterPool} gets the presenter back. Does nothing
+     * when no detach is pending. Call on the ui thread.
+     */
+    @RestrictTo(LIBRARY)
+    public final void finishPendingDetach() {
+        final V view = mDetachingView;
+        if (view == null) {
+            return;
+        }
+        cancelPendingDetach();
+        // available in onDetachView()
+        mView = view;
+        performDetach();
+    }
+
+    /**
+     * Executor for background work of this presenter. Tasks run on a pool shared by all
+     * presenters, at most {@link TiConfiguration#getBackgroundConcurrency()} of them at the same
+     * time. Unfinished tasks get cancelled when the presenter gets destroyed.
+     * <code>
+     * <pre>
+     * getBackgroundExecutor().execute(new Runnable() {
+     *     public void run() {
+     *         final User user = repository.loadUser();
+     *         sendToView(new ViewAction&lt;UserView&gt;() {
+     *             public void call(final UserView view) {
+     *                 view.showUser(user);
+     *             }
+     *         });
+     *     }
+     * });
+     * </pre>
+     * </code>
+     *
+     * @return the executor of this presenter, also providing
+     * {@link TiPresenterExecutor#getMetrics()}
+     * @throws IllegalStateException when the presenter is destroyed
+     * @see #getViewScopedBackgroundExecutor()
+     */
+    @NonNull
+    public synchronized TiPresenterExecutor getBackgroundExecutor() {
+        if (isDestroyed()) {
+            throw new IllegalStateException("presenter is destroyed, no background work allowed");
+        }
+        if (mBackgroundExecutor == null) {
+            mBackgroundExecutor = new TiPresenterExecutor(mConfig.getBackgroundConcurrency(),
+                    TiPresenterExecutor.getSharedExecutor());
+            mBackgroundExecutor.setViewScopeActive(isViewAttached());
+        }
+        return mBackgroundExecutor;
     }
 
     /**
@@ -282,6 +588,52 @@ public abstract class TiPresenter<V extends TiView> {
         return mConfig;
     }
 
+    /**
+     * @return {@link System#nanoTime()} when the presenter was created, {@code 0} before
+     * {@link #create()}
+     */
+    public long getCreatedNanos() {
+        return mCreatedNanos;
+    }
+
+    /**
+     * Values shared with the other presenters of the same host, i.e. the presenter of the Activity
+     * and the presenters of its Fragments. The cache survives configuration changes and gets
+     * cleared when the host finishes.
+     *
+     * @return the cache of the host of this presenter
+     * @throws IllegalStateException when the presenter isn't retained by a {@link TiActivity} or
+     *                               {@link TiFragment} (see
+     *                               {@link TiConfiguration#shouldRetainPresenter()}). The cache is
+     *                               set before {@link #onCreate()} or, for presenters created on
+     *                               another thread, before the view gets attached
+     * @see TiHostCache#get(String, TiHostCache.Loader)
+     */
+    @NonNull
+    public TiHostCache getHostCache() {
+        final TiHostCache cache = mHostCache;
+        if (cache == null) {
+            throw new IllegalStateException("no host cache available, the presenter has no host");
+        }
+        return cache;
+    }
+
+    /**
+     * @return how urgently view actions are delivered, {@link DeliveryPriority#HIGH} by default
+     */
+    @NonNull
+    public DeliveryPriority getDeliveryPriority() {
+        return mDeliveryPriority;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the presenter was created or the view was attached or
+     * detached the last time, {@code 0} before {@link #create()}
+     */
+    public long getLastUsedNanos() {
+        return mLastUsedNanos;
+    }
+
     /**
      * @return the current lifecycle state
      */
@@ -324,6 +676,19 @@ public abstract class TiPresenter<V extends TiView> {
         return view;
     }
 
+    /**
+     * Like {@link #getBackgroundExecutor()} but the tasks get cancelled when the view gets
+     * detached, for work which is only required while the view is visible. Tasks executed while
+     * no view is attached are dropped. Shares the queue and concurrency limit with
+     * {@link #getBackgroundExecutor()}.
+     *
+     * @throws IllegalStateException when the presenter is destroyed
+     */
+    @NonNull
+    public Executor getViewScopedBackgroundExecutor() {
+        return getBackgroundExecutor().getViewScopedExecutor();
+    }
+
     public boolean isDestroyed() {
         return mState == State.DESTROYED;
     }
@@ -332,8 +697,37 @@ public abstract class TiPresenter<V extends TiView> {
         return mState == State.VIEW_DETACHED;
     }
 
+    /**
+     * @return {@code true} when a view is attached, {@code false} while the detached view is
+     * within its {@link TiConfiguration#getDetachGracePeriodMillis() grace period}
+     */
     public boolean isViewAttached() {
-        return mState == State.VIEW_ATTACHED;
+        return mState == State.VIEW_ATTACHED && mDetachingView == null;
+    }
+
+    /**
+     * @return {@code true} while the view is detached but {@link #onDetachView()} is postponed
+     * for the {@link TiConfiguration#getDetachGracePeriodMillis() grace period}
+     */
+    public boolean isViewDetachPending() {
+        return mDetachingView != null;
+    }
+
+    /**
+     * Restores the state written by {@link #saveSnapshot(DataOutput)} of a previous presenter
+     * instance, i.e. after the process was killed in the background. Called before
+     * {@link #create()} when {@link TiConfiguration#isStateSnapshotEnabled()}.
+     *
+     * @throws IllegalStateException when the presenter was already created
+     * @see #onRestoreSnapshot(DataInput)
+     */
+    public final void restoreSnapshot(@NonNull final DataInput in) throws IOException {
+        if (mState != State.INITIALIZED) {
+            throw new IllegalStateException(
+                    "can't restore a snapshot in state " + mState + ", restore before create()");
+        }
+        TiLog.v(TAG, "onRestoreSnapshot()");
+        onRestoreSnapshot(in);
     }
 
     /**
@@ -359,6 +753,22 @@ public abstract class TiPresenter<V extends TiView> {
         }
     }
 
+    /**
+     * Writes the state of the presenter which is required to continue after the process got
+     * killed. Called in {@link Activity#onSaveInstanceState(android.os.Bundle)} when
+     * {@link TiConfiguration#isStateSnapshotEnabled()}.
+     *
+     * @throws IllegalStateException when the presenter is not created or already destroyed
+     * @see #onSaveSnapshot(DataOutput)
+     */
+    public final void saveSnapshot(@NonNull final DataOutput out) throws IOException {
+        if (mState == State.INITIALIZED || mState == State.DESTROYED) {
+            throw new IllegalStateException("can't save a snapshot in state " + mState);
+        }
+        TiLog.v(TAG, "onSaveSnapshot()");
+        onSaveSnapshot(out);
+    }
+
     /**
      * Executes the {@link ViewAction} when the view is available on the UI thread.
      * Once a view is attached the actions get called in the same order they have been added.
@@ -383,19 +793,100 @@ public abstract class TiPresenter<V extends TiView> {
      */
     @RestrictTo(SUBCLASSES)
     public void sendToView(final ViewAction<V> action) {
-        final V view = getView();
-        if (view != null) {
-            runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    action.call(view);
+        sendToView(null, action);
+    }
+
+    /**
+     * Like {@link #sendToView(ViewAction)} for actions of which only the latest one matters, i.e.
+     * showing the current progress. While the view is inactive
+     * ({@link DeliveryPriority#LOW}) an action replaces the undelivered action of the same
+     * {@code key}, see {@link TiConfiguration#getInactiveDeliveryIntervalMillis()}.
+     *
+     * @param key identifies the actions replacing each other
+     */
+    @RestrictTo(SUBCLASSES)
+    public void sendToViewConflated(@NonNull final Object key,
+            @NonNull final ViewAction<V> action) {
+        sendToView(key, action);
+    }
+
+    /**
+     * Like {@link #sendToView(ViewAction)} for actions which are not urgent, i.e. prefetching
+     * images or updating secondary badges. The action is executed when the main thread is idle
+     * and doesn't compete with input handling and drawing frames. Each idle phase executes
+     * actions of all presenters for a few milliseconds, further actions wait for the next idle
+     * phase.
+     * <p>
+     * When no view is attached at that time the action is executed when the next view gets
+     * attached.
+     * </p>
+     */
+    @RestrictTo(SUBCLASSES)
+    public void sendToViewWhenIdle(@NonNull final ViewAction<V> action) {
+        for (int i = 0; i < mViewActionObservers.size(); i++) {
+            mViewActionObservers.get(i).onViewActionSent(action);
+        }
+        final int generation = mPendingWorkGeneration;
+        final Executor idleExecutor = mIdleExecutor;
+        (idleExecutor != null ? idleExecutor : getIdleDispatcher()).execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mPendingWorkGeneration) {
+                    TiLog.v(TAG, "dropping idle action sent before the presenter got reused");
+                    return;
                 }
-            });
-        } else {
-            mPostponedViewActions.add(action);
+                final V view = getView();
+                if (view != null) {
+                    callViewAction(action, view);
+                } else {
+                    mPostponedViewActions.add(action);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets how urgently view actions are delivered, called by the {@link TiActivity} and
+     * {@link TiFragment} delegates when the host gets resumed and paused. Raising the priority to
+     * {@link DeliveryPriority#HIGH} delivers the throttled actions right away.
+     * <p>
+     * Call on the ui thread.
+     * </p>
+     */
+    public void setDeliveryPriority(@NonNull final DeliveryPriority priority) {
+        if (mDeliveryPriority == priority) {
+            return;
+        }
+        TiLog.v(TAG, "delivery priority " + priority);
+        synchronized (mThrottledViewActions) {
+            // actions throttled afterwards see the new priority
+            mDeliveryPriority = priority;
+        }
+        if (priority == DeliveryPriority.HIGH) {
+            deliverThrottledViewActions();
         }
     }
 
+    /**
+     * sets the values shared by the presenters of the same host, called by the
+     * {@link TiActivity} and {@link TiFragment} delegates. Set a cache in tests to use
+     * {@link #getHostCache()}.
+     */
+    public void setHostCache(@Nullable final TiHostCache hostCache) {
+        mHostCache = hostCache;
+    }
+
+    /**
+     * Executes the actions of {@link #sendToViewWhenIdle(ViewAction)} instead of the idle phases
+     * of the main thread, i.e. right away in unit tests. Set by {@link TiTestPresenter}.
+     *
+     * @param idleExecutor {@code null} to use the idle phases of the main thread
+     */
+    @RestrictTo(LIBRARY)
+    public void setIdleExecutor(@Nullable final Executor idleExecutor) {
+        mIdleExecutor = idleExecutor;
+    }
+
     /**
      * sets the Executor used for the {@link #runOnUiThread(Runnable)} method.
      * <p>
@@ -410,6 +901,26 @@ public abstract class TiPresenter<V extends TiView> {
         mUiThreadExecutor = uiThreadExecutor;
     }
 
+    /**
+     * replaces the dispatcher of {@link #sendToViewWhenIdle(ViewAction)}
+     *
+     * @param dispatcher {@code null} to use the idle phases of the main thread
+     */
+    @VisibleForTesting
+    static synchronized void setIdleDispatcher(@Nullable final IdleDispatcher dispatcher) {
+        sIdleDispatcher = dispatcher;
+    }
+
+    /**
+     * replaces the timer of the detach grace periods and the throttled delivery
+     *
+     * @param timer {@code null} to use the default timer thread
+     */
+    @VisibleForTesting
+    static synchronized void setTimer(@Nullable final ScheduledExecutorService timer) {
+        sTimer = timer;
+    }
+
     /**
      * Creates {@link TiTestPresenter} that simplifies testing by calling the presenter lifecycle
      * methods automatically in the correct order. It also sets the ui thread Executors which allows
@@ -525,6 +1036,16 @@ public abstract class TiPresenter<V extends TiView> {
         mCalled = true;
     }
 
+    /**
+     * Called before the presenter gets destroyed by {@link #evict()} to free memory. The view is
+     * detached. Persist a compact state here, i.e. to disk, which allows the next presenter
+     * instance to continue where this one stopped. {@link #onDestroy()} will be called
+     * afterwards.
+     */
+    protected void onEvicted() {
+        // noop
+    }
+
     /**
      * Right after this method the view will be detached. {@link #getView()} will return
      * <code>null</code> afterwards.
@@ -539,6 +1060,143 @@ public abstract class TiPresenter<V extends TiView> {
         mCalled = true;
     }
 
+    /**
+     * Reads the state written in {@link #onSaveSnapshot(DataOutput)} in the same order. Called
+     * before {@link #onCreate()}, which can skip loading what was restored.
+     *
+     * @see #restoreSnapshot(DataInput)
+     */
+    protected void onRestoreSnapshot(@NonNull final DataInput in) throws IOException {
+        // noop
+    }
+
+    /**
+     * Writes a compact binary representation of the state required to show the first frame
+     * after the process was killed. Keep it small and don't write references to other objects,
+     * the snapshot will be read by a new presenter instance in a new process.
+     *
+     * @see #saveSnapshot(DataOutput)
+     * @see TiConfiguration.Builder#setStateSnapshotEnabled(boolean)
+     */
+    protected void onSaveSnapshot(@NonNull final DataOutput out) throws IOException {
+        // noop
+    }
+
+    /**
+     * @return the dispatcher of {@link #sendToViewWhenIdle(ViewAction)}, draining the actions in
+     * the idle phases of the main thread
+     */
+    private static synchronized IdleDispatcher getIdleDispatcher() {
+        if (sIdleDispatcher == null) {
+            sIdleDispatcher = new IdleDispatcher(new IdleDispatcher.MainThreadIdleQueue(),
+                    IdleDispatcher.DEFAULT_BUDGET_NANOS);
+        }
+        return sIdleDispatcher;
+    }
+
+    /**
+     * @return the timer of the detach grace periods and the throttled delivery, one daemon thread
+     * shared by all presenters
+     */
+    private static synchronized ScheduledExecutorService getTimer() {
+        if (sTimer == null) {
+            final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull final Runnable r) {
+                            final Thread thread = new Thread(r, "TiPresenter-timer");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            // reattached views cancel their timeouts, don't keep them until they are due
+            timer.setRemoveOnCancelPolicy(true);
+            sTimer = timer;
+        }
+        return sTimer;
+    }
+
+    /**
+     * @return the name of the trace section of the lifecycle method called when moving from
+     * {@code oldState} to {@code newState}
+     */
+    private static String getTraceSection(final State oldState, final State newState) {
+        switch (newState) {
+            case VIEW_ATTACHED:
+                return "TiPresenter.onAttachView";
+            case VIEW_DETACHED:
+                return oldState == State.INITIALIZED
+                        ? "TiPresenter.onCreate" : "TiPresenter.onDetachView";
+            case DESTROYED:
+                return "TiPresenter.onDestroy";
+            default:
+                return "TiPresenter." + newState;
+        }
+    }
+
+    /**
+     * calls the {@code action} with the {@code view} and notifies the
+     * {@link TiViewActionObserver}s
+     */
+    private void callViewAction(@NonNull final ViewAction<V> action, @NonNull final V view) {
+        if (mViewActionObservers.isEmpty()) {
+            action.call(view);
+            return;
+        }
+        for (int i = 0; i < mViewActionObservers.size(); i++) {
+            mViewActionObservers.get(i).onViewActionExecuting(action);
+        }
+        action.call(view);
+        for (int i = 0; i < mViewActionObservers.size(); i++) {
+            mViewActionObservers.get(i).onViewActionExecuted(action);
+        }
+    }
+
+    /**
+     * stops the timeout of the pending detach, the view came back
+     */
+    private void cancelPendingDetach() {
+        if (mDetachTimeout != null) {
+            mDetachTimeout.cancel(false);
+            mDetachTimeout = null;
+        }
+        mFinishDetach = null;
+        mDetachingView = null;
+    }
+
+    /**
+     * delivers the actions collected while the view was inactive, moves them to the postponed
+     * actions when the view is detached. Call on the ui thread.
+     */
+    private void deliverThrottledViewActions() {
+        final List<ViewAction<V>> actions;
+        synchronized (mThrottledViewActions) {
+            if (mThrottledDelivery != null) {
+                mThrottledDelivery.cancel(false);
+                mThrottledDelivery = null;
+            }
+            if (mThrottledViewActions.isEmpty()) {
+                return;
+            }
+            actions = new ArrayList<>(mThrottledViewActions.values());
+            mThrottledViewActions.clear();
+        }
+
+        final V view = getView();
+        if (view == null) {
+            mPostponedViewActions.addAll(actions);
+            return;
+        }
+        TiTracer.beginSection("TiPresenter.deliverThrottledViewActions");
+        try {
+            for (int i = 0; i < actions.size(); i++) {
+                callViewAction(actions.get(i), view);
+            }
+        } finally {
+            TiTracer.endSection();
+        }
+    }
+
     /**
      * moves the presenter to the new state and validates the correctness of the transition
      *
@@ -591,6 +1249,10 @@ public abstract class TiPresenter<V extends TiView> {
             mState = newState;
         }
 
+        if (hasLifecycleMethodBeenCalled && newState != State.DESTROYED) {
+            mLastUsedNanos = System.nanoTime();
+        }
+
         if (mLifecycleObservers.size() > 0) {
             // make a local copy to call all observers,
             // even observers which will been removed by other observers which received this event
@@ -613,14 +1275,145 @@ public abstract class TiPresenter<V extends TiView> {
         }
     }
 
+    /**
+     * calls {@link #onDetachView()} and releases the view, throttled actions wait for the next
+     * view
+     */
+    private void performDetach() {
+        synchronized (this) {
+            if (mBackgroundExecutor != null) {
+                mBackgroundExecutor.setViewScopeActive(false);
+            }
+        }
+        TiTracer.beginSection(getTraceSection(mState, State.VIEW_DETACHED));
+        try {
+            moveToState(State.VIEW_DETACHED, false);
+            mCalled = false;
+            TiLog.v(TAG, "onDetachView()");
+            onDetachView();
+            if (!mCalled) {
+                throw new SuperNotCalledException("Presenter " + this
+                        + " did not call through to super.onDetachView()");
+            }
+            moveToState(State.VIEW_DETACHED, true);
+        } finally {
+            TiTracer.endSection();
+        }
+        mView = null;
+        deliverThrottledViewActions();
+    }
+
+    /**
+     * releases the view but keeps the presenter attached until the grace period passes or the
+     * view comes back
+     */
+    private void postponeDetach(final long gracePeriodMillis) {
+        mDetachingView = mView;
+        mView = null;
+        final Runnable finishDetach = new Runnable() {
+            @Override
+            public void run() {
+                // outdated when the view came back in the meantime
+                if (mFinishDetach == this) {
+                    finishPendingDetach();
+                }
+            }
+        };
+        mFinishDetach = finishDetach;
+        // the ui thread executor stays bound until onDetachView() got called, never detach on
+        // the timer thread racing with attachView()
+        final Executor uiThreadExecutor = mUiThreadExecutor;
+        mDetachTimeout = getTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                uiThreadExecutor.execute(finishDetach);
+            }
+        }, gracePeriodMillis, TimeUnit.MILLISECONDS);
+        TiLog.v(TAG, "postponing onDetachView() for " + gracePeriodMillis + "ms");
+    }
+
     /**
      * Executes all postponed view actions
      *
      * @param view where the actions will be sent to
      */
     private void sendPostponedActionsToView(@NonNull final V view) {
-        while (!mPostponedViewActions.isEmpty()) {
-            mPostponedViewActions.poll().call(view);
+        if (mPostponedViewActions.isEmpty()) {
+            return;
+        }
+        TiTracer.beginSection("TiPresenter.sendPostponedActionsToView");
+        try {
+            while (!mPostponedViewActions.isEmpty()) {
+                callViewAction(mPostponedViewActions.poll(), view);
+            }
+        } finally {
+            TiTracer.endSection();
+        }
+    }
+
+    /**
+     * @param key conflation key, {@code null} when the action must not be replaced
+     */
+    private void sendToView(@Nullable final Object key, final ViewAction<V> action) {
+        for (int i = 0; i < mViewActionObservers.size(); i++) {
+            mViewActionObservers.get(i).onViewActionSent(action);
+        }
+        final V view = getView();
+        if (view == null) {
+            mPostponedViewActions.add(action);
+            return;
+        }
+        final long interval = mConfig.getInactiveDeliveryIntervalMillis();
+        if (mDeliveryPriority == DeliveryPriority.LOW && interval > 0
+                && throttle(key != null ? key : new Object(), action, interval)) {
+            return;
+        }
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                callViewAction(action, view);
+            }
+        });
+    }
+
+    /**
+     * collects the {@code action} for the next throttled delivery, replacing the action of the
+     * same {@code key}
+     *
+     * @return {@code false} when the priority was raised in the meantime, deliver the action
+     * right away
+     */
+    private boolean throttle(@NonNull final Object key, @NonNull final ViewAction<V> action,
+            final long intervalMillis) {
+        synchronized (mThrottledViewActions) {
+            if (mDeliveryPriority == DeliveryPriority.HIGH) {
+                // the throttled actions were delivered already, this one would wait
+                return false;
+            }
+            // the replacing action moves to the end, it was sent after all others
+            mThrottledViewActions.remove(key);
+            mThrottledViewActions.put(key, action);
+            if (mThrottledDelivery != null || intervalMillis == Long.MAX_VALUE) {
+                return true;
+            }
+            final Executor uiThreadExecutor = mUiThreadExecutor;
+            mThrottledDelivery = getTimer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final Runnable deliver = new Runnable() {
+                        @Override
+                        public void run() {
+                            deliverThrottledViewActions();
+                        }
+                    };
+                    if (uiThreadExecutor != null) {
+                        uiThreadExecutor.execute(deliver);
+                    } else {
+                        deliver.run();
+                    }
+                }
+            }, intervalMillis, TimeUnit.MILLISECONDS);
+            return true;
         }
     }
 }
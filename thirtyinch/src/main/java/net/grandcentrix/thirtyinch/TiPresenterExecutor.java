@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the background work of one {@link TiPresenter} on a pool shared by all presenters, see
+ * {@link TiPresenter#getBackgroundExecutor()}.
+ * <p>
+ * At most {@link TiConfiguration#getBackgroundConcurrency()} tasks of a presenter run at the
+ * same time, further tasks wait in the queue of the presenter. Tasks which didn't finish get
+ * cancelled when the presenter gets destroyed, running tasks get interrupted. Tasks executed with
+ * {@link TiPresenter#getViewScopedBackgroundExecutor()} are already cancelled when the view gets
+ * detached.
+ * </p>
+ * <p>
+ * Tasks send their results to the view with {@link TiPresenter#sendToView(ViewAction)}.
+ * Exceptions thrown by tasks are not swallowed, they are thrown on the pool thread.
+ * </p>
+ */
+public final class TiPresenterExecutor implements Executor {
+
+    /**
+     * A snapshot of the queue and timing statistics of a {@link TiPresenterExecutor}
+     */
+    public static final class Metrics {
+
+        private final int mCancelledCount;
+
+        private final int mCompletedCount;
+
+        private final int mMaxQueueDepth;
+
+        private final long mMaxWaitNanos;
+
+        private final int mQueueDepth;
+
+        private final int mRunningCount;
+
+        private final long mTotalRunNanos;
+
+        private final long mTotalWaitNanos;
+
+        Metrics(final int queueDepth, final int maxQueueDepth, final int runningCount,
+                final int completedCount, final int cancelledCount, final long totalWaitNanos,
+                final long maxWaitNanos, final long totalRunNanos) {
+            mQueueDepth = queueDepth;
+            mMaxQueueDepth = maxQueueDepth;
+            mRunningCount = runningCount;
+            mCompletedCount = completedCount;
+            mCancelledCount = cancelledCount;
+            mTotalWaitNanos = totalWaitNanos;
+            mMaxWaitNanos = maxWaitNanos;
+            mTotalRunNanos = totalRunNanos;
+        }
+
+        /**
+         * @return average run time of the completed tasks
+         */
+        public long getAverageRunNanos() {
+            return mCompletedCount == 0 ? 0 : mTotalRunNanos / mCompletedCount;
+        }
+
+        /**
+         * @return average time the completed tasks waited from {@link #execute(Runnable)} until
+         * they started
+         */
+        public long getAverageWaitNanos() {
+            return mCompletedCount == 0 ? 0 : mTotalWaitNanos / mCompletedCount;
+        }
+
+        /**
+         * @return number of tasks cancelled before they completed
+         */
+        public int getCancelledCount() {
+            return mCancelledCount;
+        }
+
+        public int getCompletedCount() {
+            return mCompletedCount;
+        }
+
+        /**
+         * @return max number of tasks which waited at the same time
+         */
+        public int getMaxQueueDepth() {
+            return mMaxQueueDepth;
+        }
+
+        public long getMaxWaitNanos() {
+            return mMaxWaitNanos;
+        }
+
+        /**
+         * @return number of tasks waiting for a free slot of the presenter
+         */
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        public int getRunningCount() {
+            return mRunningCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{"
+                    + "queueDepth=" + mQueueDepth
+                    + ", maxQueueDepth=" + mMaxQueueDepth
+                    + ", running=" + mRunningCount
+                    + ", completed=" + mCompletedCount
+                    + ", cancelled=" + mCancelledCount
+                    + ", avgWait=" + TimeUnit.NANOSECONDS.toMillis(getAverageWaitNanos()) + "ms"
+                    + ", maxWait=" + TimeUnit.NANOSECONDS.toMillis(mMaxWaitNanos) + "ms"
+                    + ", avgRun=" + TimeUnit.NANOSECONDS.toMillis(getAverageRunNanos()) + "ms"
+                    + '}';
+        }
+    }
+
+    private class Task extends FutureTask<Void> {
+
+        private final long mEnqueuedNanos;
+
+        private final boolean mViewScoped;
+
+        Task(final Runnable runnable, final boolean viewScoped) {
+            super(runnable, null);
+            mViewScoped = viewScoped;
+            mEnqueuedNanos = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            final long startNanos = System.nanoTime();
+            try {
+                super.run();
+            } finally {
+                onFinished(this, startNanos);
+            }
+        }
+
+        @Override
+        protected void setException(final Throwable t) {
+            super.setException(t);
+            TiLog.e(TAG, "background task failed: " + t);
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static final String TAG = TiPresenterExecutor.class.getSimpleName();
+
+    private static Executor sSharedExecutor;
+
+    private int mCancelledCount = 0;
+
+    private int mCompletedCount = 0;
+
+    private final int mConcurrency;
+
+    private int mMaxQueueDepth = 0;
+
+    private long mMaxWaitNanos = 0;
+
+    private final ArrayDeque<Task> mPending = new ArrayDeque<>();
+
+    private final Set<Task> mRunning = new LinkedHashSet<>();
+
+    private final Executor mSharedExecutor;
+
+    private boolean mShutdown = false;
+
+    private long mTotalRunNanos = 0;
+
+    private long mTotalWaitNanos = 0;
+
+    private boolean mViewScopeActive = false;
+
+    private final Executor mViewScopedExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            enqueue(command, true);
+        }
+    };
+
+    /**
+     * @return the pool shared by all presenters. Defaults to a pool with one thread per core,
+     * at least 2 and at most 4 threads.
+     */
+    @NonNull
+    public static synchronized Executor getSharedExecutor() {
+        if (sSharedExecutor == null) {
+            final int threads = Math.max(2,
+                    Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                    30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(@NonNull final Runnable r) {
+                            final Thread thread = new Thread(r,
+                                    "TiPresenter-background-" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            sSharedExecutor = pool;
+        }
+        return sSharedExecutor;
+    }
+
+    /**
+     * replaces the pool shared by all presenters, i.e. with the pool of your app. Presenters
+     * which already use the previous pool keep it.
+     *
+     * @param executor {@code null} to use the default pool
+     */
+    public static synchronized void setSharedExecutor(@Nullable final Executor executor) {
+        sSharedExecutor = executor;
+    }
+
+    @VisibleForTesting
+    TiPresenterExecutor(final int concurrency, @NonNull final Executor sharedExecutor) {
+        mConcurrency = concurrency;
+        mSharedExecutor = sharedExecutor;
+    }
+
+    /**
+     * Runs the {@code command} on the shared pool as soon as less than
+     * {@link TiConfiguration#getBackgroundConcurrency()} tasks of the presenter are running.
+     * Commands executed after the presenter got destroyed are dropped.
+     */
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        enqueue(command, false);
+    }
+
+    @NonNull
+    public synchronized Metrics getMetrics() {
+        return new Metrics(mPending.size(), mMaxQueueDepth, mRunning.size(), mCompletedCount,
+                mCancelledCount, mTotalWaitNanos, mMaxWaitNanos, mTotalRunNanos);
+    }
+
+    @Override
+    public String toString() {
+        return TAG + "{" + getMetrics() + "}";
+    }
+
+    /**
+     * cancels all tasks and drops tasks executed afterwards, called when the presenter gets
+     * destroyed
+     */
+    void cancelAll() {
+        final List<Task> cancelled;
+        synchronized (this) {
+            mShutdown = true;
+            mViewScopeActive = false;
+            cancelled = removeTasks(false);
+        }
+        cancel(cancelled);
+    }
+
+    /**
+     * the executor for tasks which get cancelled when the view gets detached
+     */
+    Executor getViewScopedExecutor() {
+        return mViewScopedExecutor;
+    }
+
+    /**
+     * @param active {@code false} cancels the view scoped tasks and drops view scoped tasks until
+     *               activated again, called when the view gets attached or detached
+     */
+    void setViewScopeActive(final boolean active) {
+        List<Task> cancelled = null;
+        synchronized (this) {
+            mViewScopeActive = active && !mShutdown;
+            if (!active) {
+                cancelled = removeTasks(true);
+            }
+        }
+        if (cancelled != null) {
+            cancel(cancelled);
+        }
+    }
+
+    private void cancel(final List<Task> tasks) {
+        // interrupting running tasks outside of the lock, they finish in onFinished
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).cancel(true);
+        }
+    }
+
+    private void enqueue(final Runnable command, final boolean viewScoped) {
+        synchronized (this) {
+            if (mShutdown || (viewScoped && !mViewScopeActive)) {
+                TiLog.v(TAG, "dropping task, " + (mShutdown ? "presenter is destroyed"
+                        : "view is detached") + ": " + command);
+                mCancelledCount++;
+                return;
+            }
+            mPending.add(new Task(command, viewScoped));
+            mMaxQueueDepth = Math.max(mMaxQueueDepth, mPending.size());
+        }
+        scheduleNext();
+    }
+
+    private void onFinished(final Task task, final long startNanos) {
+        final long endNanos = System.nanoTime();
+        synchronized (this) {
+            if (!mRunning.remove(task)) {
+                return;
+            }
+            // cancelled tasks are counted when cancelled
+            if (!task.isCancelled()) {
+                mCompletedCount++;
+                final long waitNanos = startNanos - task.mEnqueuedNanos;
+                mTotalWaitNanos += waitNanos;
+                mMaxWaitNanos = Math.max(mMaxWaitNanos, waitNanos);
+                mTotalRunNanos += endNanos - startNanos;
+            }
+        }
+        scheduleNext();
+    }
+
+    /**
+     * removes the pending tasks and counts them and the running tasks as cancelled
+     *
+     * @return the tasks to cancel
+     */
+    private List<Task> removeTasks(final boolean viewScopedOnly) {
+        final List<Task> removed = new ArrayList<>();
+        final Iterator<Task> pending = mPending.iterator();
+        while (pending.hasNext()) {
+            final Task task = pending.next();
+            if (!viewScopedOnly || task.mViewScoped) {
+                pending.remove();
+                removed.add(task);
+            }
+        }
+        for (final Task task : mRunning) {
+            if (!viewScopedOnly || task.mViewScoped) {
+                removed.add(task);
+            }
+        }
+        mCancelledCount += removed.size();
+        return removed;
+    }
+
+    /**
+     * submits pending tasks to the shared pool while slots are free
+     */
+    private void scheduleNext() {
+        while (true) {
+            final Task next;
+            synchronized (this) {
+                if (mRunning.size() >= mConcurrency || mPending.isEmpty()) {
+                    return;
+                }
+                next = mPending.poll();
+                mRunning.add(next);
+            }
+            mSharedExecutor.execute(next);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
+
+/**
+ * Recycles item-level presenters, i.e. presenters of {@code RecyclerView} items or
+ * {@code ViewPager} pages. Instead of creating and destroying a presenter for every item which
+ * scrolls into or out of the screen, released presenters are kept in the
+ * {@link TiPresenter.State#VIEW_DETACHED} state and handed out again with {@link #acquire()}.
+ * <code>
+ * <pre>
+ * final TiPresenterPool&lt;ItemPresenter&gt; pool = new TiPresenterPool&lt;&gt;(
+ *         new TiPresenterProvider&lt;ItemPresenter&gt;() {
+ *             public ItemPresenter providePresenter() {
+ *                 return new ItemPresenter();
+ *             }
+ *         },
+ *         new TiPresenterPool.ResetHook&lt;ItemPresenter&gt;() {
+ *             public void reset(final ItemPresenter presenter) {
+ *                 presenter.setItem(null);
+ *             }
+ *         }, 16);
+ *
+ * // onBindViewHolder
+ * holder.presenter = pool.acquire();
+ * holder.presenter.setItem(item);
+ * holder.presenter.attachView(holder);
+ *
+ * // onViewRecycled
+ * holder.presenter.detachView();
+ * pool.release(holder.presenter);
+ * </pre>
+ * </code>
+ * <p>
+ * A presenter is created only once and destroyed when it doesn't fit into the pool or the pool
+ * gets {@link #clear() cleared}. {@link TiPresenter#onCreate()} and
+ * {@link TiPresenter#onDestroy()} therefore don't mark the beginning and end of an item, use
+ * {@link TiPresenter#onAttachView(TiView)} and the {@link ResetHook} for item-specific state.
+ * </p>
+ * <p>
+ * The pool is not thread safe, use it on the main thread.
+ * </p>
+ */
+public class TiPresenterPool<P extends TiPresenter> {
+
+    /**
+     * Prepares a released presenter for the next item
+     */
+    public interface ResetHook<P extends TiPresenter> {
+
+        /**
+         * Called when a presenter without view gets released to the pool. Clear all
+         * item-specific state and cancel running work for the previous item. The presenter is
+         * kept in the pool afterwards.
+         *
+         * @param presenter the released presenter in the
+         *                  {@link TiPresenter.State#VIEW_DETACHED} state
+         */
+        void reset(@NonNull P presenter);
+    }
+
+    private int mCreateCount = 0;
+
+    private int mDestroyCount = 0;
+
+    private final int mMaxSize;
+
+    private int mPeakSize = 0;
+
+    private final ArrayDeque<P> mPool;
+
+    private final TiPresenterProvider<P> mPresenterProvider;
+
+    private final ResetHook<P> mResetHook;
+
+    private int mReuseCount = 0;
+
+    /**
+     * @param presenterProvider creates new presenters when the pool is empty
+     * @param resetHook         resets released presenters
+     * @param maxSize           max number of presenters kept in the pool. Released presenters
+     *                          exceeding this limit get destroyed. Usually the number of items
+     *                          visible at the same time plus a few.
+     */
+    public TiPresenterPool(@NonNull final TiPresenterProvider<P> presenterProvider,
+            @NonNull final ResetHook<P> resetHook, final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative, was " + maxSize);
+        }
+        mPresenterProvider = presenterProvider;
+        mResetHook = resetHook;
+        mMaxSize = maxSize;
+        mPool = new ArrayDeque<>(Math.min(maxSize, 16));
+    }
+
+    /**
+     * Returns a presenter from the pool or creates a new one when the pool is empty.
+     *
+     * @return a created presenter without view, in the {@link TiPresenter.State#VIEW_DETACHED}
+     * state
+     */
+    @NonNull
+    public P acquire() {
+        final P pooled = mPool.pollLast();
+        if (pooled != null) {
+            mReuseCount++;
+            return pooled;
+        }
+
+        final P presenter = mPresenterProvider.providePresenter();
+        if (presenter.getState() != TiPresenter.State.INITIALIZED) {
+            throw new IllegalStateException("Presenter not in initialized state. "
+                    + "Current state is " + presenter.getState() + ". "
+                    + "Presenter provided with #providePresenter() cannot be reused. "
+                    + "Always return a fresh instance!");
+        }
+        presenter.create();
+        mCreateCount++;
+        return presenter;
+    }
+
+    /**
+     * Destroys all presenters in the pool. Call this when the screen using the pool gets
+     * destroyed.
+     */
+    public void clear() {
+        while (!mPool.isEmpty()) {
+            destroy(mPool.pollLast());
+        }
+    }
+
+    /**
+     * @return number of presenters created by the {@link TiPresenterProvider}
+     */
+    public int getCreateCount() {
+        return mCreateCount;
+    }
+
+    /**
+     * @return number of presenters destroyed because they didn't fit into the pool or the pool
+     * got cleared
+     */
+    public int getDestroyCount() {
+        return mDestroyCount;
+    }
+
+    /**
+     * @return the max number of presenters kept in the pool
+     */
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * @return the highest number of presenters which were in the pool at the same time
+     */
+    public int getPeakSize() {
+        return mPeakSize;
+    }
+
+    /**
+     * @return number of presenters currently waiting in the pool
+     */
+    public int getPooledCount() {
+        return mPool.size();
+    }
+
+    /**
+     * @return number of {@link #acquire()} calls served from the pool
+     */
+    public int getReuseCount() {
+        return mReuseCount;
+    }
+
+    /**
+     * Returns a presenter to the pool. Actions sent to the view of the previous item which
+     * haven't been delivered yet are dropped and its background tasks get cancelled, then the
+     * {@link ResetHook} gets called. The
+     * presenter gets destroyed instead when the pool is full.
+     *
+     * @param presenter presenter acquired from this pool, the view must be detached. A detach
+     *                  postponed by the {@link TiConfiguration#getDetachGracePeriodMillis()
+     *                  grace period} gets finished right away
+     */
+    public void release(@NonNull final P presenter) {
+        // the view of the item won't come back, don't wait for the detach grace period
+        presenter.finishPendingDetach();
+        if (presenter.isViewAttached()) {
+            throw new IllegalStateException(
+                    "view is attached, can't release the presenter. First call detachView()");
+        }
+        if (!presenter.isInitialized()) {
+            throw new IllegalStateException("Presenter in state " + presenter.getState()
+                    + " can't be released, it wasn't acquired from this pool");
+        }
+
+        if (mPool.size() >= mMaxSize) {
+            destroy(presenter);
+            return;
+        }
+
+        presenter.clearPendingWork();
+        mResetHook.reset(presenter);
+        mPool.addLast(presenter);
+        mPeakSize = Math.max(mPeakSize, mPool.size());
+    }
+
+    @Override
+    public String toString() {
+        return "TiPresenterPool{"
+                + "pooled=" + mPool.size()
+                + "/" + mMaxSize
+                + ", peak=" + mPeakSize
+                + ", created=" + mCreateCount
+                + ", reused=" + mReuseCount
+                + ", destroyed=" + mDestroyCount
+                + "}";
+    }
+
+    private void destroy(final P presenter) {
+        presenter.destroy();
+        mDestroyCount++;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import android.content.Intent;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.Executor;
+import net.grandcentrix.thirtyinch.internal.PresenterSavior;
+import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
+import net.grandcentrix.thirtyinch.internal.TiPresenterSavior;
+
+/**
+ * Creates the presenter of the next screen on a background thread while the current screen
+ * starts the navigation. The {@link TiActivity} or {@link TiFragment} adopts the created
+ * presenter in {@code onCreate} instead of calling {@link TiPresenterProvider#providePresenter()}
+ * on the main thread.
+ * <code>
+ * <pre>
+ * final Intent intent = new Intent(this, DetailActivity.class);
+ * TiPresenterPrefetch.prefetch(intent, new TiPresenterProvider&lt;DetailPresenter&gt;() {
+ *     public DetailPresenter providePresenter() {
+ *         return new DetailPresenter(itemId);
+ *     }
+ * }, AsyncTask.THREAD_POOL_EXECUTOR);
+ * startActivity(intent);
+ * </pre>
+ * </code>
+ * {@link TiPresenter#onCreate()} of a prefetched presenter runs on the executor. Presenters which
+ * are not adopted get destroyed after a timeout.
+ */
+public final class TiPresenterPrefetch {
+
+    /**
+     * key of the token in the {@link Intent} extras or the {@link androidx.fragment.app.Fragment}
+     * arguments
+     */
+    public static final String EXTRA_PREFETCH_TOKEN = "net.grandcentrix.thirtyinch.PREFETCH_TOKEN";
+
+    /**
+     * Discards a prefetched presenter, i.e. when the navigation got cancelled
+     *
+     * @param token returned by {@link #prefetch(TiPresenterProvider, Executor)}
+     */
+    public static void discard(final long token) {
+        PresenterSavior.getInstance().discardPrefetched(token);
+    }
+
+    /**
+     * @return the token in the {@link Intent}, {@link TiPresenterSavior#NO_ID} when none
+     */
+    public static long getToken(@Nullable final Intent intent) {
+        return intent != null
+                ? intent.getLongExtra(EXTRA_PREFETCH_TOKEN, TiPresenterSavior.NO_ID)
+                : TiPresenterSavior.NO_ID;
+    }
+
+    /**
+     * @return the token in the Fragment arguments, {@link TiPresenterSavior#NO_ID} when none
+     */
+    public static long getToken(@Nullable final Bundle arguments) {
+        return arguments != null
+                ? arguments.getLong(EXTRA_PREFETCH_TOKEN, TiPresenterSavior.NO_ID)
+                : TiPresenterSavior.NO_ID;
+    }
+
+    /**
+     * Starts creating a presenter on the {@code executor}. Pass the returned token to the host
+     * with {@link #EXTRA_PREFETCH_TOKEN}.
+     *
+     * @return the token of the prefetched presenter
+     */
+    public static long prefetch(@NonNull final TiPresenterProvider<?> provider,
+            @NonNull final Executor executor) {
+        return PresenterSavior.getInstance().prefetch(provider, executor);
+    }
+
+    /**
+     * Starts creating the presenter for the Activity started with the {@code intent}
+     *
+     * @return the {@code intent}
+     */
+    @NonNull
+    public static Intent prefetch(@NonNull final Intent intent,
+            @NonNull final TiPresenterProvider<?> provider, @NonNull final Executor executor) {
+        return intent.putExtra(EXTRA_PREFETCH_TOKEN, prefetch(provider, executor));
+    }
+
+    /**
+     * Starts creating the presenter for the Fragment with the {@code arguments}
+     *
+     * @return the {@code arguments}
+     */
+    @NonNull
+    public static Bundle prefetch(@NonNull final Bundle arguments,
+            @NonNull final TiPresenterProvider<?> provider, @NonNull final Executor executor) {
+        arguments.putLong(EXTRA_PREFETCH_TOKEN, prefetch(provider, executor));
+        return arguments;
+    }
+
+    private TiPresenterPrefetch() {
+        // no instances
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fields of a view state which changed since the state rendered before, see
+ * {@link TiStatePresenter#onRender(TiView, TiViewState, TiStateDiff)}. Fields are compared with
+ * {@link Object#equals(Object)}, arrays by their content.
+ * <p>
+ * Fields are named as declared in the source. Minifying with R8 or ProGuard would rename them,
+ * the consumer ProGuard rules of ThirtyInch keep the field names of {@link TiViewState}s.
+ * </p>
+ * <code>
+ * <pre>
+ * if (diff.hasChanged("title")) {
+ *     view.showTitle(state.title);
+ * }
+ * </pre>
+ * </code>
+ */
+public final class TiStateDiff {
+
+    /**
+     * the compared fields by state class, reflection is slow
+     */
+    private static final ConcurrentHashMap<Class<?>, List<Field>> sFields =
+            new ConcurrentHashMap<>();
+
+    private final Set<String> mChangedFields;
+
+    private final Set<String> mFieldNames;
+
+    private final boolean mFull;
+
+    /**
+     * compares the {@code newState} with the {@code oldState} field by field
+     *
+     * @param oldState the state rendered before, {@code null} when nothing was rendered. All
+     *                 fields changed when {@code null} or of a different class
+     */
+    @NonNull
+    public static TiStateDiff between(@Nullable final TiViewState oldState,
+            @NonNull final TiViewState newState) {
+        final List<Field> fields = getFields(newState.getClass());
+        if (oldState == null || oldState.getClass() != newState.getClass()) {
+            return full(fields);
+        }
+
+        final Set<String> fieldNames = new LinkedHashSet<>();
+        final Set<String> changed = new LinkedHashSet<>();
+        for (int i = 0; i < fields.size(); i++) {
+            final Field field = fields.get(i);
+            fieldNames.add(field.getName());
+            try {
+                if (!Arrays.deepEquals(new Object[]{field.get(oldState)},
+                        new Object[]{field.get(newState)})) {
+                    changed.add(field.getName());
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can't read field " + field, e);
+            }
+        }
+        return new TiStateDiff(fieldNames, changed, false);
+    }
+
+    /**
+     * @return a diff with all fields of the {@code state} changed, i.e. for a new view
+     */
+    @NonNull
+    public static TiStateDiff full(@NonNull final TiViewState state) {
+        return full(getFields(state.getClass()));
+    }
+
+    private TiStateDiff(final Set<String> fieldNames, final Set<String> changedFields,
+            final boolean full) {
+        mFieldNames = fieldNames;
+        mChangedFields = changedFields;
+        mFull = full;
+    }
+
+    /**
+     * @return the names of the changed fields in declaration order
+     */
+    @NonNull
+    public Set<String> getChangedFields() {
+        return Collections.unmodifiableSet(mChangedFields);
+    }
+
+    /**
+     * @param fieldName name of a field of the state class as declared in the source
+     * @return {@code true} when the field changed and has to be rendered
+     * @throws IllegalArgumentException when the state has no field with this name, catching typos
+     */
+    public boolean hasChanged(@NonNull final String fieldName) {
+        if (!mFieldNames.contains(fieldName)) {
+            throw new IllegalArgumentException(
+                    "no field '" + fieldName + "', state fields are " + mFieldNames);
+        }
+        return mChangedFields.contains(fieldName);
+    }
+
+    /**
+     * @return {@code true} when no field changed
+     */
+    public boolean isEmpty() {
+        return mChangedFields.isEmpty();
+    }
+
+    /**
+     * @return {@code true} when the complete state has to be rendered, i.e. for a new view
+     */
+    public boolean isFull() {
+        return mFull;
+    }
+
+    @Override
+    public String toString() {
+        return "TiStateDiff{" + (mFull ? "full" : "changed=" + mChangedFields) + "}";
+    }
+
+    private static TiStateDiff full(final List<Field> fields) {
+        final Set<String> fieldNames = new LinkedHashSet<>();
+        for (int i = 0; i < fields.size(); i++) {
+            fieldNames.add(fields.get(i).getName());
+        }
+        return new TiStateDiff(fieldNames, fieldNames, true);
+    }
+
+    /**
+     * @return the instance fields of the class and its super classes
+     */
+    private static List<Field> getFields(final Class<?> stateClass) {
+        final List<Field> cached = sFields.get(stateClass);
+        if (cached != null) {
+            return cached;
+        }
+        final List<Field> fields = new ArrayList<>();
+        for (Class<?> c = stateClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (final Field field : c.getDeclaredFields()) {
+                // skips the reference to the outer class of inner classes
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        final List<Field> unmodifiable = Collections.unmodifiableList(fields);
+        sFields.putIfAbsent(stateClass, unmodifiable);
+        return unmodifiable;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A {@link TiPresenter} publishing immutable view states instead of sending single
+ * {@link ViewAction}s. Each state gets compared with the state before field by field on a
+ * background thread, {@link #onRender(TiView, TiViewState, TiStateDiff)} updates only the changed
+ * parts of the view in one pass on the ui thread.
+ * <p>
+ * States published faster than they can be rendered are conflated, only the latest one gets
+ * rendered. States published while no view is attached are not queued, the latest state gets
+ * rendered completely when a view gets attached.
+ * </p>
+ * <code>
+ * <pre>
+ * public class UserState implements TiViewState {
+ *     final String name;
+ *     final boolean loading;
+ *     ...
+ * }
+ *
+ * public class UserPresenter extends TiStatePresenter&lt;UserState, UserView&gt; {
+ *
+ *     public void onUserLoaded(final User user) {
+ *         setViewState(new UserState(user.getName(), false));
+ *     }
+ *
+ *     protected void onRender(UserView view, UserState state, TiStateDiff diff) {
+ *         if (diff.hasChanged("name")) {
+ *             view.showName(state.name);
+ *         }
+ *         if (diff.hasChanged("loading")) {
+ *             view.showLoading(state.loading);
+ *         }
+ *     }
+ * }
+ * </pre>
+ * </code>
+ *
+ * @param <S> the view state, immutable with the fields to compare. Its field names are kept by
+ *            the consumer ProGuard rules, see {@link TiViewState}
+ * @param <V> the view
+ */
+public abstract class TiStatePresenter<S extends TiViewState, V extends TiView>
+        extends TiPresenter<V> {
+
+    /**
+     * {@code true} while the diff task is scheduled or running, guarded by {@link #mLock}
+     */
+    private boolean mDiffing = false;
+
+    /**
+     * {@code true} while a complete render waits for the next view, guarded by {@link #mLock}
+     */
+    private boolean mFullRenderQueued = false;
+
+    /**
+     * incremented when the states get reset, outdated diff tasks and renders are dropped.
+     * Guarded by {@link #mLock}
+     */
+    private int mGeneration = 0;
+
+    /**
+     * the base of the next diff, guarded by {@link #mLock}
+     */
+    private S mLastDiffedState;
+
+    private final Object mLock = new Object();
+
+    /**
+     * the state published but not yet diffed, guarded by {@link #mLock}
+     */
+    private S mPendingState;
+
+    /**
+     * the state shown by the attached view, only accessed on the ui thread
+     */
+    private S mRenderedState;
+
+    private volatile S mViewState;
+
+    public TiStatePresenter() {
+        super();
+        addRenderObserver();
+    }
+
+    public TiStatePresenter(final TiConfiguration config) {
+        super(config);
+        addRenderObserver();
+    }
+
+    /**
+     * @return the latest published state, {@code null} when no state was published
+     */
+    @Nullable
+    public S getViewState() {
+        return mViewState;
+    }
+
+    /**
+     * Renders the {@code state} on the view. Only the fields of the {@code diff} have changed since
+     * the previous call, all fields when {@link TiStateDiff#isFull()}. Called on the ui thread.
+     */
+    protected abstract void onRender(@NonNull V view, @NonNull S state,
+            @NonNull TiStateDiff diff);
+
+    /**
+     * Publishes the {@code state} to the view. Can be called from any thread.
+     * <p>
+     * The states are diffed one after another on the
+     * {@link TiPresenterExecutor#getSharedExecutor() shared pool}, they don't take the
+     * {@link TiConfiguration#getBackgroundConcurrency() slots} of the
+     * {@link #getBackgroundExecutor()}.
+     * </p>
+     *
+     * @throws IllegalStateException when the presenter is destroyed
+     */
+    protected void setViewState(@NonNull final S state) {
+        if (isDestroyed()) {
+            throw new IllegalStateException("presenter is destroyed, can't publish " + state);
+        }
+        final boolean schedule;
+        final int generation;
+        synchronized (mLock) {
+            mViewState = state;
+            mPendingState = state;
+            schedule = !mDiffing;
+            mDiffing = true;
+            generation = mGeneration;
+        }
+        if (schedule) {
+            try {
+                TiPresenterExecutor.getSharedExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        diffPendingStates(generation);
+                    }
+                });
+            } catch (RuntimeException e) {
+                synchronized (mLock) {
+                    if (generation == mGeneration) {
+                        mDiffing = false;
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * drops the states of the previous item, the next item publishes its own states
+     */
+    @Override
+    void clearPendingWork() {
+        super.clearPendingWork();
+        resetStates();
+    }
+
+    /**
+     * renders the latest state completely after {@link #onAttachView(TiView)}
+     */
+    private void addRenderObserver() {
+        addLifecycleObserver(new TiLifecycleObserver() {
+            @Override
+            public void onChange(final State state, final boolean hasLifecycleMethodBeenCalled) {
+                if (state == State.VIEW_ATTACHED && hasLifecycleMethodBeenCalled) {
+                    // the view might be a new one, i.e. after a configuration change
+                    mRenderedState = null;
+                    renderLatestState(getViewOrThrow());
+                }
+                if (state == State.DESTROYED && !hasLifecycleMethodBeenCalled) {
+                    resetStates();
+                }
+            }
+        });
+    }
+
+    /**
+     * diffs the published states one after another on a background thread, states published in
+     * the meantime replace each other. Stops when the states got reset, a new task diffs the
+     * states published afterwards.
+     */
+    private void diffPendingStates(final int generation) {
+        while (true) {
+            final S state;
+            final S base;
+            synchronized (mLock) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                state = mPendingState;
+                mPendingState = null;
+                if (state == null) {
+                    mDiffing = false;
+                    return;
+                }
+                base = mLastDiffedState;
+            }
+
+            final TiStateDiff diff;
+            TiTracer.beginSection("TiStatePresenter.diff");
+            try {
+                diff = TiStateDiff.between(base, state);
+            } finally {
+                TiTracer.endSection();
+            }
+            synchronized (mLock) {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mLastDiffedState = state;
+            }
+            if (diff.isEmpty()) {
+                continue;
+            }
+            if (getView() == null) {
+                queueFullRender();
+                continue;
+            }
+            try {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (mLock) {
+                            if (generation != mGeneration) {
+                                return;
+                            }
+                        }
+                        final V view = getView();
+                        if (view == null) {
+                            queueFullRender();
+                        } else if (mRenderedState != base) {
+                            // the view missed a state, the diff doesn't apply
+                            renderLatestState(view);
+                        } else {
+                            render(view, state, diff);
+                        }
+                    }
+                });
+            } catch (IllegalStateException e) {
+                // the view got detached in the meantime
+                queueFullRender();
+            }
+        }
+    }
+
+    /**
+     * renders the latest state completely when the next view gets attached, at most once
+     */
+    private void queueFullRender() {
+        synchronized (mLock) {
+            if (mFullRenderQueued) {
+                return;
+            }
+            mFullRenderQueued = true;
+        }
+        sendToView(new ViewAction<V>() {
+            @Override
+            public void call(final V view) {
+                synchronized (mLock) {
+                    mFullRenderQueued = false;
+                }
+                renderLatestState(view);
+            }
+        });
+    }
+
+    private void render(final V view, final S state, final TiStateDiff diff) {
+        TiTracer.beginSection("TiStatePresenter.onRender");
+        try {
+            onRender(view, state, diff);
+        } finally {
+            TiTracer.endSection();
+        }
+        mRenderedState = state;
+    }
+
+    /**
+     * renders the latest state completely unless the view shows it already
+     */
+    private void renderLatestState(final V view) {
+        final S latest = mViewState;
+        if (latest == null || latest == mRenderedState) {
+            return;
+        }
+        render(view, latest, TiStateDiff.full(latest));
+    }
+
+    /**
+     * forgets all states, the running diff task and its renders are dropped. Call on the ui
+     * thread.
+     */
+    private void resetStates() {
+        synchronized (mLock) {
+            mGeneration++;
+            mDiffing = false;
+            mPendingState = null;
+            mLastDiffedState = null;
+            mFullRenderQueued = false;
+            mViewState = null;
+        }
+        mRenderedState = null;
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the lifecycle of presenters in the
+ * <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">
+ * trace event format</a> of Chrome. Load the file in Perfetto ({@code ui.perfetto.dev}) or
+ * {@code chrome://tracing} to spot slow lifecycle methods and view actions waiting for the
+ * view.
+ * <p>
+ * Every observed presenter gets its own track showing
+ * <ul>
+ * <li>the lifecycle methods {@code onCreate}, {@code onAttachView}, {@code onDetachView} and
+ * {@code onDestroy} including the {@link TiLifecycleObserver}s</li>
+ * <li>{@link TiPresenter#sendToView(ViewAction)} calls and the execution of the actions, connected
+ * with a flow arrow</li>
+ * </ul>
+ * Events are written as they happen, only the sent but not yet executed actions are kept in
+ * memory (at most {@link #MAX_PENDING_VIEW_ACTIONS} per presenter). The writer gets flushed at
+ * least every {@link #FLUSH_INTERVAL_MILLIS} while events are recorded and by {@link #flush()}
+ * and {@link #close()}. The trace of a killed process ends with the last flush, it may lose up
+ * to {@link #FLUSH_INTERVAL_MILLIS} of events.
+ * <code>
+ * <pre>
+ * // i.e. in Application#onCreate
+ * exporter = new TiTraceEventExporter(new File(getFilesDir(), "presenters.json"));
+ *
+ * // in the constructor of your base presenter
+ * App.getExporter().observe(this);
+ *
+ * // in Application#onTrimMemory, the process might get killed
+ * exporter.flush();
+ *
+ * // when done
+ * exporter.close();
+ * </pre>
+ * </code>
+ * All methods are thread safe.
+ */
+public class TiTraceEventExporter implements Closeable, Flushable {
+
+    /**
+     * max time buffered events wait until they get written
+     */
+    public static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * max number of sent actions per presenter waiting for execution, the flow arrows of further
+     * actions are not recorded
+     */
+    public static final int MAX_PENDING_VIEW_ACTIONS = 256;
+
+    /**
+     * one track per observed presenter
+     */
+    private class PresenterTrack implements TiLifecycleObserver, TiViewActionObserver {
+
+        private long mActionStartNanos;
+
+        /**
+         * the state before the current lifecycle method
+         */
+        private TiPresenter.State mLastState;
+
+        /**
+         * ids of the flow events of the sent actions, in order
+         */
+        private final Map<ViewAction<?>, ArrayDeque<Long>> mPendingActions =
+                new IdentityHashMap<>();
+
+        private int mPendingCount = 0;
+
+        private long mStateChangeNanos;
+
+        private final int mTrackId;
+
+        PresenterTrack(final int trackId, final TiPresenter.State state) {
+            mTrackId = trackId;
+            mLastState = state;
+        }
+
+        @Override
+        public void onChange(final TiPresenter.State state,
+                final boolean hasLifecycleMethodBeenCalled) {
+            final long now = mClock.nanoTime();
+            if (!hasLifecycleMethodBeenCalled) {
+                mStateChangeNanos = now;
+                return;
+            }
+            writeComplete(mTrackId, getLifecycleMethodName(mLastState, state), "lifecycle",
+                    mStateChangeNanos, now);
+            mLastState = state;
+            if (state == TiPresenter.State.DESTROYED) {
+                // pending actions will never be executed
+                synchronized (this) {
+                    mPendingActions.clear();
+                    mPendingCount = 0;
+                }
+            }
+            flushWhenDue(now);
+        }
+
+        @Override
+        public void onViewActionExecuted(@NonNull final ViewAction<?> action) {
+            final long now = mClock.nanoTime();
+            writeComplete(mTrackId, action.getClass().getName(), "viewaction",
+                    mActionStartNanos, now);
+            flushWhenDue(now);
+        }
+
+        @Override
+        public void onViewActionExecuting(@NonNull final ViewAction<?> action) {
+            final long now = mClock.nanoTime();
+            mActionStartNanos = now;
+            final Long flowId;
+            synchronized (this) {
+                final ArrayDeque<Long> ids = mPendingActions.get(action);
+                flowId = ids != null ? ids.poll() : null;
+                if (ids != null && ids.isEmpty()) {
+                    mPendingActions.remove(action);
+                }
+                if (flowId != null) {
+                    mPendingCount--;
+                }
+            }
+            if (flowId != null) {
+                writeFlow(mTrackId, "f", flowId, now);
+            }
+            flushWhenDue(now);
+        }
+
+        @Override
+        public void onViewActionSent(@NonNull final ViewAction<?> action) {
+            final long now = mClock.nanoTime();
+            final long flowId;
+            synchronized (this) {
+                if (mPendingCount >= MAX_PENDING_VIEW_ACTIONS) {
+                    writeInstant(mTrackId, "sendToView", now);
+                    flushWhenDue(now);
+                    return;
+                }
+                flowId = nextFlowId();
+                ArrayDeque<Long> ids = mPendingActions.get(action);
+                if (ids == null) {
+                    ids = new ArrayDeque<>(1);
+                    mPendingActions.put(action, ids);
+                }
+                ids.add(flowId);
+                mPendingCount++;
+            }
+            writeInstant(mTrackId, "sendToView", now);
+            writeFlow(mTrackId, "s", flowId, now);
+            flushWhenDue(now);
+        }
+    }
+
+    /**
+     * source of the timestamps, {@link System#nanoTime()} outside of tests
+     */
+    @VisibleForTesting
+    interface Clock {
+
+        long nanoTime();
+    }
+
+    private static final String TAG = TiTraceEventExporter.class.getSimpleName();
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    private final Clock mClock;
+
+    private boolean mClosed = false;
+
+    private boolean mFirstEvent = true;
+
+    private long mLastFlushNanos;
+
+    private long mLastFlowId = 0;
+
+    private int mLastTrackId = 0;
+
+    private final long mStartNanos;
+
+    private final Writer mWriter;
+
+    /**
+     * writes the trace to the {@code file}, an existing file gets overwritten
+     */
+    public TiTraceEventExporter(@NonNull final File file) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")));
+    }
+
+    /**
+     * @param writer receives the trace, should be buffered. Gets closed by {@link #close()}
+     */
+    public TiTraceEventExporter(@NonNull final Writer writer) {
+        this(writer, SYSTEM_CLOCK);
+    }
+
+    @VisibleForTesting
+    TiTraceEventExporter(@NonNull final Writer writer, @NonNull final Clock clock) {
+        mWriter = writer;
+        mClock = clock;
+        mStartNanos = clock.nanoTime();
+        mLastFlushNanos = mStartNanos;
+        write("[");
+    }
+
+    /**
+     * Ends the trace and closes the writer. Events of observed presenters are ignored afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mWriter.write("\n]\n");
+        mWriter.close();
+    }
+
+    /**
+     * Writes the buffered events. Failing writes stop the trace like all other writes.
+     */
+    @Override
+    public void flush() {
+        flush(mClock.nanoTime());
+    }
+
+    /**
+     * Records the events of the {@code presenter} on a new track. Observe the presenter before
+     * {@link TiPresenter#create()} to record {@code onCreate}.
+     *
+     * @return a {@link Removable} to stop recording the events of the presenter
+     */
+    @NonNull
+    public Removable observe(@NonNull final TiPresenter<?> presenter) {
+        final PresenterTrack track;
+        synchronized (this) {
+            track = new PresenterTrack(++mLastTrackId, presenter.getState());
+        }
+        writeEvent("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + track.mTrackId
+                + ",\"args\":{\"name\":\"" + escape(presenter.getClass().getSimpleName()
+                + " #" + track.mTrackId) + "\"}}");
+
+        final Removable lifecycle = presenter.addLifecycleObserver(track);
+        final Removable viewActions = presenter.addViewActionObserver(track);
+        return new Removable() {
+            @Override
+            public boolean isRemoved() {
+                return lifecycle.isRemoved();
+            }
+
+            @Override
+            public void remove() {
+                lifecycle.remove();
+                viewActions.remove();
+            }
+        };
+    }
+
+    @VisibleForTesting
+    static String escape(final String text) {
+        final StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private synchronized void flush(final long nanos) {
+        if (mClosed) {
+            return;
+        }
+        mLastFlushNanos = nanos;
+        try {
+            mWriter.flush();
+        } catch (IOException e) {
+            TiLog.e(TAG, "could not write the trace, stopping: " + e);
+            mClosed = true;
+        }
+    }
+
+    /**
+     * flushes when the last flush is longer than {@link #FLUSH_INTERVAL_MILLIS} ago
+     */
+    private synchronized void flushWhenDue(final long nanos) {
+        if (nanos - mLastFlushNanos >= TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS)) {
+            flush(nanos);
+        }
+    }
+
+    private static String getLifecycleMethodName(final TiPresenter.State oldState,
+            final TiPresenter.State newState) {
+        switch (newState) {
+            case VIEW_ATTACHED:
+                return "onAttachView";
+            case VIEW_DETACHED:
+                return oldState == TiPresenter.State.INITIALIZED ? "onCreate" : "onDetachView";
+            case DESTROYED:
+                return "onDestroy";
+            default:
+                return newState.toString();
+        }
+    }
+
+    private synchronized long nextFlowId() {
+        return ++mLastFlowId;
+    }
+
+    /**
+     * @return microseconds since the start of the trace with nanosecond precision
+     */
+    private String toMicros(final long nanos) {
+        final long sinceStart = nanos - mStartNanos;
+        final long fraction = sinceStart % 1000;
+        return sinceStart / 1000 + (fraction < 10 ? ".00" : fraction < 100 ? ".0" : ".")
+                + fraction;
+    }
+
+    private synchronized void write(final String text) {
+        if (mClosed) {
+            return;
+        }
+        try {
+            mWriter.write(text);
+        } catch (IOException e) {
+            TiLog.e(TAG, "could not write the trace, stopping: " + e);
+            mClosed = true;
+        }
+    }
+
+    private void writeComplete(final int trackId, final String name, final String category,
+            final long startNanos, final long endNanos) {
+        writeEvent("{\"name\":\"" + escape(name) + "\",\"cat\":\"" + category
+                + "\",\"ph\":\"X\",\"pid\":1,\"tid\":" + trackId
+                + ",\"ts\":" + toMicros(startNanos)
+                + ",\"dur\":" + toMicros(mStartNanos + endNanos - startNanos) + "}");
+    }
+
+    private synchronized void writeEvent(final String event) {
+        write(mFirstEvent ? "\n" : ",\n");
+        mFirstEvent = false;
+        write(event);
+    }
+
+    private void writeFlow(final int trackId, final String phase, final long flowId,
+            final long nanos) {
+        writeEvent("{\"name\":\"sendToView\",\"cat\":\"viewaction\",\"ph\":\"" + phase
+                + "\",\"bp\":\"e\",\"id\":" + flowId + ",\"pid\":1,\"tid\":" + trackId
+                + ",\"ts\":" + toMicros(nanos) + "}");
+    }
+
+    private void writeInstant(final int trackId, final String name, final long nanos) {
+        writeEvent("{\"name\":\"" + name + "\",\"cat\":\"viewaction\",\"ph\":\"i\",\"s\":\"t\""
+                + ",\"pid\":1,\"tid\":" + trackId + ",\"ts\":" + toMicros(nanos) + "}");
+    }
+}
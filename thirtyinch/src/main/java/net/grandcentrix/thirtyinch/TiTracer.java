@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import android.os.Build;
+import android.os.Trace;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Trace sections of ThirtyInch. Presenter creation, recovery from the
+ * {@link net.grandcentrix.thirtyinch.internal.PresenterSavior}, view binding including the
+ * {@link BindViewInterceptor}s, the lifecycle methods of the presenter and the replay of
+ * postponed view actions are wrapped in named sections. Sections are not traced by default.
+ * <p>
+ * Show them as slices in systrace or Perfetto:
+ * <code>
+ * <pre>
+ * TiTracer.setTracer(TiTracer.SYSTRACE);
+ * </pre>
+ * </code>
+ *
+ * @see #setTracer(Tracer)
+ */
+public final class TiTracer {
+
+    /**
+     * Receives the trace sections of ThirtyInch. Sections are nested and begin and end on the
+     * same thread, like {@link Trace#beginSection(String)} and {@link Trace#endSection()}.
+     */
+    public interface Tracer {
+
+        /**
+         * @param name constant name of the section, not longer than 127 characters
+         */
+        void beginSection(@NonNull final String name);
+
+        /**
+         * ends the last section begun on the current thread
+         */
+        void endSection();
+    }
+
+    /**
+     * no-op version, doesn't trace
+     */
+    public static final Tracer NOOP = new Tracer() {
+        @Override
+        public void beginSection(@NonNull final String name) {
+            // no-op
+        }
+
+        @Override
+        public void endSection() {
+            // no-op
+        }
+    };
+
+    /**
+     * predefined tracer using {@link Trace}, doesn't trace below API 18
+     *
+     * @see #setTracer(Tracer)
+     */
+    public static final Tracer SYSTRACE = new Tracer() {
+        @Override
+        public void beginSection(@NonNull final String name) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                Trace.beginSection(name);
+            }
+        }
+
+        @Override
+        public void endSection() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                Trace.endSection();
+            }
+        }
+    };
+
+    private static Tracer tracer = NOOP;
+
+    public static void beginSection(@NonNull final String name) {
+        tracer.beginSection(name);
+    }
+
+    public static void endSection() {
+        tracer.endSection();
+    }
+
+    /**
+     * set a custom tracer, {@code null} to disable tracing. Set it before the first presenter is
+     * created, a section begun with one tracer would be ended with the other.
+     */
+    public static void setTracer(@Nullable final Tracer tracer) {
+        TiTracer.tracer = tracer != null ? tracer : NOOP;
+    }
+
+    private TiTracer() {
+        throw new AssertionError("no instances");
+    }
+}
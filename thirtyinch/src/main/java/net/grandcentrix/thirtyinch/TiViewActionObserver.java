@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Can be added to a {@link TiPresenter} with
+ * {@link TiPresenter#addViewActionObserver(TiViewActionObserver)} to get notifications when
+ * {@link ViewAction}s are sent with {@link TiPresenter#sendToView(ViewAction)} and when they are
+ * executed.
+ * <p>
+ * Actions are sent from any thread and executed on the UI thread.
+ * </p>
+ */
+public interface TiViewActionObserver {
+
+    /**
+     * the {@code action} has been executed, called on the UI thread
+     */
+    void onViewActionExecuted(@NonNull final ViewAction<?> action);
+
+    /**
+     * the {@code action} is about to be executed with the view, called on the UI thread
+     */
+    void onViewActionExecuting(@NonNull final ViewAction<?> action);
+
+    /**
+     * {@link TiPresenter#sendToView(ViewAction)} has been called, the {@code action} waits for the
+     * UI thread or until the view gets attached
+     */
+    void onViewActionSent(@NonNull final ViewAction<?> action);
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+/**
+ * Marks a view state of a {@link TiStatePresenter}. {@link TiStateDiff} names the changed fields
+ * by their declared names, the consumer ProGuard rules of ThirtyInch keep the field names of all
+ * implementing classes when the app gets minified with R8 or ProGuard.
+ * <p>
+ * Implement it in the topmost class declaring fields, the fields of super classes not
+ * implementing this interface get renamed.
+ * </p>
+ */
+public interface TiViewState {
+
+}
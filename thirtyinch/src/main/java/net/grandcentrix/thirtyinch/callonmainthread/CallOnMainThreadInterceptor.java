@@ -15,13 +15,11 @@
 
 package net.grandcentrix.thirtyinch.callonmainthread;
 
-import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
-import static net.grandcentrix.thirtyinch.util.AnnotationUtil.hasObjectMethodWithAnnotation;
-
 import java.lang.reflect.Proxy;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.util.ViewBindingPlan;
 
 public class CallOnMainThreadInterceptor implements BindViewInterceptor {
 
@@ -37,13 +35,14 @@ public class CallOnMainThreadInterceptor implements BindViewInterceptor {
     @SuppressWarnings("unchecked")
     private <V extends TiView> V wrap(final V view) {
 
-        Class<?> foundInterfaceClass = getInterfaceOfClassExtendingGivenInterface(
-                view.getClass(), TiView.class);
+        // reflection results are cached per view class
+        final ViewBindingPlan plan = ViewBindingPlan.of(view.getClass());
+        final Class<?> foundInterfaceClass = plan.getViewInterface();
         if (foundInterfaceClass == null) {
             throw new IllegalStateException("the interface extending View could not be found");
         }
 
-        if (!hasObjectMethodWithAnnotation(view, CallOnMainThread.class)) {
+        if (!plan.hasMethodWithAnnotation(CallOnMainThread.class)) {
             // not method has the annotation, returning original view
             // not creating a proxy
             return view;
@@ -51,6 +50,6 @@ public class CallOnMainThreadInterceptor implements BindViewInterceptor {
 
         return (V) Proxy.newProxyInstance(
                 foundInterfaceClass.getClassLoader(), new Class<?>[]{foundInterfaceClass},
-                new CallOnMainThreadInvocationHandler<>(view));
+                new CallOnMainThreadInvocationHandler<>(view, plan));
     }
 }
@@ -21,15 +21,19 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import net.grandcentrix.thirtyinch.TiView;
 import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
+import net.grandcentrix.thirtyinch.util.ViewBindingPlan;
 
 final class CallOnMainThreadInvocationHandler<V> extends AbstractInvocationHandler {
 
     private final Handler handler = new Handler(Looper.getMainLooper());
 
+    private final ViewBindingPlan mPlan;
+
     private final V mView;
 
-    public CallOnMainThreadInvocationHandler(V view) {
+    public CallOnMainThreadInvocationHandler(V view, ViewBindingPlan plan) {
         mView = view;
+        mPlan = plan;
     }
 
     @Override
@@ -64,7 +68,7 @@ final class CallOnMainThreadInvocationHandler<V> extends AbstractInvocationHandl
             }
 
             final CallOnMainThread comtAnnotation =
-                    method.getAnnotation(CallOnMainThread.class);
+                    mPlan.getAnnotation(method, CallOnMainThread.class);
             // check if method is correct annotated
             if (comtAnnotation == null) {
                 return method.invoke(mView, args);
@@ -15,9 +15,6 @@
 
 package net.grandcentrix.thirtyinch.distinctuntilchanged;
 
-import static net.grandcentrix.thirtyinch.util.AnnotationUtil.getInterfaceOfClassExtendingGivenInterface;
-import static net.grandcentrix.thirtyinch.util.AnnotationUtil.hasObjectMethodWithAnnotation;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import java.lang.reflect.Proxy;
@@ -25,6 +22,7 @@ import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiView;
 import net.grandcentrix.thirtyinch.internal.InterceptableViewBinder;
+import net.grandcentrix.thirtyinch.util.ViewBindingPlan;
 
 public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
 
@@ -63,13 +61,14 @@ public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
     @NonNull
     public <V extends TiView> V wrap(@NonNull final V view) {
 
-        Class<?> foundInterfaceClass =
-                getInterfaceOfClassExtendingGivenInterface(view.getClass(), TiView.class);
+        // reflection results are cached per view class
+        final ViewBindingPlan plan = ViewBindingPlan.of(view.getClass());
+        final Class<?> foundInterfaceClass = plan.getViewInterface();
         if (foundInterfaceClass == null) {
             throw new IllegalStateException("the interface extending View could not be found");
         }
 
-        if (!hasObjectMethodWithAnnotation(view, DistinctUntilChanged.class)) {
+        if (!plan.hasMethodWithAnnotation(DistinctUntilChanged.class)) {
             // not method has the annotation, returning original view
             // not creating a proxy
             return view;
@@ -77,6 +76,6 @@ public class DistinctUntilChangedInterceptor implements BindViewInterceptor {
 
         return (V) Proxy.newProxyInstance(
                 foundInterfaceClass.getClassLoader(), new Class<?>[]{foundInterfaceClass},
-                new DistinctUntilChangedInvocationHandler<>(view));
+                new DistinctUntilChangedInvocationHandler<>(view, plan));
     }
 }
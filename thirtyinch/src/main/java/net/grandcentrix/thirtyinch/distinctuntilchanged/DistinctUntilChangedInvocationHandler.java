@@ -23,6 +23,7 @@ import java.util.HashMap;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiView;
 import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
+import net.grandcentrix.thirtyinch.util.ViewBindingPlan;
 
 final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationHandler {
 
@@ -31,10 +32,13 @@ final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationH
     @VisibleForTesting
     HashMap<String, DistinctComparator> mLatestMethodCalls = new HashMap<>();
 
+    private final ViewBindingPlan mPlan;
+
     private final V mView;
 
-    public DistinctUntilChangedInvocationHandler(V view) {
+    public DistinctUntilChangedInvocationHandler(V view, ViewBindingPlan plan) {
         mView = view;
+        mPlan = plan;
     }
 
     public void clearCache() {
@@ -75,7 +79,7 @@ final class DistinctUntilChangedInvocationHandler<V> extends AbstractInvocationH
             }
 
             final DistinctUntilChanged ducAnnotation =
-                    method.getAnnotation(DistinctUntilChanged.class);
+                    mPlan.getAnnotation(method, DistinctUntilChanged.class);
 
             // check if method is correct annotated
             if (ducAnnotation == null) {
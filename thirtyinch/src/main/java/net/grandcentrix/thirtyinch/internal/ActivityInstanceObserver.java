@@ -20,14 +20,13 @@ import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import net.grandcentrix.thirtyinch.TiLog;
 
 /**
  * Keeps track of {@link Activity}s across orientation changes using a id when added via
- * {@link #startTracking(Activity, String)}. When the {@link Activity} finishes the
+ * {@link #startTracking(Activity, long)}. When the {@link Activity} finishes the
  * {@link ActivityFinishListener} is triggered.
  */
 public class ActivityInstanceObserver implements Application.ActivityLifecycleCallbacks {
@@ -41,7 +40,7 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
          * called when the {@link Activity} finishes completely. Doesn't get called when the
          * Activity changes its configuration
          */
-        void onActivityFinished(final Activity activity, final String hostId);
+        void onActivityFinished(final Activity activity, final long hostId);
     }
 
     @VisibleForTesting
@@ -51,7 +50,12 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
 
     private ActivityFinishListener mListener;
 
-    private final HashMap<Activity, String> mScopeIdForActivity = new HashMap<>();
+    /**
+     * keyed by instance, an Activity overriding {@link Object#equals(Object)} must not match a
+     * recreated instance. Lifecycle callbacks write on the main thread, {@link PresenterSavior}
+     * reads and writes from any thread, guarded by itself.
+     */
+    private final IdentityHashMap<Activity, Long> mScopeIdForActivity = new IdentityHashMap<>();
 
     public ActivityInstanceObserver(@NonNull final ActivityFinishListener listener) {
         mListener = listener;
@@ -59,24 +63,28 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
 
     @Override
     public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {
-        if (savedInstanceState != null) {
-            final String scopeId = savedInstanceState.getString(TI_ACTIVITY_ID_KEY);
-            if (scopeId != null) {
-                // refresh mapping
+        final long scopeId = PresenterSavior.readSavedId(savedInstanceState, TI_ACTIVITY_ID_KEY);
+        if (scopeId != TiPresenterSavior.NO_ID) {
+            // refresh mapping
+            synchronized (mScopeIdForActivity) {
                 mScopeIdForActivity.put(activity, scopeId);
             }
         }
     }
 
     /**
-     * Returns the id provided by {@link #startTracking(Activity, String)}
+     * Returns the id provided by {@link #startTracking(Activity, long)}
      *
      * @return a unique id for each {@link Activity} which doesn't change when the {@link Activity}
-     * changes its configuration
+     * changes its configuration or {@link TiPresenterSavior#NO_ID} if the {@link Activity} isn't
+     * tracked
      */
-    @Nullable
-    public String getActivityId(final Activity activity) {
-        return mScopeIdForActivity.get(activity);
+    public long getActivityId(final Activity activity) {
+        final Long id;
+        synchronized (mScopeIdForActivity) {
+            id = mScopeIdForActivity.get(activity);
+        }
+        return id != null ? id : TiPresenterSavior.NO_ID;
     }
 
     @Override
@@ -84,15 +92,16 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
         TiLog.v(TAG, "destroying " + activity);
         TiLog.v(TAG, "isFinishing = " + activity.isFinishing());
 
-        if (activity.isFinishing()) {
+        final Long scopeId;
+        synchronized (mScopeIdForActivity) {
+            // don't leak old activity instances
+            // scopeId is saved in savedInstanceState of finishing Activity.
+            scopeId = mScopeIdForActivity.remove(activity);
+        }
+        if (activity.isFinishing() && scopeId != null) {
             // detected Activity finish, no new Activity instance will be created
             // with savedInstanceState, clear saved presenters
-            final String scopeId = mScopeIdForActivity.remove(activity);
             mListener.onActivityFinished(activity, scopeId);
-        } else {
-            // don't leak old activity instances
-            // scopeId is saved in savedInstanceState of finishing Activity.
-            mScopeIdForActivity.remove(activity);
         }
     }
 
@@ -108,12 +117,15 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
 
     @Override
     public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {
-        String id = mScopeIdForActivity.get(activity);
+        final Long id;
+        synchronized (mScopeIdForActivity) {
+            id = mScopeIdForActivity.get(activity);
+        }
         if (id == null) {
             // activity not managed, don't add an id.
             return;
         }
-        outState.putString(TI_ACTIVITY_ID_KEY, id);
+        outState.putLong(TI_ACTIVITY_ID_KEY, id);
     }
 
     @Override
@@ -133,7 +145,9 @@ public class ActivityInstanceObserver implements Application.ActivityLifecycleCa
      * @param activity to be tracked {@link Activity}
      * @see #getActivityId(Activity)
      */
-    public void startTracking(final Activity activity, final String activityId) {
-        mScopeIdForActivity.put(activity, activityId);
+    public void startTracking(final Activity activity, final long activityId) {
+        synchronized (mScopeIdForActivity) {
+            mScopeIdForActivity.put(activity, activityId);
+        }
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Stays registered at the {@link Application} and forwards all lifecycle callbacks to
+ * exchangeable {@link Application.ActivityLifecycleCallbacks}.
+ * <p>
+ * {@link Application#registerActivityLifecycleCallbacks(Application.ActivityLifecycleCallbacks)}
+ * and its counterpart lock and copy the list of all callbacks. Swapping the target of this
+ * dispatcher is a single volatile write instead.
+ * </p>
+ * Not thread safe, {@link #install(Application)} and {@link #uninstall()} have to be
+ * synchronized by the caller.
+ */
+public class ActivityLifecycleDispatcher implements Application.ActivityLifecycleCallbacks {
+
+    private Application mApplication;
+
+    private volatile Application.ActivityLifecycleCallbacks mCallbacks;
+
+    /**
+     * @return the callbacks receiving the lifecycle events, {@code null} when events are dropped
+     */
+    @Nullable
+    public Application.ActivityLifecycleCallbacks getCallbacks() {
+        return mCallbacks;
+    }
+
+    /**
+     * registers this dispatcher at the {@link Application} when not already installed
+     */
+    public void install(@NonNull final Application application) {
+        if (mApplication == null) {
+            mApplication = application;
+            application.registerActivityLifecycleCallbacks(this);
+        }
+    }
+
+    public boolean isInstalled() {
+        return mApplication != null;
+    }
+
+    @Override
+    public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivityCreated(activity, savedInstanceState);
+        }
+    }
+
+    @Override
+    public void onActivityDestroyed(final Activity activity) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivityDestroyed(activity);
+        }
+    }
+
+    @Override
+    public void onActivityPaused(final Activity activity) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivityPaused(activity);
+        }
+    }
+
+    @Override
+    public void onActivityResumed(final Activity activity) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivityResumed(activity);
+        }
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivitySaveInstanceState(activity, outState);
+        }
+    }
+
+    @Override
+    public void onActivityStarted(final Activity activity) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivityStarted(activity);
+        }
+    }
+
+    @Override
+    public void onActivityStopped(final Activity activity) {
+        final Application.ActivityLifecycleCallbacks callbacks = mCallbacks;
+        if (callbacks != null) {
+            callbacks.onActivityStopped(activity);
+        }
+    }
+
+    /**
+     * @param callbacks receiver of all following lifecycle events, {@code null} to drop them
+     */
+    public void setCallbacks(@Nullable final Application.ActivityLifecycleCallbacks callbacks) {
+        mCallbacks = callbacks;
+    }
+
+    /**
+     * unregisters this dispatcher from the {@link Application}
+     */
+    public void uninstall() {
+        if (mApplication != null) {
+            mApplication.unregisterActivityLifecycleCallbacks(this);
+            mApplication = null;
+        }
+    }
+}
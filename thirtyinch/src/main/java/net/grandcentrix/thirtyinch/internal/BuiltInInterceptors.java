@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThreadInterceptor;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChangedInterceptor;
+
+/**
+ * The interceptors enabled with the {@link TiConfiguration}. They are stateless and shared by
+ * all delegates, their reflection results are cached in
+ * {@link net.grandcentrix.thirtyinch.util.ViewBindingPlan}.
+ */
+final class BuiltInInterceptors {
+
+    static final CallOnMainThreadInterceptor CALL_ON_MAIN_THREAD =
+            new CallOnMainThreadInterceptor();
+
+    static final DistinctUntilChangedInterceptor DISTINCT_UNTIL_CHANGED =
+            new DistinctUntilChangedInterceptor();
+
+    /**
+     * @return the interceptors enabled by the {@code config}, in binding order
+     */
+    @NonNull
+    static List<BindViewInterceptor> of(@NonNull final TiConfiguration config) {
+        final List<BindViewInterceptor> interceptors = new ArrayList<>(2);
+        if (config.isCallOnMainThreadInterceptorEnabled()) {
+            interceptors.add(CALL_ON_MAIN_THREAD);
+        }
+
+        if (config.isDistinctUntilChangedInterceptorEnabled()) {
+            interceptors.add(DISTINCT_UNTIL_CHANGED);
+        }
+        return interceptors;
+    }
+
+    private BuiltInInterceptors() {
+        // no instances
+    }
+}
@@ -44,7 +44,8 @@ public interface DelegatedTiFragment {
     boolean isFragmentDetached();
 
     /**
-     * @return {@link Fragment#isInBackStack()}
+     * @return {@code true} when the Fragment was removed by a transaction on the back stack,
+     * see {@link net.grandcentrix.thirtyinch.util.BackstackTracker}
      */
     boolean isFragmentInBackstack();
 
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiLog;
+
+/**
+ * Runs tasks when the main thread is idle, after input, animation and layout work. One
+ * {@link MessageQueue.IdleHandler} drains the tasks of all presenters in the order they were
+ * executed. Each idle phase runs tasks until the time budget is used up, at least one task. The
+ * remaining tasks wait for the next idle phase.
+ */
+public class IdleDispatcher implements Executor {
+
+    /**
+     * the queue calling the {@link MessageQueue.IdleHandler}, the {@link MessageQueue} of the main
+     * thread outside of tests
+     */
+    public interface IdleQueue {
+
+        /**
+         * adds the {@code handler}, called from any thread. The handler gets removed when it
+         * returns {@code false}
+         */
+        void addIdleHandler(@NonNull MessageQueue.IdleHandler handler);
+    }
+
+    /**
+     * adds the idle handlers to the {@link MessageQueue} of the main thread
+     */
+    public static class MainThreadIdleQueue implements IdleQueue {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void addIdleHandler(@NonNull final MessageQueue.IdleHandler handler) {
+            // Looper#getQueue() requires API 23, the queue of the main thread is available there.
+            // Posting also wakes up the queue, the handler gets called in the next idle phase
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    Looper.myQueue().addIdleHandler(handler);
+                }
+            });
+        }
+    }
+
+    /**
+     * a quarter of a 60fps frame
+     */
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private static final String TAG = IdleDispatcher.class.getSimpleName();
+
+    private final long mBudgetNanos;
+
+    /**
+     * {@code true} while the idle handler is added or about to be added
+     */
+    private boolean mHandlerAdded = false;
+
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            drain();
+            // re-added by drain when tasks are left
+            return false;
+        }
+    };
+
+    private final IdleQueue mIdleQueue;
+
+    private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+
+    /**
+     * @param budgetNanos time per idle phase after which no further task gets started
+     */
+    public IdleDispatcher(@NonNull final IdleQueue idleQueue, final long budgetNanos) {
+        mIdleQueue = idleQueue;
+        mBudgetNanos = budgetNanos;
+    }
+
+    /**
+     * runs the {@code command} on the main thread when it is idle, can be called from any thread
+     */
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        final boolean addHandler;
+        synchronized (mTasks) {
+            mTasks.add(command);
+            addHandler = !mHandlerAdded;
+            mHandlerAdded = true;
+        }
+        if (addHandler) {
+            mIdleQueue.addIdleHandler(mIdleHandler);
+        }
+    }
+
+    /**
+     * @return number of tasks waiting for an idle phase
+     */
+    public int getPendingCount() {
+        synchronized (mTasks) {
+            return mTasks.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return TAG + "{pending=" + getPendingCount() + "}";
+    }
+
+    /**
+     * runs tasks until the budget is used up, adds the idle handler again when tasks are left
+     */
+    private void drain() {
+        final long startNanos = System.nanoTime();
+        while (true) {
+            final Runnable task;
+            synchronized (mTasks) {
+                task = mTasks.poll();
+                if (task == null) {
+                    mHandlerAdded = false;
+                    return;
+                }
+            }
+
+            boolean completed = false;
+            try {
+                task.run();
+                completed = true;
+            } finally {
+                if (!completed) {
+                    // the exception removes the idle handler, the other tasks still run
+                    continueLater();
+                }
+            }
+            if (System.nanoTime() - startNanos >= mBudgetNanos) {
+                // continue in the next idle phase, input and frames go first
+                continueLater();
+                return;
+            }
+        }
+    }
+
+    private void continueLater() {
+        synchronized (mTasks) {
+            if (mTasks.isEmpty()) {
+                mHandlerAdded = false;
+                return;
+            }
+        }
+        TiLog.v(TAG, "idle budget used up, " + getPendingCount() + " tasks left");
+        mIdleQueue.addIdleHandler(mIdleHandler);
+    }
+}
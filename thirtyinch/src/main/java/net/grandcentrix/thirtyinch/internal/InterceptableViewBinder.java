@@ -17,6 +17,7 @@ package net.grandcentrix.thirtyinch.internal;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import java.util.Collection;
 import java.util.List;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.Removable;
@@ -49,6 +50,17 @@ public interface InterceptableViewBinder<V extends TiView> {
     @NonNull
     Removable addBindViewInterceptor(@NonNull final BindViewInterceptor interceptor);
 
+    /**
+     * Adds multiple interceptors at once, in iteration order. Prefer this over multiple calls to
+     * {@link #addBindViewInterceptor(BindViewInterceptor)} because the view gets intercepted only
+     * once for all of them.
+     *
+     * @return a {@link Removable} removing all added interceptors at once
+     */
+    @NonNull
+    Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors);
+
     /**
      * @param interceptor the interceptor which returned the {@link TiView}
      * @return the cached result of {@link BindViewInterceptor#intercept(TiView)}
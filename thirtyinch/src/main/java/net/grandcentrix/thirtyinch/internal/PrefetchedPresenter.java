@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import net.grandcentrix.thirtyinch.TiLog;
+import net.grandcentrix.thirtyinch.TiPresenter;
+
+/**
+ * Provides and creates a presenter on a background thread ahead of the navigation to its host.
+ * The host adopts the created presenter with {@link #adopt()}. When creation didn't start yet,
+ * the adopting thread runs it itself, when it is running it waits for it. Adopting is therefore
+ * never slower than creating the presenter when the host gets created.
+ */
+class PrefetchedPresenter implements Runnable {
+
+    private static final String TAG = PrefetchedPresenter.class.getSimpleName();
+
+    private boolean mAdopted;
+
+    private boolean mDestroyed;
+
+    private volatile boolean mDiscarded;
+
+    /**
+     * discards the presenter when it is not adopted in time, cancelled on adopt and discard
+     */
+    private volatile Future<?> mExpiry;
+
+    private final long mPrefetchedAtNanos = System.nanoTime();
+
+    private final FutureTask<TiPresenter> mTask;
+
+    PrefetchedPresenter(@NonNull final TiPresenterProvider<?> provider) {
+        mTask = new FutureTask<TiPresenter>(new Callable<TiPresenter>() {
+            @Override
+            public TiPresenter call() throws Exception {
+                if (mDiscarded) {
+                    return null;
+                }
+                final TiPresenter presenter = provider.providePresenter();
+                if (presenter.getState() != TiPresenter.State.INITIALIZED) {
+                    throw new IllegalStateException("Presenter not in initialized state. "
+                            + "Current state is " + presenter.getState() + ". "
+                            + "Presenter provided with #providePresenter() cannot be reused. "
+                            + "Always return a fresh instance!");
+                }
+                presenter.create();
+                return presenter;
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (mDiscarded) {
+                    destroyCreated();
+                }
+            }
+        };
+    }
+
+    /**
+     * Waits for the created presenter, runs the creation on the calling thread when it didn't
+     * start yet.
+     *
+     * @return the created presenter, {@code null} when it was discarded
+     * @throws IllegalStateException when the provider returned a used presenter
+     * @throws RuntimeException      when providing or creating the presenter failed
+     */
+    @Nullable
+    TiPresenter adopt() {
+        synchronized (this) {
+            if (mDiscarded) {
+                return null;
+            }
+            mAdopted = true;
+        }
+        cancelExpiry();
+
+        // no-op when already running or done
+        mTask.run();
+        try {
+            return mTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the presenter", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("could not prefetch the presenter", cause);
+        }
+    }
+
+    /**
+     * Drops the presenter because no host will adopt it. A created presenter gets destroyed,
+     * a pending creation doesn't provide a presenter.
+     */
+    void discard() {
+        synchronized (this) {
+            if (mAdopted || mDiscarded) {
+                return;
+            }
+            mDiscarded = true;
+        }
+        cancelExpiry();
+        if (mTask.isDone()) {
+            destroyCreated();
+        }
+        // otherwise the running or pending creation ends up in FutureTask#done()
+    }
+
+    long getPrefetchedAtNanos() {
+        return mPrefetchedAtNanos;
+    }
+
+    boolean isDone() {
+        return mTask.isDone();
+    }
+
+    /**
+     * creates the presenter, called by the prefetch executor
+     */
+    @Override
+    public void run() {
+        mTask.run();
+    }
+
+    void setExpiry(@NonNull final Future<?> expiry) {
+        mExpiry = expiry;
+    }
+
+    private void cancelExpiry() {
+        final Future<?> expiry = mExpiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+    }
+
+    private void destroyCreated() {
+        synchronized (this) {
+            if (mDestroyed) {
+                return;
+            }
+            mDestroyed = true;
+        }
+        try {
+            final TiPresenter presenter = mTask.get();
+            if (presenter != null) {
+                TiLog.v(TAG, "destroying unused prefetched presenter " + presenter);
+                presenter.destroy();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            TiLog.w(TAG, "unused prefetched presenter failed: " + e.getCause());
+        }
+    }
+}
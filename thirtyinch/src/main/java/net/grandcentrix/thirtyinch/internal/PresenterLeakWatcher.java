@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import net.grandcentrix.thirtyinch.TiPresenter;
+
+/**
+ * Keeps weak references to presenters which were released by the {@link PresenterSavior}, either
+ * freed by their host ({@link PresenterSavior#free(long, Object)}) or destroyed because their
+ * host finished. Evicted presenters are not watched. A presenter which can still be reached
+ * a while after it got released is leaked, i.e. by a static field, a running thread or a
+ * callback which wasn't unregistered in {@link TiPresenter#onDestroy()}.
+ * <p>
+ * The watcher doesn't trigger a garbage collection. A presenter returned by
+ * {@link #getRetained(long)} could be garbage which wasn't collected yet.
+ */
+public class PresenterLeakWatcher {
+
+    /**
+     * weak reference to a presenter of a finished host
+     */
+    public static final class WatchedPresenter extends WeakReference<TiPresenter> {
+
+        private final String mDescription;
+
+        private final long mHostId;
+
+        private final long mWatchedAtNanos;
+
+        WatchedPresenter(final TiPresenter presenter, final long hostId,
+                final ReferenceQueue<TiPresenter> queue) {
+            super(presenter, queue);
+            mDescription = presenter.toString();
+            mHostId = hostId;
+            mWatchedAtNanos = System.nanoTime();
+        }
+
+        /**
+         * @return {@link TiPresenter#toString()} of the presenter, available after it got
+         * collected
+         */
+        @NonNull
+        public String getDescription() {
+            return mDescription;
+        }
+
+        /**
+         * @return id of the finished host
+         */
+        public long getHostId() {
+            return mHostId;
+        }
+
+        /**
+         * @return {@link System#nanoTime()} when the host finished
+         */
+        public long getWatchedAtNanos() {
+            return mWatchedAtNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "WatchedPresenter{"
+                    + "presenter=" + mDescription
+                    + ", hostId=" + mHostId
+                    + ", collected=" + (get() == null)
+                    + "}";
+        }
+    }
+
+    private final ReferenceQueue<TiPresenter> mQueue = new ReferenceQueue<>();
+
+    private final HashSet<WatchedPresenter> mWatched = new HashSet<>();
+
+    /**
+     * @return presenters watched for at least {@code minWatchedNanos} which are not garbage
+     * collected yet
+     */
+    @NonNull
+    public synchronized List<WatchedPresenter> getRetained(final long minWatchedNanos) {
+        purgeCollected();
+        final long now = System.nanoTime();
+        final ArrayList<WatchedPresenter> retained = new ArrayList<>();
+        for (final WatchedPresenter watched : mWatched) {
+            if (now - watched.getWatchedAtNanos() >= minWatchedNanos && watched.get() != null) {
+                retained.add(watched);
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * @return number of watched presenters which are not garbage collected yet
+     */
+    public synchronized int getWatchedCount() {
+        purgeCollected();
+        return mWatched.size();
+    }
+
+    /**
+     * Starts watching a presenter whose host finished. The presenter is expected to be garbage
+     * collected soon.
+     */
+    public synchronized void watch(@NonNull final TiPresenter presenter, final long hostId) {
+        purgeCollected();
+        mWatched.add(new WatchedPresenter(presenter, hostId, mQueue));
+    }
+
+    private void purgeCollected() {
+        Reference<? extends TiPresenter> collected;
+        while ((collected = mQueue.poll()) != null) {
+            //noinspection SuspiciousMethodCalls
+            mWatched.remove(collected);
+        }
+    }
+}
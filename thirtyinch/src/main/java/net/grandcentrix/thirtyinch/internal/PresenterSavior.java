@@ -16,14 +16,33 @@
 package net.grandcentrix.thirtyinch.internal;
 
 import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.grandcentrix.thirtyinch.HostScopeResolver;
+import net.grandcentrix.thirtyinch.Removable;
+import net.grandcentrix.thirtyinch.TiHostCache;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiTracer;
 
 /**
  * When a {@link TiPresenter} is created with
@@ -42,9 +61,23 @@ import net.grandcentrix.thirtyinch.TiPresenter;
  * cases
  * and destroys and cleans the presenters to prevents leaks.
  * </p>
+ * <p>
+ * Presenters can be saved, recovered and freed from any thread. Every {@link PresenterScope} is
+ * its own lock, operations on different hosts don't block each other. Only the creation and
+ * removal of a scope is guarded by the savior itself.
+ * </p>
+ * <p>
+ * Hosts other than {@link Activity} are supported with a {@link HostScopeResolver}, see
+ * {@link #addHostScopeResolver(HostScopeResolver)}.
+ * </p>
+ * <p>
+ * Retained presenters without attached view can be evicted when the system is low on memory,
+ * see {@link #setEvictionBudget(int)}.
+ * </p>
  */
 public class PresenterSavior implements TiPresenterSavior,
-        ActivityInstanceObserver.ActivityFinishListener {
+        ActivityInstanceObserver.ActivityFinishListener, HostScopeResolver.HostFinishListener,
+        ComponentCallbacks2 {
 
     /**
      * Thrown for not supported host types
@@ -57,8 +90,57 @@ public class PresenterSavior implements TiPresenterSavior,
         }
     }
 
+    /**
+     * a presenter which could be evicted, with the scope and id it was saved with
+     */
+    private static final class EvictionCandidate {
+
+        final long mId;
+
+        /**
+         * read once, the presenter could be used while the candidates get sorted
+         */
+        final long mLastUsedNanos;
+
+        final TiPresenter mPresenter;
+
+        final PresenterScope mScope;
+
+        EvictionCandidate(final PresenterScope scope, final long id,
+                final TiPresenter presenter) {
+            mScope = scope;
+            mId = id;
+            mPresenter = presenter;
+            mLastUsedNanos = presenter.getLastUsedNanos();
+        }
+    }
+
+    /**
+     * eviction is disabled by default
+     */
+    public static final int UNLIMITED_BUDGET = Integer.MAX_VALUE;
+
     private static PresenterSavior INSTANCE;
 
+    /**
+     * orders presenters from least to most recently used
+     */
+    private static final Comparator<EvictionCandidate> LEAST_RECENTLY_USED
+            = new Comparator<EvictionCandidate>() {
+        @Override
+        public int compare(final EvictionCandidate o1, final EvictionCandidate o2) {
+            final long lastUsed1 = o1.mLastUsedNanos;
+            final long lastUsed2 = o2.mLastUsedNanos;
+            return lastUsed1 < lastUsed2 ? -1 : (lastUsed1 == lastUsed2 ? 0 : 1);
+        }
+    };
+
+    /**
+     * prefetched presenters not adopted within this time are discarded
+     */
+    @VisibleForTesting
+    static final long PREFETCH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
     private static final String TAG = PresenterSavior.class.getSimpleName();
 
     /**
@@ -66,17 +148,77 @@ public class PresenterSavior implements TiPresenterSavior,
      */
     private static final boolean DEBUG = false;
 
+    /**
+     * written while holding the lock of this savior, read without
+     */
     @VisibleForTesting
-    ActivityInstanceObserver mActivityInstanceObserver;
+    volatile ActivityInstanceObserver mActivityInstanceObserver;
+
+    /**
+     * the Application {@link #mLifecycleDispatcher} and the component callbacks are registered
+     * at, {@code null} when not installed
+     */
+    private Application mApplication;
+
+    /**
+     * resolvers of {@link #mHostScopeResolvers} by the exact class of the host, filled on first
+     * lookup
+     */
+    private final ConcurrentHashMap<Class<?>, HostScopeResolver<?>> mHostScopeResolverCache =
+            new ConcurrentHashMap<>();
+
+    private final CopyOnWriteArrayList<HostScopeResolver<?>> mHostScopeResolvers =
+            new CopyOnWriteArrayList<>();
 
     /**
-     * Holds a scope for every Activity with one or more presenters. There is no direct mapping for
+     * Holds a scope for every host with one or more presenters. There is no direct mapping for
      * {@link Activity} to {@link PresenterScope} because Activity instances can be
      * destroyed. The {@link ActivityInstanceObserver} takes care to manage unique Ids for each
      * Activity which are used as keys here.
+     * <p>
+     * Scopes are only added or removed while holding the lock of this savior. A scope removed
+     * by {@link #free(long, Object)} is {@link PresenterScope#close() closed} first, concurrent
+     * savers detect this and create a new scope.
+     * <p>
+     * Boxing the ids is accepted in exchange for lock-free reads: there is one scope per living
+     * host, lookups happen once per host lifecycle event and not in a hot loop, and a
+     * {@code LongSparseArray} would need the savior lock for every {@link #recover(long, Object)}.
      */
     @VisibleForTesting
-    final HashMap<String, PresenterScope> mScopes = new HashMap<>();
+    final ConcurrentHashMap<Long, PresenterScope> mScopes = new ConcurrentHashMap<>();
+
+    /**
+     * max number of presenters without attached view which survive {@link #onTrimMemory(int)}
+     */
+    private volatile int mEvictionBudget = UNLIMITED_BUDGET;
+
+    private final PresenterLeakWatcher mLeakWatcher = new PresenterLeakWatcher();
+
+    /**
+     * presenters created ahead of the navigation to their host, by token
+     */
+    @VisibleForTesting
+    final ConcurrentHashMap<Long, PrefetchedPresenter> mPrefetched = new ConcurrentHashMap<>();
+
+    /**
+     * discards prefetched presenters which are not adopted in time, created on first use
+     */
+    private ScheduledExecutorService mPrefetchTimer;
+
+    /**
+     * Installed with the first Activity scope. Stays installed while scopes come and go and
+     * forwards to {@link #mActivityInstanceObserver}, it gets uninstalled when the app moves to
+     * the background without scopes, see {@link #onTrimMemory(int)}.
+     */
+    @VisibleForTesting
+    final ActivityLifecycleDispatcher mLifecycleDispatcher = new ActivityLifecycleDispatcher();
+
+    /**
+     * Source for presenter and host ids. Counting starts at the creation time in milliseconds
+     * shifted by 16 bits. An id from the savedInstanceState of a previous process therefore never
+     * matches an id generated by the current process.
+     */
+    private final AtomicLong mLastId = new AtomicLong(System.currentTimeMillis() << 16);
 
     /**
      * Access to the {@link PresenterSavior} singleton to save presenters across orientation changes
@@ -88,47 +230,233 @@ public class PresenterSavior implements TiPresenterSavior,
         return INSTANCE;
     }
 
+    /**
+     * Reads an id written with {@link Bundle#putLong(String, long)}.
+     * <p>
+     * Previous versions saved the ids as {@link String}. Such an id can only be found after the
+     * app was updated which implies a new process without any retained presenters. It's treated
+     * like a missing id.
+     *
+     * @return the saved id or {@link #NO_ID}
+     */
+    public static long readSavedId(@Nullable final Bundle savedState, @NonNull final String key) {
+        if (savedState == null) {
+            return NO_ID;
+        }
+        final Object id = savedState.get(key);
+        if (id instanceof Long) {
+            return (Long) id;
+        }
+        if (id != null) {
+            TiLog.v(TAG, "ignoring legacy id '" + id + "' for key " + key);
+        }
+        return NO_ID;
+    }
+
+    /**
+     * Calculates the number of presenters without view which should be kept for a
+     * {@link ComponentCallbacks2} trim level. The configured budget applies while the app is
+     * running or the UI got hidden, it's cut in half when the system runs low on memory and
+     * nothing is kept when the process is about to be killed or the memory situation is
+     * critical.
+     */
+    @VisibleForTesting
+    static int budgetForTrimLevel(final int budget, final int level) {
+        if (budget == UNLIMITED_BUDGET) {
+            return UNLIMITED_BUDGET;
+        }
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0;
+        }
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            return budget / 2;
+        }
+        return budget;
+    }
+
     @VisibleForTesting
     PresenterSavior() {
 
     }
 
+    /**
+     * Adds support for a new type of host. Resolvers are queried in the order they were added,
+     * the first resolver whose {@link HostScopeResolver#getHostType()} matches the host is used
+     * for all hosts of the same class. {@link Activity} hosts are always handled by the savior.
+     * <p>
+     * Add resolvers before the first presenter of such a host is saved, i.e. in
+     * {@link Application#onCreate()}.
+     *
+     * @return a {@link Removable} to remove the resolver again
+     */
+    @NonNull
+    public Removable addHostScopeResolver(@NonNull final HostScopeResolver<?> resolver) {
+        mHostScopeResolvers.add(resolver);
+        mHostScopeResolverCache.clear();
+        return new OneTimeRemovable() {
+            @Override
+            public void onRemove() {
+                mHostScopeResolvers.remove(resolver);
+                mHostScopeResolverCache.clear();
+            }
+        };
+    }
+
     @Override
-    public void free(final String presenterId, @NonNull final Object host) {
-        final PresenterScope scope = getScope(host);
-        if (scope != null) {
-            scope.remove(presenterId);
+    @Nullable
+    public TiPresenter adoptPrefetched(final long token) {
+        if (token == NO_ID) {
+            return null;
+        }
+        final PrefetchedPresenter prefetched = mPrefetched.remove(token);
+        if (prefetched == null) {
+            return null;
+        }
+        TiLog.v(TAG, "adopting prefetched presenter with token " + token);
+        return prefetched.adopt();
+    }
 
-            // cleanup empty PresenterScope
-            if (scope.isEmpty()) {
-                mScopes.values().remove(scope);
+    /**
+     * Discards a prefetched presenter which will not be adopted, i.e. because the navigation got
+     * cancelled. A created presenter gets destroyed.
+     *
+     * @param token the token returned by {@link #prefetch(TiPresenterProvider, Executor)}
+     */
+    public void discardPrefetched(final long token) {
+        final PrefetchedPresenter prefetched = mPrefetched.remove(token);
+        if (prefetched != null) {
+            prefetched.discard();
+        }
+    }
+
+    /**
+     * Destroys and frees the least recently used presenters without attached view until only
+     * {@code budget} of them are left. Presenters with attached view are never evicted.
+     *
+     * @return the number of evicted presenters
+     * @see TiPresenter#evict()
+     */
+    public int evictPresenters(final int budget) {
+        final ArrayList<EvictionCandidate> candidates = new ArrayList<>();
+        for (final PresenterScope scope : mScopes.values()) {
+            synchronized (scope) {
+                for (final TiPresenter presenter : scope.presenters()) {
+                    if (presenter.isInitialized()) {
+                        candidates.add(
+                                new EvictionCandidate(scope, scope.getId(presenter), presenter));
+                    }
+                }
             }
         }
 
-        // unregister host observer
-        if (host instanceof Activity) {
-            final Activity activity = (Activity) host;
-            unregisterActivityObserver(activity);
+        if (candidates.size() <= budget) {
+            return 0;
+        }
+
+        Collections.sort(candidates, LEAST_RECENTLY_USED);
+        int evicted = 0;
+        for (int i = 0; i < candidates.size() - budget; i++) {
+            final EvictionCandidate candidate = candidates.get(i);
+            if (removeForEviction(candidate)) {
+                candidate.mPresenter.evict();
+                evicted++;
+            }
+        }
+        TiLog.d(TAG, "evicted " + evicted + " presenters, budget " + budget);
+
+        printRemainingPresenter();
+
+        return evicted;
+    }
+
+    @Override
+    public void free(final long presenterId, @NonNull final Object host) {
+        final long scopeId;
+        if (host instanceof Activity || findHostScopeResolver(host) != null) {
+            scopeId = getScopeId(host);
         } else {
-            // currently only Activity is supported as host
-            throw new IllegalStateException(
-                    "Host has unknown type " + host.getClass().getSimpleName()
-                            + " and is not supported.");
+            // the resolver was removed in the meantime, it can't resolve the host anymore
+            scopeId = findScopeIdOf(presenterId);
+        }
+        final PresenterScope scope = scopeId != NO_ID ? mScopes.get(scopeId) : null;
+        boolean emptied = false;
+        TiPresenter removed = null;
+        if (scope != null) {
+            synchronized (scope) {
+                removed = scope.remove(presenterId);
+                emptied = closeIfEmpty(scope);
+            }
+        }
+
+        if (emptied) {
+            removeClosedScope(scopeId, scope, host);
+        }
+        if (removed != null) {
+            mLeakWatcher.watch(removed, scopeId);
         }
 
         printRemainingPresenter();
     }
 
+    @NonNull
     @Override
-    public void onActivityFinished(final Activity activity, final String hostId) {
-        // First remove the scope, and don't leak it when the Activity got finished
-        final PresenterScope scope = mScopes.remove(hostId);
-        unregisterActivityObserver(activity);
+    public TiHostCache getHostCache(@NonNull final Object host) {
+        PresenterScope scope = getScope(host);
+        if (scope == null) {
+            // no presenter of the host saved yet
+            scope = getOrCreateScope(host);
+        }
+        return scope.getCache();
+    }
 
+    /**
+     * @return watches the presenters of finished Activities
+     */
+    @NonNull
+    public PresenterLeakWatcher getLeakWatcher() {
+        return mLeakWatcher;
+    }
+
+    /**
+     * @return a snapshot of all retained presenters. The key is the id of the host, the value
+     * contains the presenter ids and presenters of this host
+     */
+    @NonNull
+    public Map<Long, List<Map.Entry<Long, TiPresenter>>> getRetainedPresenters() {
+        final HashMap<Long, List<Map.Entry<Long, TiPresenter>>> snapshot = new HashMap<>();
+        for (final Map.Entry<Long, PresenterScope> entry : mScopes.entrySet()) {
+            final List<Map.Entry<Long, TiPresenter>> mappings = entry.getValue().getAllMappings();
+            if (!mappings.isEmpty()) {
+                snapshot.put(entry.getKey(), mappings);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void onActivityFinished(final Activity activity, final long hostId) {
         TiLog.d(TAG, "Activity is finishing, free remaining presenters " + activity);
+        onHostFinished(hostId);
+    }
+
+    @Override
+    public void onConfigurationChanged(final Configuration newConfig) {
+        // noop
+    }
+
+    @Override
+    public void onHostFinished(final long hostId) {
+        // First remove the scope, and don't leak it when the host got finished
+        final PresenterScope scope;
+        synchronized (this) {
+            scope = mScopes.remove(hostId);
+            unregisterActivityObserver();
+        }
+
         if (scope != null) {
-            for (final Map.Entry<String, TiPresenter> entry : scope.getAllMappings()) {
-                final String presenterId = entry.getKey();
+            // closing empties the scope, no other thread is able to save a presenter in it
+            final List<Map.Entry<Long, TiPresenter>> mappings = scope.close();
+            for (final Map.Entry<Long, TiPresenter> entry : mappings) {
                 final TiPresenter presenter = entry.getValue();
 
                 // when the presenter is not destroyed yet, destroy it.
@@ -140,86 +468,312 @@ public class PresenterSavior implements TiPresenterSavior,
                         presenter.destroy();
                     }
                 }
-                scope.remove(presenterId);
+                mLeakWatcher.watch(presenter, hostId);
             }
         }
 
         printRemainingPresenter();
     }
 
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onTrimMemory(final int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // no navigation will adopt them
+            discardPrefetchedOlderThan(0);
+        }
+        final int budget = budgetForTrimLevel(mEvictionBudget, level);
+        if (budget != UNLIMITED_BUDGET) {
+            evictPresenters(budget);
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            uninstallWhenIdle();
+        }
+    }
+
+    /**
+     * Provides and creates a presenter on the {@code executor} ahead of the navigation to its
+     * host, i.e. right before calling {@link Activity#startActivity(android.content.Intent)}. The
+     * host adopts the presenter with {@link #adoptPrefetched(long)} instead of calling
+     * {@link TiPresenterProvider#providePresenter()} on the main thread.
+     * <p>
+     * Presenters which are not adopted within {@link #PREFETCH_TIMEOUT_NANOS} or when the app
+     * moves to the background get destroyed, the timeout runs on a timer thread.
+     *
+     * @return the token to adopt the presenter with, never {@link #NO_ID}
+     */
+    public long prefetch(@NonNull final TiPresenterProvider<?> provider,
+            @NonNull final Executor executor) {
+        discardPrefetchedOlderThan(PREFETCH_TIMEOUT_NANOS);
+
+        final long token = generateId();
+        final PrefetchedPresenter prefetched = new PrefetchedPresenter(provider);
+        mPrefetched.put(token, prefetched);
+        prefetched.setExpiry(getPrefetchTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (mPrefetched.remove(token, prefetched)) {
+                    TiLog.v(TAG, "prefetched presenter with token " + token + " expired");
+                    prefetched.discard();
+                }
+            }
+        }, PREFETCH_TIMEOUT_NANOS, TimeUnit.NANOSECONDS));
+        executor.execute(prefetched);
+        return token;
+    }
+
     @Override
     @Nullable
-    public TiPresenter recover(final String presenterId, @NonNull final Object host) {
-        final PresenterScope scope = getScope(host);
-        if (scope == null) {
+    public TiPresenter recover(final long presenterId, @NonNull final Object host) {
+        TiTracer.beginSection("PresenterSavior.recover");
+        try {
+            final long scopeId = getScopeId(host);
+            final PresenterScope scope = scopeId != NO_ID ? mScopes.get(scopeId) : null;
+            if (scope == null || scope.isClosed()) {
+                return null;
+            }
+            final boolean emptied;
+            synchronized (scope) {
+                final TiPresenter presenter = scope.get(presenterId);
+                if (presenter == null || !presenter.isDestroyed()) {
+                    return presenter;
+                }
+                // destroyed without the savior, never hand it to a new host
+                TiLog.w(TAG, "dropping destroyed presenter " + presenter);
+                scope.remove(presenterId);
+                emptied = closeIfEmpty(scope);
+            }
+            if (emptied) {
+                removeClosedScope(scopeId, scope, host);
+            }
             return null;
+        } finally {
+            TiTracer.endSection();
         }
-        return scope.get(presenterId);
     }
 
     @Override
-    public String save(@NonNull final TiPresenter presenter, @NonNull final Object host) {
+    public long save(@NonNull final TiPresenter presenter, @NonNull final Object host) {
+        final long presenterId = generateId();
+        TiTracer.beginSection("PresenterSavior.save");
+        try {
+            while (true) {
+                PresenterScope scope = getScope(host);
+                if (scope == null) {
+                    scope = getOrCreateScope(host);
+                }
+                synchronized (scope) {
+                    // the scope could have been closed after it was looked up, retry with a new one
+                    if (!scope.isClosed()) {
+                        scope.save(presenterId, presenter);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            TiTracer.endSection();
+        }
 
-        // hostId will be non null for new hosts
-        String hostId = null;
+        printRemainingPresenter();
 
-        PresenterScope scope = getScope(host);
-        if (scope == null) {
-            // create a new scope
-            scope = new PresenterScope();
-            hostId = generateId(host);
-            mScopes.put(hostId, scope);
+        return presenterId;
+    }
+
+    /**
+     * Sets the max number of retained presenters without attached view, i.e. presenters of
+     * Activities in the background or of Fragments in the back stack. When the system asks to
+     * trim memory the least recently used presenters above this budget get evicted. Evicted
+     * presenters get destroyed and their hosts create a new presenter when they return.
+     * <p>
+     * The budget shrinks with the severity of the trim level, see
+     * {@link #budgetForTrimLevel(int, int)}. Defaults to {@link #UNLIMITED_BUDGET} which
+     * disables eviction.
+     *
+     * @param budget max number of presenters without view or {@link #UNLIMITED_BUDGET}
+     */
+    public void setEvictionBudget(final int budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget must not be negative, was " + budget);
         }
-        final String presenterId = generateId(presenter);
-        scope.save(presenterId, presenter);
-
-        if (hostId != null) {
-            // register host observer when a new host was detected
-            if (host instanceof Activity) {
-                final Activity activity = (Activity) host;
-                observeActivityFinish(activity, hostId);
-            } else {
-                // currently only Activity is supported as host
-                throw new IllegalHostException(host);
+        mEvictionBudget = budget;
+    }
+
+    /**
+     * replaces the timer of the prefetch timeouts
+     *
+     * @param timer {@code null} to use the default timer thread
+     */
+    @VisibleForTesting
+    synchronized void setPrefetchTimer(@Nullable final ScheduledExecutorService timer) {
+        mPrefetchTimer = timer;
+    }
+
+    /**
+     * discards prefetched presenters waiting for adoption for at least {@code minAgeNanos}
+     */
+    /**
+     * Closes the empty PresenterScope before it gets removed. A concurrent save which already
+     * found this scope has to create a new one. Scopes with cached values are kept until the
+     * host finishes. Call while holding the lock of the scope.
+     *
+     * @return {@code true} when the scope got closed and should be removed
+     */
+    private boolean closeIfEmpty(final PresenterScope scope) {
+        if (scope.isEmpty() && scope.getCache().size() == 0 && !scope.isClosed()) {
+            scope.close();
+            return true;
+        }
+        return false;
+    }
+
+    private void discardPrefetchedOlderThan(final long minAgeNanos) {
+        if (mPrefetched.isEmpty()) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (final Map.Entry<Long, PrefetchedPresenter> entry : mPrefetched.entrySet()) {
+            final PrefetchedPresenter prefetched = entry.getValue();
+            if (now - prefetched.getPrefetchedAtNanos() >= minAgeNanos
+                    && mPrefetched.remove(entry.getKey(), prefetched)) {
+                TiLog.v(TAG, "discarding prefetched presenter with token " + entry.getKey());
+                prefetched.discard();
             }
         }
+    }
 
-        printRemainingPresenter();
+    /**
+     * @return the resolver responsible for the host, {@code null} when no resolver supports the
+     * host
+     */
+    @Nullable
+    private HostScopeResolver<Object> findHostScopeResolver(final Object host) {
+        final Class<?> hostClass = host.getClass();
+        HostScopeResolver<?> resolver = mHostScopeResolverCache.get(hostClass);
+        if (resolver == null) {
+            for (final HostScopeResolver<?> candidate : mHostScopeResolvers) {
+                if (candidate.getHostType().isInstance(host)) {
+                    resolver = candidate;
+                    mHostScopeResolverCache.put(hostClass, candidate);
+                    break;
+                }
+            }
+        }
+        //noinspection unchecked
+        return (HostScopeResolver<Object>) resolver;
+    }
 
-        return presenterId;
+    /**
+     * @return the id of the scope holding the presenter, {@link #NO_ID} when no scope holds it
+     */
+    private long findScopeIdOf(final long presenterId) {
+        for (final Map.Entry<Long, PresenterScope> entry : mScopes.entrySet()) {
+            if (entry.getValue().get(presenterId) != null) {
+                return entry.getKey();
+            }
+        }
+        return NO_ID;
     }
 
     /**
-     * Generates a unique id for a given object
+     * Generates a unique id, never {@link #NO_ID}
      */
-    private String generateId(final Object object) {
-        return object.getClass().getSimpleName()
-                + ":" + object.hashCode()
-                + ":" + System.nanoTime();
+    private long generateId() {
+        return mLastId.incrementAndGet();
     }
 
     /**
-     * retrieves an existing scope for a {@link Activity} but doesn't create on when the scope
-     * doesn't exist
+     * @return the resolver responsible for the host
+     * @throws IllegalHostException when no resolver supports the host
+     */
+    @NonNull
+    private HostScopeResolver<Object> getHostScopeResolver(final Object host) {
+        final HostScopeResolver<Object> resolver = findHostScopeResolver(host);
+        if (resolver == null) {
+            throw new IllegalHostException(host);
+        }
+        return resolver;
+    }
+
+    /**
+     * retrieves the scope for the host or creates a new one which the host gets tracked with
+     */
+    @NonNull
+    private synchronized PresenterScope getOrCreateScope(final Object host) {
+        final PresenterScope existing = getScope(host);
+        if (existing != null) {
+            return existing;
+        }
+
+        final PresenterScope scope = new PresenterScope();
+        final long hostId = generateId();
+
+        // register host observer when a new host was detected
+        if (host instanceof Activity) {
+            mScopes.put(hostId, scope);
+            observeActivityFinish((Activity) host, hostId);
+        } else {
+            final HostScopeResolver<Object> resolver = getHostScopeResolver(host);
+            mScopes.put(hostId, scope);
+            resolver.startTracking(host, hostId, this);
+        }
+        return scope;
+    }
+
+    /**
+     * @return the timer of the prefetch timeouts, one daemon thread
+     */
+    private synchronized ScheduledExecutorService getPrefetchTimer() {
+        if (mPrefetchTimer == null) {
+            final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull final Runnable r) {
+                            final Thread thread = new Thread(r, "PresenterSavior-prefetch-timer");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            // adopted presenters cancel their timeouts, don't keep them until they are due
+            timer.setRemoveOnCancelPolicy(true);
+            mPrefetchTimer = timer;
+        }
+        return mPrefetchTimer;
+    }
+
+    /**
+     * retrieves an existing scope for a host but doesn't create on when the scope doesn't exist
+     * or was closed
      */
     @Nullable
-    private synchronized PresenterScope getScope(final Object host) {
+    private PresenterScope getScope(final Object host) {
+        final long scopeId = getScopeId(host);
+        if (scopeId == NO_ID) {
+            return null;
+        }
+        final PresenterScope scope = mScopes.get(scopeId);
+        if (scope == null || scope.isClosed()) {
+            return null;
+        }
+        return scope;
+    }
+
+    /**
+     * @return the id of the scope of the host or {@link #NO_ID} when the host has no scope
+     */
+    private long getScopeId(final Object host) {
         if (host instanceof Activity) {
             final ActivityInstanceObserver detector = mActivityInstanceObserver;
             if (detector == null) {
-                return null;
-            }
-
-            final Activity activity = (Activity) host;
-            final String scopeId = detector.getActivityId(activity);
-            if (scopeId == null) {
-                return null;
+                return NO_ID;
             }
 
-            return mScopes.get(scopeId);
+            return detector.getActivityId((Activity) host);
         } else {
-            // currently only Activity is supported as host
-            throw new IllegalHostException(host);
+            return getHostScopeResolver(host).getHostId(host);
         }
     }
 
@@ -229,7 +783,7 @@ public class PresenterSavior implements TiPresenterSavior,
      * @param activity to listen for the finish event
      * @param hostId   id to track the Activity across orientation changes
      */
-    private void observeActivityFinish(final Activity activity, @NonNull final String hostId) {
+    private void observeActivityFinish(final Activity activity, final long hostId) {
         final ActivityInstanceObserver observer = registerActivityObserver(activity);
         observer.startTracking(activity, hostId);
     }
@@ -242,8 +796,8 @@ public class PresenterSavior implements TiPresenterSavior,
     private void printRemainingPresenter() {
         if (DEBUG) {
             final ArrayList<TiPresenter> presenters = new ArrayList<>();
-            for (final Map.Entry<String, PresenterScope> entry : mScopes.entrySet()) {
-                presenters.addAll(entry.getValue().getAll());
+            for (final PresenterScope scope : mScopes.values()) {
+                presenters.addAll(scope.getAll());
             }
 
             TiLog.d(TAG, "presenter count: " + presenters.size());
@@ -254,30 +808,91 @@ public class PresenterSavior implements TiPresenterSavior,
     }
 
     /**
-     * registers the {@link #mActivityInstanceObserver}
+     * creates the {@link #mActivityInstanceObserver} and installs the
+     * {@link #mLifecycleDispatcher} when not already done, requires the lock of this savior
      */
     private ActivityInstanceObserver registerActivityObserver(final Activity activity) {
         if (mActivityInstanceObserver == null) {
             mActivityInstanceObserver = new ActivityInstanceObserver(this);
+            mLifecycleDispatcher.setCallbacks(mActivityInstanceObserver);
+        }
+        if (mApplication == null) {
+            mApplication = activity.getApplication();
             TiLog.v(TAG, "registering lifecycle callback");
-            activity.getApplication().registerActivityLifecycleCallbacks(mActivityInstanceObserver);
+            mLifecycleDispatcher.install(mApplication);
+            mApplication.registerComponentCallbacks(this);
         }
         return mActivityInstanceObserver;
     }
 
     /**
-     * unregister {@link #mActivityInstanceObserver} when scopes are empty
+     * cleans up the scope closed by {@link #closeIfEmpty(PresenterScope)}, unless it was already
+     * replaced
+     */
+    private void removeClosedScope(final long scopeId, final PresenterScope scope,
+            final Object host) {
+        synchronized (this) {
+            if (mScopes.remove(scopeId, scope) && !(host instanceof Activity)) {
+                final HostScopeResolver<Object> resolver = findHostScopeResolver(host);
+                // a removed resolver doesn't track the host anymore
+                if (resolver != null) {
+                    resolver.stopTracking(host, scopeId);
+                }
+            }
+            // unregister host observer
+            unregisterActivityObserver();
+        }
+    }
+
+    /**
+     * removes the presenter from its scope when it is still without view
+     *
+     * @return {@code true} when the presenter was removed and should be evicted
+     */
+    private boolean removeForEviction(final EvictionCandidate candidate) {
+        final PresenterScope scope = candidate.mScope;
+        synchronized (scope) {
+            if (scope.get(candidate.mId) != candidate.mPresenter) {
+                // freed or recovered and freed in the meantime
+                return false;
+            }
+            if (!candidate.mPresenter.isInitialized()) {
+                // the view got attached in the meantime
+                return false;
+            }
+            // an emptied scope stays until its Activity finishes, it will be reused when a new
+            // presenter gets saved for the same Activity
+            scope.remove(candidate.mId);
+            return true;
+        }
+    }
+
+    /**
+     * Uninstalls the {@link #mLifecycleDispatcher} when no scopes exist. Called when the app
+     * moved to the background, a short lived screen in the foreground doesn't cause an
+     * install/uninstall cycle.
+     */
+    private synchronized void uninstallWhenIdle() {
+        if (mScopes.isEmpty() && mActivityInstanceObserver == null && mApplication != null) {
+            if (DEBUG) {
+                TiLog.v(TAG, "unregistering lifecycle callback");
+            }
+            mLifecycleDispatcher.uninstall();
+            mApplication.unregisterComponentCallbacks(this);
+            mApplication = null;
+        }
+    }
+
+    /**
+     * drops {@link #mActivityInstanceObserver} when scopes are empty, requires the lock of this
+     * savior. The {@link #mLifecycleDispatcher} stays installed.
      */
-    private void unregisterActivityObserver(final Activity activity) {
+    private void unregisterActivityObserver() {
         if (mScopes.isEmpty()) {
-            // unregister detector because there are no presenters which could be recovered.
-            // next #save call will create a new one
+            // no presenters which could be recovered, stop tracking Activities.
+            // next #save call will create a new observer
             if (mActivityInstanceObserver != null) {
-                if (DEBUG) {
-                    TiLog.v(TAG, "unregistering lifecycle callback");
-                }
-                activity.getApplication()
-                        .unregisterActivityLifecycleCallbacks(mActivityInstanceObserver);
+                mLifecycleDispatcher.setCallbacks(null);
                 mActivityInstanceObserver = null;
             }
         }
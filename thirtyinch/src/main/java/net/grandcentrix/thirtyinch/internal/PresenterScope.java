@@ -17,54 +17,148 @@ package net.grandcentrix.thirtyinch.internal;
 
 
 import androidx.annotation.NonNull;
+import androidx.collection.LongSparseArray;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import net.grandcentrix.thirtyinch.TiHostCache;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
 
 /**
- * Simple wrapper around a {@link HashMap} to save {@link TiPresenter} by id. For every host of a
- * {@link TiPresenter} (i.e. {@link android.app.Activity}) a corresponding {@link PresenterScope}
- * will be created.
+ * Simple wrapper around a {@link LongSparseArray} to save {@link TiPresenter} by id. For every
+ * host of a {@link TiPresenter} (i.e. {@link android.app.Activity}) a corresponding
+ * {@link PresenterScope} will be created.
  * It contains the {@link TiPresenter} of the Activity itself and of all of its Fragments.
+ * <p>
+ * A reverse index (presenter to id) based on object identity allows to lookup the id of a
+ * presenter and to detect duplicates in constant time.
+ * <p>
+ * All methods are synchronized on the scope instance. Each scope is a lock stripe of the
+ * {@link PresenterSavior}, presenters of different hosts can be saved and recovered in parallel.
+ * A scope which got {@link #close() closed} rejects new presenters and must be replaced.
+ * <p>
+ * The {@link TiHostCache} of the scope is shared by its presenters and lives as long as the
+ * scope.
  */
 public class PresenterScope {
 
     private final String TAG = PresenterScope.class.getSimpleName()
             + "@" + Integer.toHexString(hashCode());
 
-    private final HashMap<String, TiPresenter> mStore = new HashMap<>();
+    private final TiHostCache mCache = new TiHostCache();
 
-    public TiPresenter get(final String id) {
+    private boolean mClosed = false;
+
+    private final IdentityHashMap<TiPresenter, Long> mIds = new IdentityHashMap<>();
+
+    private final LongSparseArray<TiPresenter> mStore = new LongSparseArray<>();
+
+    /**
+     * Removes all presenters and rejects further calls to {@link #save(long, TiPresenter)}
+     *
+     * @return all mappings this scope held when it got closed
+     */
+    @NonNull
+    public synchronized List<Map.Entry<Long, TiPresenter>> close() {
+        final List<Map.Entry<Long, TiPresenter>> mappings = getAllMappings();
+        mClosed = true;
+        mStore.clear();
+        mIds.clear();
+        mCache.clear();
+        return mappings;
+    }
+
+    /**
+     * @return the values shared by the presenters of this scope, cleared when the scope gets
+     * closed
+     */
+    @NonNull
+    public TiHostCache getCache() {
+        return mCache;
+    }
+
+    public synchronized TiPresenter get(final long id) {
         return mStore.get(id);
     }
 
     @NonNull
-    public List<TiPresenter> getAll() {
-        return Collections.unmodifiableList(new ArrayList<>(mStore.values()));
+    public synchronized List<TiPresenter> getAll() {
+        return Collections.unmodifiableList(new ArrayList<>(presenters()));
     }
 
     @NonNull
-    public List<Map.Entry<String, TiPresenter>> getAllMappings() {
-        return Collections.unmodifiableList(new ArrayList<>(mStore.entrySet()));
+    public synchronized List<Map.Entry<Long, TiPresenter>> getAllMappings() {
+        final ArrayList<Map.Entry<Long, TiPresenter>> mappings = new ArrayList<>(mStore.size());
+        for (int i = 0; i < mStore.size(); i++) {
+            mappings.add(new AbstractMap.SimpleImmutableEntry<>(mStore.keyAt(i),
+                    mStore.valueAt(i)));
+        }
+        return Collections.unmodifiableList(mappings);
     }
 
-    public boolean isEmpty() {
-        return mStore.isEmpty();
+    /**
+     * @return the id the presenter was saved with or {@link TiPresenterSavior#NO_ID} when the
+     * presenter isn't part of this scope
+     */
+    public synchronized long getId(@NonNull final TiPresenter presenter) {
+        final Long id = mIds.get(presenter);
+        return id != null ? id : TiPresenterSavior.NO_ID;
     }
 
-    public TiPresenter remove(@NonNull final String id) {
-        final TiPresenter presenter = mStore.remove(id);
+    /**
+     * Unlike {@link #getAll()} this doesn't copy the presenters. Don't modify the scope while
+     * iterating over the returned view. Iterate while holding the lock of this scope when other
+     * threads could access it.
+     *
+     * @return a read-only live view of all presenters in this scope
+     */
+    @NonNull
+    public List<TiPresenter> presenters() {
+        return new AbstractList<TiPresenter>() {
+            @Override
+            public TiPresenter get(final int index) {
+                return mStore.valueAt(index);
+            }
+
+            @Override
+            public int size() {
+                return mStore.size();
+            }
+        };
+    }
+
+    /**
+     * @return {@code true} when {@link #close()} was called
+     */
+    public synchronized boolean isClosed() {
+        return mClosed;
+    }
+
+    public synchronized boolean isEmpty() {
+        return mStore.size() == 0;
+    }
+
+    public synchronized TiPresenter remove(final long id) {
+        final TiPresenter presenter = mStore.get(id);
+        if (presenter != null) {
+            mStore.remove(id);
+            mIds.remove(presenter);
+        }
         TiLog.d(TAG, "remove " + id + " " + presenter);
         return presenter;
     }
 
-    public void save(@NonNull final String id, @NonNull final TiPresenter presenter) {
-        if (id == null) {
-            throw new IllegalStateException("id must be non-null");
+    public synchronized void save(final long id, @NonNull final TiPresenter presenter) {
+        if (mClosed) {
+            throw new IllegalStateException("scope is closed, can't save " + presenter);
+        }
+        if (id == TiPresenterSavior.NO_ID) {
+            throw new IllegalStateException("id must be a valid id, not NO_ID");
         }
         if (presenter == null) {
             throw new IllegalStateException("presenter must be non-null");
@@ -77,18 +171,18 @@ public class PresenterScope {
         }
 
         // saving a presenter twice with a different id is not supported
-        for (final Map.Entry<String, TiPresenter> entry : mStore.entrySet()) {
-            if (entry.getValue().equals(presenter)) {
-                throw new IllegalStateException("Presenter is already saved with different id '"
-                        + entry.getKey() + "' " + presenter);
-            }
+        final Long existingId = mIds.get(presenter);
+        if (existingId != null) {
+            throw new IllegalStateException("Presenter is already saved with different id '"
+                    + existingId + "' " + presenter);
         }
 
         TiLog.d(TAG, "save " + id + " " + presenter);
         mStore.put(id, presenter);
+        mIds.put(presenter, id);
     }
 
-    public int size() {
+    public synchronized int size() {
         return mStore.size();
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiLog;
+import net.grandcentrix.thirtyinch.TiPresenter;
+
+/**
+ * Stores snapshots of presenters (see {@link TiPresenter#saveSnapshot(java.io.DataOutput)}) in
+ * app-private memory-mapped files, one file per presenter id. A snapshot survives process death
+ * and allows restoring a presenter without reloading its state, without putting large state
+ * into the savedInstanceState {@link android.os.Bundle}.
+ * <p>
+ * Writing into a mapped file doesn't wait for the disk, the kernel writes the dirty pages back
+ * while the app is already in the background.
+ * </p>
+ * Snapshots are deleted when restored or when the presenter gets destroyed. Snapshots of tasks
+ * never returned to are deleted after {@link #MAX_AGE_MILLIS}.
+ *
+ * @see TiConfiguration.Builder#setStateSnapshotEnabled(boolean)
+ */
+public class PresenterSnapshotStore {
+
+    /**
+     * Reads a mapped buffer without copying it
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(@NonNull final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, mBuffer.remaining());
+            mBuffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+
+    @VisibleForTesting
+    static final String DIR_NAME = "thirtyinch_snapshots";
+
+    /**
+     * snapshots not restored within this time are deleted
+     */
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(3);
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * magic, format version and payload length
+     */
+    private static final int HEADER_BYTES = 12;
+
+    /**
+     * "TiSn"
+     */
+    private static final int MAGIC = 0x5469536E;
+
+    private static final String SUFFIX = ".snapshot";
+
+    private static final String TAG = PresenterSnapshotStore.class.getSimpleName();
+
+    private static PresenterSnapshotStore INSTANCE;
+
+    private final Context mContext;
+
+    private File mDir;
+
+    private boolean mPruned;
+
+    /**
+     * @return the store of the app, doesn't touch the disk until the first snapshot is used
+     */
+    public static synchronized PresenterSnapshotStore getInstance(@NonNull final Context context) {
+        if (INSTANCE == null) {
+            INSTANCE = new PresenterSnapshotStore(context.getApplicationContext());
+        }
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    PresenterSnapshotStore(@NonNull final File dir) {
+        mContext = null;
+        mDir = dir;
+    }
+
+    private PresenterSnapshotStore(@NonNull final Context context) {
+        mContext = context;
+    }
+
+    /**
+     * deletes the snapshot of the presenter with this id, if any
+     */
+    public void delete(final long presenterId) {
+        final File file = getFile(presenterId);
+        if (file.exists() && !file.delete()) {
+            TiLog.w(TAG, "could not delete snapshot " + file);
+        }
+    }
+
+    /**
+     * Restores the snapshot saved with {@code presenterId} into the presenter and deletes it. The
+     * presenter must not be created yet.
+     *
+     * @return {@code true} when a snapshot was restored
+     */
+    public boolean restore(final long presenterId, @NonNull final TiPresenter presenter) {
+        final File file = getFile(presenterId);
+        if (!file.exists()) {
+            return false;
+        }
+
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                final FileChannel channel = raf.getChannel();
+                final MappedByteBuffer buffer =
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.remaining() < HEADER_BYTES
+                        || buffer.getInt() != MAGIC
+                        || buffer.getInt() != FORMAT_VERSION) {
+                    TiLog.w(TAG, "ignoring snapshot with unknown format " + file);
+                    return false;
+                }
+                final int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    TiLog.w(TAG, "ignoring truncated snapshot " + file);
+                    return false;
+                }
+                buffer.limit(HEADER_BYTES + length);
+                presenter.restoreSnapshot(
+                        new DataInputStream(new ByteBufferInputStream(buffer)));
+                TiLog.v(TAG, "restored " + presenter + " from snapshot " + file);
+                return true;
+            } finally {
+                raf.close();
+                delete(presenterId);
+            }
+        } catch (IOException e) {
+            TiLog.w(TAG, "could not restore snapshot " + file + ": " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the snapshot of the presenter, replacing the previous snapshot saved with the same
+     * id.
+     *
+     * @return {@code true} when the snapshot was written
+     */
+    public boolean save(final long presenterId, @NonNull final TiPresenter presenter) {
+        pruneOnce();
+
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        final File file = getFile(presenterId);
+        try {
+            presenter.saveSnapshot(new DataOutputStream(payload));
+
+            final int size = HEADER_BYTES + payload.size();
+            final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(size);
+                final MappedByteBuffer buffer =
+                        raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC);
+                buffer.putInt(FORMAT_VERSION);
+                buffer.putInt(payload.size());
+                buffer.put(payload.toByteArray());
+            } finally {
+                raf.close();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // saving happens in onSaveInstanceState, never crash the app for a snapshot
+            TiLog.w(TAG, "could not write snapshot of " + presenter + ": " + e);
+            delete(presenterId);
+            return false;
+        }
+    }
+
+    private synchronized File getDir() {
+        if (mDir == null) {
+            mDir = new File(mContext.getFilesDir(), DIR_NAME);
+        }
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            TiLog.w(TAG, "could not create snapshot directory " + mDir);
+        }
+        return mDir;
+    }
+
+    private File getFile(final long presenterId) {
+        return new File(getDir(), presenterId + SUFFIX);
+    }
+
+    /**
+     * deletes snapshots of tasks the user didn't return to, once per process
+     */
+    private synchronized void pruneOnce() {
+        if (mPruned) {
+            return;
+        }
+        mPruned = true;
+        final File[] files = getDir().listFiles();
+        if (files == null) {
+            return;
+        }
+        final long oldest = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        for (final File file : files) {
+            if (file.getName().endsWith(SUFFIX) && file.lastModified() < oldest) {
+                TiLog.v(TAG, "deleting outdated snapshot " + file);
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+}
@@ -18,12 +18,15 @@ package net.grandcentrix.thirtyinch.internal;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.Removable;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiTracer;
 import net.grandcentrix.thirtyinch.TiView;
 
 /**
@@ -36,6 +39,13 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
 
     private List<BindViewInterceptor> mBindViewInterceptors = new ArrayList<>();
 
+    /**
+     * number of leading interceptors in {@link #mBindViewInterceptors} with a valid output in
+     * {@link #mInterceptorViewOutput}. Binding the view only runs the interceptors after this
+     * position.
+     */
+    private int mCachedInterceptorCount = 0;
+
     private HashMap<BindViewInterceptor, V> mInterceptorViewOutput = new HashMap<>();
 
     /**
@@ -45,6 +55,12 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
 
     private final TiLoggingTagProvider mLogTag;
 
+    /**
+     * the cached view returned by {@link TiViewProvider#provideView()}, the input of the first
+     * interceptor
+     */
+    private V mProvidedView;
+
     public PresenterViewBinder(final TiLoggingTagProvider loggingTagProvider) {
         mLogTag = loggingTagProvider;
     }
@@ -52,14 +68,30 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
     @NonNull
     @Override
     public Removable addBindViewInterceptor(@NonNull final BindViewInterceptor interceptor) {
-        mBindViewInterceptors.add(interceptor);
-        invalidateView();
+        return addBindViewInterceptors(Collections.singletonList(interceptor));
+    }
+
+    @NonNull
+    @Override
+    public Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors) {
+        final List<BindViewInterceptor> added = new ArrayList<>(interceptors);
+
+        // interceptors are appended, the already wrapped views of all previous interceptors
+        // stay valid
+        invalidateFrom(mBindViewInterceptors.size());
+        mBindViewInterceptors.addAll(added);
 
         return new OneTimeRemovable() {
             @Override
             public void onRemove() {
-                mBindViewInterceptors.remove(interceptor);
-                invalidateView();
+                for (int i = 0; i < added.size(); i++) {
+                    final int index = mBindViewInterceptors.indexOf(added.get(i));
+                    if (index >= 0) {
+                        invalidateFrom(index);
+                        mBindViewInterceptors.remove(index);
+                    }
+                }
             }
         };
     }
@@ -67,21 +99,28 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
     /**
      * binds the view (this Activity) to the {@code presenter}. Allows interceptors to change,
      * delegate or wrap the view before it gets attached to the presenter.
+     * <p>
+     * Only the interceptors changed since the last binding intercept the view again, the cached
+     * outputs of all interceptors before them are reused.
      */
     public void bindView(final TiPresenter<V> presenter, final TiViewProvider<V> viewProvider) {
-        if (mLastView == null) {
-            invalidateView();
-            V interceptedView = viewProvider.provideView();
-            for (final BindViewInterceptor interceptor : mBindViewInterceptors) {
-                interceptedView = interceptor.intercept(interceptedView);
-                mInterceptorViewOutput.put(interceptor, interceptedView);
+        TiTracer.beginSection("PresenterViewBinder.bindView");
+        try {
+            if (mLastView == null) {
+                if (mProvidedView == null) {
+                    invalidateView();
+                    mProvidedView = viewProvider.provideView();
+                }
+                mLastView = intercept();
+                TiLog.v(mLogTag.getLoggingTag(), "binding NEW view to Presenter " + mLastView);
+                presenter.attachView(mLastView);
+            } else {
+                TiLog.v(mLogTag.getLoggingTag(),
+                        "binding the cached view to Presenter " + mLastView);
+                presenter.attachView(mLastView);
             }
-            mLastView = interceptedView;
-            TiLog.v(mLogTag.getLoggingTag(), "binding NEW view to Presenter " + mLastView);
-            presenter.attachView(mLastView);
-        } else {
-            TiLog.v(mLogTag.getLoggingTag(), "binding the cached view to Presenter " + mLastView);
-            presenter.attachView(mLastView);
+        } finally {
+            TiTracer.endSection();
         }
     }
 
@@ -108,6 +147,44 @@ public class PresenterViewBinder<V extends TiView> implements InterceptableViewB
     @Override
     public void invalidateView() {
         mLastView = null;
+        mProvidedView = null;
+        mCachedInterceptorCount = 0;
         mInterceptorViewOutput.clear();
     }
+
+    /**
+     * runs the interceptors without cached output
+     *
+     * @return the view wrapped by all interceptors
+     */
+    private V intercept() {
+        TiTracer.beginSection("PresenterViewBinder.intercept");
+        try {
+            V interceptedView = mCachedInterceptorCount == 0 ? mProvidedView
+                    : mInterceptorViewOutput
+                            .get(mBindViewInterceptors.get(mCachedInterceptorCount - 1));
+            for (int i = mCachedInterceptorCount; i < mBindViewInterceptors.size(); i++) {
+                final BindViewInterceptor interceptor = mBindViewInterceptors.get(i);
+                interceptedView = interceptor.intercept(interceptedView);
+                mInterceptorViewOutput.put(interceptor, interceptedView);
+            }
+            mCachedInterceptorCount = mBindViewInterceptors.size();
+            return interceptedView;
+        } finally {
+            TiTracer.endSection();
+        }
+    }
+
+    /**
+     * invalidates the cached outputs of all interceptors starting at {@code index}. The outputs
+     * of the interceptors before stay cached and will be reused by the next
+     * {@link #bindView(TiPresenter, TiViewProvider)}
+     */
+    private void invalidateFrom(final int index) {
+        for (int i = index; i < mBindViewInterceptors.size(); i++) {
+            mInterceptorViewOutput.remove(mBindViewInterceptors.get(i));
+        }
+        mCachedInterceptorCount = Math.min(mCachedInterceptorCount, index);
+        mLastView = null;
+    }
 }
@@ -21,7 +21,9 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.BindViewInterceptor;
 import net.grandcentrix.thirtyinch.Removable;
 import net.grandcentrix.thirtyinch.TiConfiguration;
@@ -29,9 +31,8 @@ import net.grandcentrix.thirtyinch.TiDialogFragment;
 import net.grandcentrix.thirtyinch.TiFragment;
 import net.grandcentrix.thirtyinch.TiLog;
 import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiTracer;
 import net.grandcentrix.thirtyinch.TiView;
-import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThreadInterceptor;
-import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChangedInterceptor;
 
 /**
  * This delegate allows sharing the fragment code between the {@link TiFragment},
@@ -52,16 +53,44 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
 
     private volatile boolean mActivityStarted = false;
 
+    /**
+     * {@code true} after the first {@code onStart} of this host instance
+     */
+    private boolean mStartedOnce = false;
+
     private final TiLoggingTagProvider mLogTag;
 
     private P mPresenter;
 
-    private String mPresenterId;
+    private long mPresenterId = TiPresenterSavior.NO_ID;
+
+    /**
+     * token of a presenter prefetched for this host, adopted instead of providing a new one
+     */
+    private long mPrefetchToken = TiPresenterSavior.NO_ID;
+
+    /**
+     * creates new presenters on a background thread, {@code null} to create them on the main
+     * thread
+     */
+    private Executor mPresenterCreationExecutor;
+
+    /**
+     * the presenter being created on {@link #mPresenterCreationExecutor}, {@code null} when
+     * {@link #mPresenter} is available
+     */
+    private PrefetchedPresenter mPendingPresenter;
 
     private final TiPresenterProvider<P> mPresenterProvider;
 
     private final TiPresenterSavior mSavior;
 
+    /**
+     * stores snapshots of presenters with {@link TiConfiguration#isStateSnapshotEnabled()},
+     * {@code null} when not supported by the host
+     */
+    private PresenterSnapshotStore mSnapshotStore;
+
     private final DelegatedTiFragment mTiFragment;
 
     private Removable mUiThreadBinderRemovable;
@@ -89,6 +118,13 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
         return mViewBinder.addBindViewInterceptor(interceptor);
     }
 
+    @NonNull
+    @Override
+    public Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors) {
+        return mViewBinder.addBindViewInterceptors(interceptors);
+    }
+
     @Nullable
     @Override
     public V getInterceptedViewOf(@NonNull final BindViewInterceptor interceptor) {
@@ -125,73 +161,70 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
 
     @SuppressWarnings("unchecked")
     public void onCreate_afterSuper(final Bundle savedInstanceState) {
-
-        if (mPresenter != null && mPresenter.isDestroyed()) {
-            // let a new Presenter be created
-            TiLog.v(mLogTag.getLoggingTag(),
-                    "detected destroyed presenter, discard it " + mPresenter);
-            mPresenter = null;
-        }
-
-        if (mPresenter == null && savedInstanceState != null) {
-            // recover with Savior
-            // this should always work.
-            final String recoveredPresenterId = savedInstanceState
-                    .getString(SAVED_STATE_PRESENTER_ID);
-            if (recoveredPresenterId != null) {
+        TiTracer.beginSection("TiFragmentDelegate.onCreate");
+        try {
+            if (mPresenter != null && mPresenter.isDestroyed()) {
+                // let a new Presenter be created
                 TiLog.v(mLogTag.getLoggingTag(),
-                        "try to recover Presenter with id: " + recoveredPresenterId);
-                mPresenter = (P) mSavior
-                        .recover(recoveredPresenterId, mTiFragment.getHostingContainer());
-                if (mPresenter != null) {
-                    // save recovered presenter with new id. No other instance of this activity,
-                    // holding the presenter before, is now able to remove the reference to
-                    // this presenter from the savior
-                    mSavior.free(recoveredPresenterId, mTiFragment.getHostingContainer());
-                    mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
-                }
-                TiLog.v(mLogTag.getLoggingTag(), "recovered Presenter " + mPresenter);
+                        "detected destroyed presenter, discard it " + mPresenter);
+                mPresenter = null;
             }
-        }
 
-        if (mPresenter == null) {
-            mPresenter = mPresenterProvider.providePresenter();
-            if (mPresenter.getState() != TiPresenter.State.INITIALIZED) {
-                throw new IllegalStateException("Presenter not in initialized state. "
-                        + "Current state is " + mPresenter.getState() + ". "
-                        + "Presenter provided with #providePresenter() cannot be reused. "
-                        + "Always return a fresh instance!");
-            }
-            TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
-            final TiConfiguration config = mPresenter.getConfig();
-            if (config.shouldRetainPresenter()) {
-                mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
+            long recoveredPresenterId = TiPresenterSavior.NO_ID;
+            if (mPresenter == null && savedInstanceState != null) {
+                // recover with Savior
+                // this should always work.
+                recoveredPresenterId = PresenterSavior
+                        .readSavedId(savedInstanceState, SAVED_STATE_PRESENTER_ID);
+                if (recoveredPresenterId != TiPresenterSavior.NO_ID) {
+                    TiLog.v(mLogTag.getLoggingTag(),
+                            "try to recover Presenter with id: " + recoveredPresenterId);
+                    mPresenter = (P) mSavior
+                            .recover(recoveredPresenterId, mTiFragment.getHostingContainer());
+                    if (mPresenter != null) {
+                        // save recovered presenter with new id. No other instance of this activity,
+                        // holding the presenter before, is now able to remove the reference to
+                        // this presenter from the savior
+                        mSavior.free(recoveredPresenterId, mTiFragment.getHostingContainer());
+                        mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
+                        // the presenter survived, its snapshot isn't required
+                        deleteSnapshot(recoveredPresenterId);
+                    }
+                    TiLog.v(mLogTag.getLoggingTag(), "recovered Presenter " + mPresenter);
+                }
             }
-            mPresenter.create();
-        }
 
-        final TiConfiguration config = mPresenter.getConfig();
-        if (config.isCallOnMainThreadInterceptorEnabled()) {
-            addBindViewInterceptor(new CallOnMainThreadInterceptor());
-        }
+            if (mPresenter == null && !adoptPrefetchedPresenter()) {
+                // continue with the snapshot of the previous presenter when the process got killed
+                if (mPresenterCreationExecutor != null) {
+                    // bindView is deferred until the presenter is created
+                    createPresenterAsync(recoveredPresenterId);
+                    return;
+                }
+                createPresenter(recoveredPresenterId);
+            }
 
-        if (config.isDistinctUntilChangedInterceptorEnabled()) {
-            addBindViewInterceptor(new DistinctUntilChangedInterceptor());
+            onPresenterAvailable();
+        } finally {
+            TiTracer.endSection();
         }
-
-        //noinspection unchecked
-        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
-                new UiThreadExecutorAutoBinder(mPresenter, mTiFragment.getUiThreadExecutor());
-
-        // bind ui thread to presenter when view is attached
-        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(uiThreadAutoBinder);
     }
 
     public void onDestroyView_beforeSuper() {
-        mPresenter.detachView();
+        if (mPresenter != null) {
+            // null while the presenter is created, the view isn't attached yet
+            mPresenter.detachView();
+        }
     }
 
     public void onDestroy_afterSuper() {
+        if (mPendingPresenter != null) {
+            // destroyed before the presenter got created, it will never be bound to a view
+            TiLog.v(mLogTag.getLoggingTag(), "discarding Presenter which is still being created");
+            mPendingPresenter.discard();
+            mPendingPresenter = null;
+            return;
+        }
 
         // unregister observer and don't leak it
         if (mUiThreadBinderRemovable != null) {
@@ -226,20 +259,94 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
         if (destroyPresenter) {
             mPresenter.destroy();
             mSavior.free(mPresenterId, mTiFragment.getHostingContainer());
+            deleteSnapshot(mPresenterId);
         } else {
             TiLog.v(mLogTag.getLoggingTag(), "not destroying " + mPresenter
                     + " which will be reused by a future Fragment instance");
         }
     }
 
+    /**
+     * lowers the {@link TiPresenter.DeliveryPriority}, the view is visible but not active
+     */
+    public void onPause_beforeSuper() {
+        if (mPresenter != null) {
+            mPresenter.setDeliveryPriority(TiPresenter.DeliveryPriority.LOW);
+        }
+    }
+
+    /**
+     * raises the {@link TiPresenter.DeliveryPriority}, delivering the throttled view actions
+     */
+    public void onResume_afterSuper() {
+        if (mPresenter != null) {
+            mPresenter.setDeliveryPriority(TiPresenter.DeliveryPriority.HIGH);
+        }
+    }
+
     public void onSaveInstanceState_afterSuper(final Bundle outState) {
-        outState.putString(SAVED_STATE_PRESENTER_ID, mPresenterId);
+        final PrefetchedPresenter pending = mPendingPresenter;
+        if (pending != null) {
+            // the background creation already consumed the snapshot, finish it to save the
+            // presenter id and a new snapshot. Waits when the creation is running
+            onPresenterCreated(pending);
+        }
+        if (mPresenterId != TiPresenterSavior.NO_ID) {
+            outState.putLong(SAVED_STATE_PRESENTER_ID, mPresenterId);
+            // an evicted presenter is destroyed, the next one starts without snapshot
+            if (mSnapshotStore != null && mPresenter != null
+                    && mPresenter.getState() != TiPresenter.State.INITIALIZED
+                    && !mPresenter.isDestroyed()
+                    && mPresenter.getConfig().isStateSnapshotEnabled()) {
+                mSnapshotStore.save(mPresenterId, mPresenter);
+            }
+        }
+    }
+
+    /**
+     * Adopts the prefetched presenter instead of calling
+     * {@link TiPresenterProvider#providePresenter()} when no presenter could be recovered. Call
+     * before {@link #onCreate_afterSuper(Bundle)}
+     *
+     * @see net.grandcentrix.thirtyinch.TiPresenterPrefetch
+     */
+    public void setPrefetchToken(final long token) {
+        mPrefetchToken = token;
+    }
+
+    /**
+     * Provides and creates new presenters on the {@code executor} instead of the main thread.
+     * {@link #getPresenter()} returns {@code null} until the presenter is created, the view gets
+     * bound afterwards. Call before {@link #onCreate_afterSuper(Bundle)}
+     *
+     * @param executor background executor, {@code null} to create presenters on the main thread
+     */
+    public void setPresenterCreationExecutor(@Nullable final Executor executor) {
+        mPresenterCreationExecutor = executor;
+    }
+
+    /**
+     * Enables {@link TiConfiguration#isStateSnapshotEnabled()} for presenters of this host, call
+     * before {@link #onCreate_afterSuper(Bundle)}
+     */
+    public void setSnapshotStore(@Nullable final PresenterSnapshotStore snapshotStore) {
+        mSnapshotStore = snapshotStore;
     }
 
     public void onStart_afterSuper() {
         mActivityStarted = true;
 
-        if (isUiPossible()) {
+        if (mPendingPresenter != null) {
+            // the view gets bound when the presenter is created
+            mStartedOnce = true;
+            return;
+        }
+
+        if (mPresenter.isDestroyed()) {
+            replaceEvictedPresenter();
+        }
+
+        if (isUiPossible() && !bindSynchronouslyOnFirstStart()) {
             mTiFragment.getUiThreadExecutor().execute(new Runnable() {
                 @Override
                 public void run() {
@@ -253,7 +360,9 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
 
     public void onStop_beforeSuper() {
         mActivityStarted = false;
-        mPresenter.detachView();
+        if (mPresenter != null) {
+            mPresenter.detachView();
+        }
     }
 
     @Override
@@ -268,8 +377,210 @@ public class TiFragmentDelegate<P extends TiPresenter<V>, V extends TiView>
                 + "{presenter=" + presenter + "}";
     }
 
+    /**
+     * takes the presenter prefetched for this host from the savior, the token is used only once
+     *
+     * @return {@code true} when a prefetched presenter was adopted
+     */
+    @SuppressWarnings("unchecked")
+    private boolean adoptPrefetchedPresenter() {
+        final long token = mPrefetchToken;
+        mPrefetchToken = TiPresenterSavior.NO_ID;
+        final P prefetched = (P) mSavior.adoptPrefetched(token);
+        if (prefetched == null) {
+            return false;
+        }
+        if (!prefetched.isInitialized()) {
+            throw new IllegalStateException("Prefetched presenter not in created state. "
+                    + "Current state is " + prefetched.getState() + ". "
+                    + "Don't use prefetched presenters before they get adopted!");
+        }
+        mPresenter = prefetched;
+        TiLog.v(mLogTag.getLoggingTag(), "adopted prefetched Presenter: " + mPresenter);
+        if (mPresenter.getConfig().shouldRetainPresenter()) {
+            mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
+        }
+        return true;
+    }
+
+    /**
+     * Binds the view right away on the first start of this host instance when
+     * {@link TiConfiguration#isSynchronousFirstBindEnabled()}. The view gets attached before the
+     * first frame is drawn instead of after everything already queued on the main thread.
+     * Later starts, i.e. when returning from the background, post the binding as usual.
+     *
+     * @return {@code true} when the view was bound
+     */
+    private boolean bindSynchronouslyOnFirstStart() {
+        final boolean firstStart = !mStartedOnce;
+        mStartedOnce = true;
+        if (!firstStart || !mPresenter.getConfig().isSynchronousFirstBindEnabled()) {
+            return false;
+        }
+        // onStop can't run before this call returns, no need to check mActivityStarted
+        mViewBinder.bindView(mPresenter, mViewProvider);
+        return true;
+    }
+
+    /**
+     * creates a new presenter with the {@link TiPresenterProvider} and saves it in the savior
+     * when it should be retained
+     *
+     * @param snapshotId id of the presenter whose snapshot should be restored,
+     *                   {@link TiPresenterSavior#NO_ID} for none
+     */
+    private void createPresenter(final long snapshotId) {
+        TiTracer.beginSection("TiPresenterProvider.providePresenter");
+        try {
+            mPresenter = mPresenterProvider.providePresenter();
+        } finally {
+            TiTracer.endSection();
+        }
+        if (mPresenter.getState() != TiPresenter.State.INITIALIZED) {
+            throw new IllegalStateException("Presenter not in initialized state. "
+                    + "Current state is " + mPresenter.getState() + ". "
+                    + "Presenter provided with #providePresenter() cannot be reused. "
+                    + "Always return a fresh instance!");
+        }
+        TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
+        restoreSnapshot(snapshotId, mPresenter);
+        if (mPresenter.getConfig().shouldRetainPresenter()) {
+            mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
+            // available in onCreate
+            mPresenter.setHostCache(mSavior.getHostCache(mTiFragment.getHostingContainer()));
+        }
+        mPresenter.create();
+    }
+
+    /**
+     * provides and creates a new presenter on the {@link #mPresenterCreationExecutor}, continues
+     * in {@link #onPresenterCreated(PrefetchedPresenter)} on the main thread
+     *
+     * @param snapshotId id of the presenter whose snapshot should be restored,
+     *                   {@link TiPresenterSavior#NO_ID} for none
+     */
+    private void createPresenterAsync(final long snapshotId) {
+        final Object host = mTiFragment.getHostingContainer();
+        final PrefetchedPresenter pending = new PrefetchedPresenter(new TiPresenterProvider<P>() {
+            @NonNull
+            @Override
+            public P providePresenter() {
+                TiTracer.beginSection("TiPresenterProvider.providePresenter");
+                try {
+                    final P presenter = mPresenterProvider.providePresenter();
+                    if (presenter.getState() == TiPresenter.State.INITIALIZED) {
+                        restoreSnapshot(snapshotId, presenter);
+                        if (presenter.getConfig().shouldRetainPresenter()) {
+                            // available in onCreate, the savior can be used from any thread
+                            presenter.setHostCache(mSavior.getHostCache(host));
+                        }
+                    }
+                    return presenter;
+                } finally {
+                    TiTracer.endSection();
+                }
+            }
+        });
+        mPendingPresenter = pending;
+        TiLog.v(mLogTag.getLoggingTag(), "creating Presenter in background");
+
+        final Executor uiThreadExecutor = mTiFragment.getUiThreadExecutor();
+        mPresenterCreationExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                pending.run();
+                uiThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPresenterCreated(pending);
+                    }
+                });
+            }
+        });
+    }
+
+    private void deleteSnapshot(final long presenterId) {
+        if (mSnapshotStore != null && presenterId != TiPresenterSavior.NO_ID
+                && mPresenter.getConfig().isStateSnapshotEnabled()) {
+            mSnapshotStore.delete(presenterId);
+        }
+    }
+
     private boolean isUiPossible() {
         return mTiFragment.isFragmentAdded() && !mTiFragment.isFragmentDetached();
     }
 
+    /**
+     * adds the interceptors of the presenter configuration, sets the host cache and binds the ui
+     * thread, called once {@link #mPresenter} is available
+     */
+    private void onPresenterAvailable() {
+        addBindViewInterceptors(BuiltInInterceptors.of(mPresenter.getConfig()));
+        if (mPresenter.getConfig().shouldRetainPresenter()) {
+            // recovered presenters share the cache of the new host instance
+            mPresenter.setHostCache(mSavior.getHostCache(mTiFragment.getHostingContainer()));
+        }
+
+        //noinspection unchecked
+        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
+                new UiThreadExecutorAutoBinder(mPresenter, mTiFragment.getUiThreadExecutor());
+
+        // bind ui thread to presenter when view is attached
+        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(uiThreadAutoBinder);
+    }
+
+    /**
+     * The presenter created by {@link #createPresenterAsync(long)} is available. Binds the view
+     * when already started.
+     */
+    @SuppressWarnings("unchecked")
+    private void onPresenterCreated(final PrefetchedPresenter pending) {
+        if (mPendingPresenter != pending) {
+            // discarded in onDestroy
+            return;
+        }
+        mPendingPresenter = null;
+        // rethrows creation failures on the main thread
+        mPresenter = (P) pending.adopt();
+        TiLog.v(mLogTag.getLoggingTag(), "created Presenter: " + mPresenter);
+        if (mPresenter.getConfig().shouldRetainPresenter()) {
+            mPresenterId = mSavior.save(mPresenter, mTiFragment.getHostingContainer());
+        }
+        onPresenterAvailable();
+
+        if (mActivityStarted && isUiPossible()) {
+            mViewBinder.bindView(mPresenter, mViewProvider);
+        }
+    }
+
+    /**
+     * The presenter got evicted by the {@link PresenterSavior} while the Fragment was in the
+     * background. Continues with a new presenter instance.
+     */
+    private void replaceEvictedPresenter() {
+        TiLog.v(mLogTag.getLoggingTag(), "presenter was evicted, creating a new one " + mPresenter);
+        // the snapshot was written before the presenter got evicted, it is outdated
+        deleteSnapshot(mPresenterId);
+        mPresenter = null;
+        mPresenterId = TiPresenterSavior.NO_ID;
+        createPresenter(TiPresenterSavior.NO_ID);
+
+        // interceptors may have cached calls to the view made by the evicted presenter
+        mViewBinder.invalidateView();
+
+        //noinspection unchecked
+        final UiThreadExecutorAutoBinder uiThreadAutoBinder =
+                new UiThreadExecutorAutoBinder(mPresenter, mTiFragment.getUiThreadExecutor());
+        mUiThreadBinderRemovable = mPresenter.addLifecycleObserver(uiThreadAutoBinder);
+    }
+
+    /**
+     * restores the snapshot saved with {@code snapshotId} into the not yet created presenter
+     */
+    private void restoreSnapshot(final long snapshotId, final P presenter) {
+        if (snapshotId != TiPresenterSavior.NO_ID && mSnapshotStore != null
+                && presenter.getConfig().isStateSnapshotEnabled()) {
+            mSnapshotStore.restore(snapshotId, presenter);
+        }
+    }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import android.app.Activity;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import net.grandcentrix.thirtyinch.TiHostCache;
 import net.grandcentrix.thirtyinch.TiPresenter;
 
 /**
@@ -28,13 +29,40 @@ import net.grandcentrix.thirtyinch.TiPresenter;
  */
 public interface TiPresenterSavior {
 
+    /**
+     * Id which is never assigned to a presenter or host. Used when no id is available, i.e. for
+     * presenters which are not retained.
+     */
+    long NO_ID = 0;
+
+    /**
+     * Takes a presenter created ahead of the navigation to its host, see
+     * {@link PresenterSavior#prefetch(TiPresenterProvider, java.util.concurrent.Executor)}.
+     * Waits when the creation is still running.
+     *
+     * @param token the token returned when the prefetch started
+     * @return the created presenter or {@code null} when no presenter was prefetched with this
+     * token or it was already adopted or discarded
+     */
+    @Nullable
+    TiPresenter adoptPrefetched(long token);
+
     /**
      * Frees a certain presenter from the store.
      *
      * @param presenterId the id of the presenter
      * @param host        host of the presenter, see {@link #save(TiPresenter, Object)}
      */
-    void free(String presenterId, @NonNull Object host);
+    void free(long presenterId, @NonNull Object host);
+
+    /**
+     * Gets the values shared by all presenters of a host. The cache lives as long as the host
+     * and is cleared when the host finishes.
+     *
+     * @param host host of the presenters, see {@link #save(TiPresenter, Object)}
+     */
+    @NonNull
+    TiHostCache getHostCache(@NonNull Object host);
 
     /**
      * Gets a presenter from the store.
@@ -44,7 +72,7 @@ public interface TiPresenterSavior {
      * @return the presenter of {@code null} if no presenter could be found
      */
     @Nullable
-    TiPresenter recover(String presenterId, @NonNull Object host);
+    TiPresenter recover(long presenterId, @NonNull Object host);
 
     /**
      * Stores a presenter in the store for a given host. When the host gets destroyed the presenter
@@ -53,7 +81,7 @@ public interface TiPresenterSavior {
      *
      * @param presenter the presenter that should be stored
      * @param host      host of the presenter
-     * @return the id of the stored presenter
+     * @return the id of the stored presenter, never {@link #NO_ID}
      */
-    String save(@NonNull TiPresenter presenter, @NonNull Object host);
+    long save(@NonNull TiPresenter presenter, @NonNull Object host);
 }
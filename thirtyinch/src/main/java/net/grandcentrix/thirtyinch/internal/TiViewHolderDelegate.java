@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.Removable;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiLog;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiPresenterPool;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
+
+/**
+ * Hosts the presenter of a {@code RecyclerView} item. Forward the adapter callbacks of a
+ * {@code ViewHolder} to this delegate, it attaches the view while the item is bound and attached
+ * to the window.
+ * <code>
+ * <pre>
+ * class ItemHolder extends RecyclerView.ViewHolder implements ItemView {
+ *     final TiViewHolderDelegate&lt;ItemPresenter, ItemView&gt; delegate =
+ *             new TiViewHolderDelegate&lt;&gt;(this);
+ * }
+ *
+ * // Adapter
+ * public void onBindViewHolder(ItemHolder holder, int position) {
+ *     final ItemPresenter presenter = pool.acquire();
+ *     presenter.setItem(items.get(position));
+ *     // the presenter of the previous item, i.e. after notifyItemChanged()
+ *     final ItemPresenter replaced = holder.delegate.bind(presenter);
+ *     if (replaced != null) {
+ *         pool.release(replaced);
+ *     }
+ * }
+ *
+ * public void onViewAttachedToWindow(ItemHolder holder) {
+ *     holder.delegate.onViewAttachedToWindow();
+ * }
+ *
+ * public void onViewDetachedFromWindow(ItemHolder holder) {
+ *     holder.delegate.onViewDetachedFromWindow();
+ * }
+ *
+ * public void onViewRecycled(ItemHolder holder) {
+ *     pool.release(holder.delegate.unbind());
+ * }
+ * </pre>
+ * </code>
+ * Unlike {@link TiActivityDelegate} and {@link TiFragmentDelegate} items don't survive
+ * configuration changes, the delegate doesn't use the {@link PresenterSavior} nor the
+ * savedInstanceState. The presenters are owned by the adapter, usually by a
+ * {@link TiPresenterPool}. The interceptors enabled by the {@link TiConfiguration} of the
+ * presenter are shared by all items and intercept the view once per holder.
+ * <p>
+ * Not thread safe, use it on the main thread.
+ * </p>
+ */
+public class TiViewHolderDelegate<P extends TiPresenter<V>, V extends TiView>
+        implements InterceptableViewBinder<V>, PresenterAccessor<P, V> {
+
+    private static final String TAG = TiViewHolderDelegate.class.getSimpleName();
+
+    private boolean mAttachedToWindow = false;
+
+    /**
+     * the configuration the built-in interceptors were added for
+     */
+    private TiConfiguration mBuiltInConfig;
+
+    private Removable mBuiltInRemovable;
+
+    private P mPresenter;
+
+    private Removable mUiThreadBinderRemovable;
+
+    private final Executor mUiThreadExecutor;
+
+    private final PresenterViewBinder<V> mViewBinder;
+
+    private final TiViewProvider<V> mViewProvider;
+
+    /**
+     * @param view the view of the item, usually the {@code ViewHolder} itself
+     */
+    public TiViewHolderDelegate(@NonNull final V view) {
+        this(new TiViewProvider<V>() {
+            @NonNull
+            @Override
+            public V provideView() {
+                return view;
+            }
+        });
+    }
+
+    public TiViewHolderDelegate(@NonNull final TiViewProvider<V> viewProvider) {
+        this(viewProvider, new UiThreadExecutor());
+    }
+
+    /**
+     * @param uiThreadExecutor executes the ui interactions of the bound presenter, i.e.
+     *                         {@link TiPresenter#sendToView(ViewAction)}
+     */
+    public TiViewHolderDelegate(@NonNull final TiViewProvider<V> viewProvider,
+            @NonNull final Executor uiThreadExecutor) {
+        mViewProvider = viewProvider;
+        mUiThreadExecutor = uiThreadExecutor;
+        mViewBinder = new PresenterViewBinder<>(new TiLoggingTagProvider() {
+            @Override
+            public String getLoggingTag() {
+                return TAG;
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Removable addBindViewInterceptor(@NonNull final BindViewInterceptor interceptor) {
+        return mViewBinder.addBindViewInterceptor(interceptor);
+    }
+
+    @NonNull
+    @Override
+    public Removable addBindViewInterceptors(
+            @NonNull final Collection<? extends BindViewInterceptor> interceptors) {
+        return mViewBinder.addBindViewInterceptors(interceptors);
+    }
+
+    /**
+     * Shows the item of the {@code presenter} in this holder, call in
+     * {@code Adapter#onBindViewHolder}. The presenter of the previous item gets detached like
+     * {@link #unbind()} does and is returned, release it. The view gets attached right away when
+     * the holder is already attached to the window.
+     *
+     * @param presenter a created presenter without view
+     * @return the replaced presenter of the previous item, {@code null} when no other item was
+     * bound
+     */
+    @Nullable
+    public P bind(@NonNull final P presenter) {
+        if (presenter == mPresenter) {
+            return null;
+        }
+        // the view of the previous holder of this presenter won't come back
+        presenter.finishPendingDetach();
+        if (presenter.isViewAttached()) {
+            throw new IllegalStateException(
+                    "Presenter " + presenter + " is already bound to another view");
+        }
+        if (!presenter.isInitialized()) {
+            throw new IllegalStateException("Presenter in state " + presenter.getState()
+                    + " can't be bound, call create() first");
+        }
+
+        final P replaced = unbind();
+        mPresenter = presenter;
+        mUiThreadBinderRemovable = presenter.addLifecycleObserver(
+                new UiThreadExecutorAutoBinder(presenter, mUiThreadExecutor));
+        addBuiltInInterceptors(presenter.getConfig());
+        // the view shows the previous item, calls with equal arguments must reach it
+        BuiltInInterceptors.DISTINCT_UNTIL_CHANGED.clearCache(this);
+
+        if (mAttachedToWindow) {
+            mViewBinder.bindView(mPresenter, mViewProvider);
+        }
+        return replaced;
+    }
+
+    @Nullable
+    @Override
+    public V getInterceptedViewOf(@NonNull final BindViewInterceptor interceptor) {
+        return mViewBinder.getInterceptedViewOf(interceptor);
+    }
+
+    @NonNull
+    @Override
+    public List<BindViewInterceptor> getInterceptors(
+            @NonNull final Filter<BindViewInterceptor> predicate) {
+        return mViewBinder.getInterceptors(predicate);
+    }
+
+    /**
+     * @return the presenter of the bound item, {@code null} when no item is bound
+     */
+    @Nullable
+    @Override
+    public P getPresenter() {
+        return mPresenter;
+    }
+
+    @Override
+    public void invalidateView() {
+        mViewBinder.invalidateView();
+    }
+
+    /**
+     * call in {@code Adapter#onViewAttachedToWindow}
+     */
+    public void onViewAttachedToWindow() {
+        mAttachedToWindow = true;
+        if (mPresenter != null && !mPresenter.isViewAttached()) {
+            mViewBinder.bindView(mPresenter, mViewProvider);
+        }
+    }
+
+    /**
+     * call in {@code Adapter#onViewDetachedFromWindow}
+     */
+    public void onViewDetachedFromWindow() {
+        mAttachedToWindow = false;
+        if (mPresenter != null) {
+            mPresenter.detachView();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return TAG + "{presenter=" + mPresenter + ", attachedToWindow=" + mAttachedToWindow + "}";
+    }
+
+    /**
+     * Detaches the view from the presenter of the bound item, call in
+     * {@code Adapter#onViewRecycled}.
+     *
+     * @return the presenter of the previous item to release it, {@code null} when no item was
+     * bound
+     */
+    @Nullable
+    public P unbind() {
+        final P presenter = mPresenter;
+        if (presenter != null) {
+            presenter.detachView();
+            // the next item is shown by another presenter, don't wait for this view to return
+            presenter.finishPendingDetach();
+            mUiThreadBinderRemovable.remove();
+            mUiThreadBinderRemovable = null;
+            mPresenter = null;
+            TiLog.v(TAG, "unbound " + presenter);
+        }
+        return presenter;
+    }
+
+    /**
+     * adds the interceptors enabled by the configuration, replaces the interceptors of a previous
+     * presenter with a different configuration
+     */
+    private void addBuiltInInterceptors(final TiConfiguration config) {
+        if (mBuiltInRemovable != null) {
+            if (mBuiltInConfig.isCallOnMainThreadInterceptorEnabled()
+                    == config.isCallOnMainThreadInterceptorEnabled()
+                    && mBuiltInConfig.isDistinctUntilChangedInterceptorEnabled()
+                    == config.isDistinctUntilChangedInterceptorEnabled()) {
+                // usually all item presenters have the same configuration
+                return;
+            }
+            mBuiltInRemovable.remove();
+        }
+        mBuiltInConfig = config;
+        mBuiltInRemovable = mViewBinder.addBindViewInterceptors(BuiltInInterceptors.of(config));
+    }
+}
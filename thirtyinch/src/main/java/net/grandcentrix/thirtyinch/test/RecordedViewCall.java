@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.test;
+
+import androidx.annotation.NonNull;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
+
+/**
+ * A single {@link TiView} method call captured by {@link TiViewRecorder}. It can be replayed
+ * against any implementation of the same view interface as a regular {@link ViewAction}.
+ */
+public final class RecordedViewCall<V extends TiView> implements ViewAction<V> {
+
+    private final Object[] mArgs;
+
+    private final Method mMethod;
+
+    private final long mOffsetNanos;
+
+    RecordedViewCall(@NonNull final Method method, @NonNull final Object[] args,
+            final long offsetNanos) {
+        mMethod = method;
+        mArgs = args;
+        mOffsetNanos = offsetNanos;
+    }
+
+    /**
+     * invokes the recorded method with the recorded arguments on the given view
+     */
+    @Override
+    public void call(final V view) {
+        try {
+            mMethod.invoke(view, mArgs);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can't replay " + mMethod, e);
+        }
+    }
+
+    /**
+     * @return a copy of the arguments the method was called with
+     */
+    @NonNull
+    public Object[] getArgs() {
+        return mArgs.clone();
+    }
+
+    @NonNull
+    public Method getMethod() {
+        return mMethod;
+    }
+
+    /**
+     * @return the time in nanoseconds between the first recorded call and this call
+     */
+    public long getOffsetNanos() {
+        return mOffsetNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordedViewCall{"
+                + mMethod.getName() + Arrays.toString(mArgs)
+                + " @" + mOffsetNanos + "ns}";
+    }
+}
@@ -24,7 +24,8 @@ import net.grandcentrix.thirtyinch.ViewAction;
 /**
  * Simplifies testing by calling the presenter lifecycle methods automatically in the correct
  * order. It also sets the ui thread Executors which allows the usage of
- * {@link TiPresenter#sendToView(ViewAction)} in unit test.
+ * {@link TiPresenter#sendToView(ViewAction)} and {@link TiPresenter#sendToViewWhenIdle(ViewAction)}
+ * in unit test.
  * <code>
  * <pre>
  *    &#64;Test
@@ -58,7 +59,8 @@ import net.grandcentrix.thirtyinch.ViewAction;
  * <p>
  * The problem is that {@link TiPresenter#sendToView(ViewAction)} needs a ui executor thread.
  * Unfortunately a ui executor thread isn't available in unit test. Instead a mock implementation
- * is provided which executes the actions immediately on the testing thread.
+ * is provided which executes the actions immediately on the testing thread. Idle actions are
+ * executed immediately as well, or when the next view gets attached.
  * </p>
  * <p>
  * This {@link TiTestPresenter} holds the {@link TiPresenter} under test.
@@ -66,10 +68,22 @@ import net.grandcentrix.thirtyinch.ViewAction;
  */
 public class TiTestPresenter<V extends TiView> {
 
+    /**
+     * executes actions immediately on the same thread
+     */
+    private static final Executor IMMEDIATE = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable action) {
+            action.run();
+        }
+    };
+
     private TiPresenter<V> mPresenter;
 
     public TiTestPresenter(final TiPresenter<V> presenter) {
         mPresenter = presenter;
+        // the idle phases of the main thread aren't available in unit tests
+        mPresenter.setIdleExecutor(IMMEDIATE);
     }
 
     /**
@@ -80,13 +94,7 @@ public class TiTestPresenter<V extends TiView> {
     public V attachView(final V view) {
         detachView();
 
-        // execute actions immediately on the same thread
-        mPresenter.setUiThreadExecutor(new Executor() {
-            @Override
-            public void execute(@NonNull final Runnable action) {
-                action.run();
-            }
-        });
+        mPresenter.setUiThreadExecutor(IMMEDIATE);
         mPresenter.attachView(view);
         return view;
     }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.test;
+
+import androidx.annotation.NonNull;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.util.AbstractInvocationHandler;
+
+/**
+ * Captures all calls a {@link TiPresenter} makes to its {@link TiView} during a session. The
+ * resulting {@link TiViewRecording} can be replayed against a real or fake view implementation
+ * to benchmark the view without the presenter logic or any backend.
+ * <code>
+ * <pre>
+ *    &#64;Test
+ *    public void recordLogin() throws Exception {
+ *        final TiViewRecorder&lt;LoginView&gt; recorder = new TiViewRecorder&lt;&gt;(LoginView.class);
+ *        final TiTestPresenter&lt;LoginView&gt; testPresenter = new LoginPresenter().test();
+ *        testPresenter.attachView(recorder.record(mock(LoginView.class)));
+ *        // ... drive the presenter
+ *
+ *        final TiViewRecording&lt;LoginView&gt; recording = recorder.getRecording();
+ *        final TiViewRecording.ReplayResult result = recording.replay(new FakeLoginView());
+ *    }
+ * </pre>
+ * </code>
+ * <p>
+ * Calls to the methods of {@link Object} are not recorded. Arguments are stored by reference,
+ * mutable arguments changed after the call will be replayed with their latest state.
+ * </p>
+ */
+public class TiViewRecorder<V extends TiView> {
+
+    private final class RecordingInvocationHandler extends AbstractInvocationHandler {
+
+        private final V mView;
+
+        RecordingInvocationHandler(final V view) {
+            mView = view;
+        }
+
+        @Override
+        public String toString() {
+            return "RecordingProxy@" + Integer.toHexString(hashCode()) + "-" + mView;
+        }
+
+        @Override
+        protected Object handleInvocation(final Object proxy, final Method method,
+                final Object[] args) throws Throwable {
+            if (method.getDeclaringClass() != Object.class) {
+                onCall(method, args);
+            }
+            try {
+                return method.invoke(mView, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private final List<RecordedViewCall<V>> mCalls = new ArrayList<>();
+
+    /**
+     * {@link System#nanoTime()} of the first recorded call
+     */
+    private long mStartNanos;
+
+    private final Class<V> mViewInterface;
+
+    /**
+     * @param viewInterface the {@link TiView} interface which should be recorded
+     */
+    public TiViewRecorder(@NonNull final Class<V> viewInterface) {
+        if (!viewInterface.isInterface()) {
+            throw new IllegalArgumentException(viewInterface + " is not an interface");
+        }
+        mViewInterface = viewInterface;
+    }
+
+    /**
+     * discards all recorded calls. The next call will be recorded with an offset of {@code 0}
+     */
+    public synchronized void clear() {
+        mCalls.clear();
+    }
+
+    /**
+     * @return a snapshot of all calls recorded so far
+     */
+    @NonNull
+    public synchronized TiViewRecording<V> getRecording() {
+        return new TiViewRecording<>(mCalls);
+    }
+
+    /**
+     * Wraps the view in a proxy recording every call before it gets forwarded to the
+     * {@code view}. Attach the returned view to the presenter.
+     *
+     * @param view receives all calls, i.e. a mock or a fake implementation
+     * @return the recording view
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public V record(@NonNull final V view) {
+        return (V) Proxy.newProxyInstance(mViewInterface.getClassLoader(),
+                new Class<?>[]{mViewInterface}, new RecordingInvocationHandler(view));
+    }
+
+    private synchronized void onCall(final Method method, final Object[] args) {
+        final long now = System.nanoTime();
+        if (mCalls.isEmpty()) {
+            mStartNanos = now;
+        }
+        mCalls.add(new RecordedViewCall<V>(method, args.clone(), now - mStartNanos));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.test;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiView;
+
+/**
+ * Immutable sequence of {@link RecordedViewCall}s captured by {@link TiViewRecorder}. Replaying a
+ * recording executes the same view calls in the same order against another view implementation,
+ * without the presenter or any backend involved. This allows measuring the rendering cost of a
+ * view in isolation.
+ * <code>
+ * <pre>
+ *    final TiViewRecording&lt;LoginView&gt; recording = recorder.getRecording();
+ *    final TiViewRecording.ReplayResult result = recording.replay(new FakeLoginView());
+ *    System.out.println(result.getCallsPerSecond() + " calls/s");
+ * </pre>
+ * </code>
+ */
+public final class TiViewRecording<V extends TiView> {
+
+    /**
+     * Defines how fast a {@link TiViewRecording} will be replayed
+     */
+    public enum Pacing {
+        /**
+         * all calls are executed immediately one after another
+         */
+        FULL_SPEED,
+        /**
+         * calls are executed with the same delays they have been recorded with
+         */
+        ORIGINAL
+    }
+
+    /**
+     * Statistics of a single {@link #replay(TiView, Pacing)} run
+     */
+    public static final class ReplayResult {
+
+        private final int mCallCount;
+
+        private final long mElapsedNanos;
+
+        ReplayResult(final int callCount, final long elapsedNanos) {
+            mCallCount = callCount;
+            mElapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of replayed calls
+         */
+        public int getCallCount() {
+            return mCallCount;
+        }
+
+        /**
+         * @return replayed calls per second, {@code 0} when nothing was replayed
+         */
+        public double getCallsPerSecond() {
+            if (mCallCount == 0 || mElapsedNanos <= 0) {
+                return 0;
+            }
+            return mCallCount * (double) TimeUnit.SECONDS.toNanos(1) / mElapsedNanos;
+        }
+
+        /**
+         * @return wall time in nanoseconds spent replaying the calls
+         */
+        public long getElapsedNanos() {
+            return mElapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "ReplayResult{"
+                    + "calls=" + mCallCount
+                    + ", elapsed=" + mElapsedNanos + "ns"
+                    + ", callsPerSecond=" + getCallsPerSecond()
+                    + "}";
+        }
+    }
+
+    private final List<RecordedViewCall<V>> mCalls;
+
+    TiViewRecording(@NonNull final List<RecordedViewCall<V>> calls) {
+        mCalls = Collections.unmodifiableList(new ArrayList<>(calls));
+    }
+
+    /**
+     * @return all recorded calls in the order they have been recorded
+     */
+    @NonNull
+    public List<RecordedViewCall<V>> getCalls() {
+        return mCalls;
+    }
+
+    /**
+     * @return time in nanoseconds between the first and the last recorded call
+     */
+    public long getDurationNanos() {
+        if (mCalls.isEmpty()) {
+            return 0;
+        }
+        return mCalls.get(mCalls.size() - 1).getOffsetNanos();
+    }
+
+    public boolean isEmpty() {
+        return mCalls.isEmpty();
+    }
+
+    /**
+     * replays all recorded calls at {@link Pacing#FULL_SPEED}
+     *
+     * @see #replay(TiView, Pacing)
+     */
+    @NonNull
+    public ReplayResult replay(@NonNull final V view) {
+        return replay(view, Pacing.FULL_SPEED);
+    }
+
+    /**
+     * Replays all recorded calls on the calling thread against the given view.
+     * <p>
+     * When the calling thread gets interrupted while waiting for the next call with
+     * {@link Pacing#ORIGINAL} the replay stops and the result contains only the calls executed so
+     * far.
+     *
+     * @param view   the view receiving the calls, i.e. a real view implementation or a fake
+     * @param pacing how fast the calls should be replayed
+     * @return statistics of this replay run
+     */
+    @NonNull
+    public ReplayResult replay(@NonNull final V view, @NonNull final Pacing pacing) {
+        final long start = System.nanoTime();
+        int replayed = 0;
+        for (int i = 0; i < mCalls.size(); i++) {
+            final RecordedViewCall<V> call = mCalls.get(i);
+            if (pacing == Pacing.ORIGINAL && !awaitOffset(start, call.getOffsetNanos())) {
+                break;
+            }
+            call.call(view);
+            replayed++;
+        }
+        return new ReplayResult(replayed, System.nanoTime() - start);
+    }
+
+    public int size() {
+        return mCalls.size();
+    }
+
+    @Override
+    public String toString() {
+        return "TiViewRecording{"
+                + "calls=" + mCalls.size()
+                + ", duration=" + getDurationNanos() + "ns"
+                + "}";
+    }
+
+    /**
+     * blocks until {@code offsetNanos} have passed since {@code start}
+     *
+     * @return {@code false} when interrupted
+     */
+    private static boolean awaitOffset(final long start, final long offsetNanos) {
+        long remaining = offsetNanos - (System.nanoTime() - start);
+        while (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            remaining = offsetNanos - (System.nanoTime() - start);
+        }
+        return true;
+    }
+}
@@ -1,59 +1,45 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
 package net.grandcentrix.thirtyinch.util;
 
+import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.lang.reflect.Field;
 
 /**
- * Reads package private information about the {@link FragmentManager} backstack
+ * Reads information about the {@link FragmentManager} backstack
  *
- * Thanks Hannes ;)
+ * @deprecated use {@link BackstackTracker}, this class only delegates to it
  */
+@Deprecated
 public class BackstackReader {
 
     /**
-     * Checks whether or not a given fragment is on the backstack of the fragment manager (could
-     * also be on top of the backstack and hence visible)
+     * Checks whether or not a given fragment is on the backstack of the fragment manager
      *
      * @param fragment The fragment you want to check if its on the back stack
-     * @return true, if the given Fragment is on the back stack, otherwise false (not on the back
-     * stack)
-     *
-     * Hacky workaround because Fragment#isInBackStack is inaccessible with AndroidX
-     */
-    public static boolean isInBackStack(final Fragment fragment) {
-        return isInBackStackAndroidX120(fragment);
-    }
-
-    /**
-     * Implementation which worked with AndroidX Fragment 1.1.0 and should be working again from 1.2.1:
-     * https://issuetracker.google.com/issues/148189412
-     */
-    private static boolean isInBackStackAndroidXOld(final Fragment fragment) {
-        final StringWriter writer = new StringWriter();
-        fragment.dump("", null, new PrintWriter(writer), null);
-        final String dump = writer.toString();
-        return !dump.contains("mBackStackNesting=0");
-    }
-
-    /**
-     * Temporary hack for the hack ;) because in AndroidX Fragment 1.2.0 the original `fragment.dump` hack stopped working:
-     * https://github.com/sockeqwe/mosby/issues/318#issuecomment-577660091
-     *
-     * Uses reflection, so should be removed once AndroidX Fragment 1.2.1 is released.
+     * @return true, if the given Fragment is removed and on the back stack, otherwise false.
+     * Always false for fragments created before the {@link BackstackTracker} of their
+     * {@link FragmentManager} got installed, {@code TiFragment} installs it in {@code onCreate}
+     * @deprecated use {@link BackstackTracker#isInBackStack(Fragment)}
      */
-    private static boolean isInBackStackAndroidX120(final Fragment fragment) {
-        try {
-            final Field backStackNestingField = Fragment.class.getDeclaredField("mBackStackNesting");
-            backStackNestingField.setAccessible(true);
-            final int backStackNesting = backStackNestingField.getInt(fragment);
-            return backStackNesting > 0;
-        } catch (NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+    @Deprecated
+    public static boolean isInBackStack(@NonNull final Fragment fragment) {
+        final FragmentManager fragmentManager = fragment.getFragmentManager();
+        return fragmentManager != null
+                && BackstackTracker.getInstance(fragmentManager).isInBackStack(fragment);
     }
 }
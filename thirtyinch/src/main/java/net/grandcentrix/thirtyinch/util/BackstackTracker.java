@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Tracks which fragments of a {@link FragmentManager} are removed but kept by the back stack,
+ * using the public {@link FragmentManager.FragmentLifecycleCallbacks} and
+ * {@link FragmentManager.OnBackStackChangedListener} APIs instead of reading the package private
+ * {@code Fragment#mBackStackNesting}.
+ * <p>
+ * A fragment removed without the back stack gets destroyed while its transaction executes. A
+ * fragment which is still removing when a transaction got added to the back stack is kept by the
+ * back stack until that transaction gets popped and adds it again. Fragments removing while the
+ * back stack gets popped were added by the popped transaction, they get destroyed after their
+ * exit animation. The entries are told apart by their
+ * {@link FragmentManager.BackStackEntry#getId() ids}, a pop and a push executed together are
+ * detected, too. Fragments restored by the back stack are kept until they get added again or
+ * destroyed.
+ * </p>
+ * Only fragments created after the tracker got installed are tracked. All methods have to be
+ * called on the main thread.
+ */
+public class BackstackTracker {
+
+    private static final Map<FragmentManager, BackstackTracker> TRACKERS = new WeakHashMap<>();
+
+    /**
+     * the back stack entry which removed a restored fragment is unknown
+     */
+    private static final int UNKNOWN_ENTRY = -1;
+
+    /**
+     * fragments added at the last change
+     */
+    private Set<Fragment> mAdded = new HashSet<>();
+
+    /**
+     * fragments added by a transaction on the back stack, mapped to the id of its entry. Popping
+     * that entry removes them again
+     */
+    private final Map<Fragment, Integer> mAddedBy = new HashMap<>();
+
+    /**
+     * {@link FragmentManager.BackStackEntry#getId() ids} of the back stack entries of the last
+     * change, detects which entries got popped and pushed
+     */
+    private Set<Integer> mBackStackEntryIds;
+
+    @VisibleForTesting
+    final FragmentManager.OnBackStackChangedListener mBackStackListener
+            = new FragmentManager.OnBackStackChangedListener() {
+        @Override
+        public void onBackStackChanged() {
+            final FragmentManager fragmentManager = mFragmentManager.get();
+            if (fragmentManager == null) {
+                return;
+            }
+            final Set<Integer> ids = readBackStackEntryIds(fragmentManager);
+            final Set<Integer> popped = new HashSet<>(mBackStackEntryIds);
+            popped.removeAll(ids);
+            // a pop and a push can be executed together, the top most new entry got pushed
+            int pushed = UNKNOWN_ENTRY;
+            for (int i = fragmentManager.getBackStackEntryCount() - 1; i >= 0; i--) {
+                final int id = fragmentManager.getBackStackEntryAt(i).getId();
+                if (!mBackStackEntryIds.contains(id)) {
+                    pushed = id;
+                    break;
+                }
+            }
+            mBackStackEntryIds = ids;
+
+            // the popped transactions added their removed fragments again
+            mInBackStack.values().removeAll(popped);
+
+            final Set<Fragment> added = new HashSet<>();
+            for (final Fragment fragment : mFragments) {
+                if (fragment.isAdded()) {
+                    added.add(fragment);
+                    mInBackStack.remove(fragment);
+                    if (!mAdded.contains(fragment)) {
+                        if (pushed != UNKNOWN_ENTRY) {
+                            mAddedBy.put(fragment, pushed);
+                        } else {
+                            mAddedBy.remove(fragment);
+                        }
+                    }
+                    continue;
+                }
+                final Integer addedBy = mAddedBy.remove(fragment);
+                if (pushed == UNKNOWN_ENTRY || !fragment.isRemoving()
+                        || mInBackStack.containsKey(fragment)) {
+                    continue;
+                }
+                if (addedBy != null && popped.contains(addedBy)) {
+                    // removed by popping the transaction which added it
+                    continue;
+                }
+                mInBackStack.put(fragment, pushed);
+            }
+            mAdded = added;
+        }
+    };
+
+    /**
+     * fragments created and not yet destroyed
+     */
+    private final Set<Fragment> mFragments = new HashSet<>();
+
+    /**
+     * weak, the trackers are weak keyed by their {@link FragmentManager}
+     */
+    private final WeakReference<FragmentManager> mFragmentManager;
+
+    /**
+     * fragments removed but kept by the back stack, mapped to the id of the back stack entry
+     * which removed them or {@link #UNKNOWN_ENTRY} for restored fragments
+     */
+    private final Map<Fragment, Integer> mInBackStack = new HashMap<>();
+
+    @VisibleForTesting
+    final FragmentManager.FragmentLifecycleCallbacks mLifecycleCallbacks
+            = new FragmentManager.FragmentLifecycleCallbacks() {
+        @Override
+        public void onFragmentCreated(@NonNull final FragmentManager fm,
+                @NonNull final Fragment fragment, @Nullable final Bundle savedInstanceState) {
+            mFragments.add(fragment);
+            if (savedInstanceState != null) {
+                mBackStackEntryIds = readBackStackEntryIds(fm);
+                if (fragment.isAdded()) {
+                    mAdded.add(fragment);
+                } else if (fragment.isRemoving()) {
+                    // restored by the back stack, kept until an entry adds it again
+                    mInBackStack.put(fragment, UNKNOWN_ENTRY);
+                }
+            }
+        }
+
+        @Override
+        public void onFragmentDestroyed(@NonNull final FragmentManager fm,
+                @NonNull final Fragment fragment) {
+            mFragments.remove(fragment);
+            mAdded.remove(fragment);
+            mAddedBy.remove(fragment);
+            mInBackStack.remove(fragment);
+        }
+    };
+
+    /**
+     * @return the tracker of the {@code fragmentManager}, registers it when called the first time
+     */
+    @NonNull
+    public static synchronized BackstackTracker getInstance(
+            @NonNull final FragmentManager fragmentManager) {
+        BackstackTracker tracker = TRACKERS.get(fragmentManager);
+        if (tracker == null) {
+            tracker = new BackstackTracker(fragmentManager);
+            fragmentManager.registerFragmentLifecycleCallbacks(tracker.mLifecycleCallbacks, false);
+            fragmentManager.addOnBackStackChangedListener(tracker.mBackStackListener);
+            TRACKERS.put(fragmentManager, tracker);
+        }
+        return tracker;
+    }
+
+    @VisibleForTesting
+    BackstackTracker(@NonNull final FragmentManager fragmentManager) {
+        mFragmentManager = new WeakReference<>(fragmentManager);
+        mBackStackEntryIds = readBackStackEntryIds(fragmentManager);
+    }
+
+    /**
+     * Checks whether a fragment got removed by a transaction which was added to the back stack.
+     * The fragment will be added again when the back stack gets popped.
+     *
+     * @param fragment a fragment of the {@link FragmentManager} of this tracker
+     * @return true, if the given Fragment is removed and on the back stack
+     */
+    public boolean isInBackStack(@NonNull final Fragment fragment) {
+        return mInBackStack.containsKey(fragment);
+    }
+
+    private static Set<Integer> readBackStackEntryIds(final FragmentManager fragmentManager) {
+        final int count = fragmentManager.getBackStackEntryCount();
+        final Set<Integer> ids = new HashSet<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(fragmentManager.getBackStackEntryAt(i).getId());
+        }
+        return ids;
+    }
+}
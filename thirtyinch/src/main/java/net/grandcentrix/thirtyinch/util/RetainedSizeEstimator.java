@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import android.content.Context;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import net.grandcentrix.thirtyinch.TiView;
+
+/**
+ * Estimates the heap size of an object graph by walking its fields with reflection. The result
+ * is a rough approximation for diagnostics, not an exact measurement: object headers, field
+ * sizes and alignment are assumed, shared objects are counted for the first object referencing
+ * them.
+ * <p>
+ * The walk doesn't follow references to {@link Class}es, weakly reachable objects, objects of
+ * the {@code excludedType} (i.e. other presenters) and the ui layer: {@link Context}s,
+ * {@link View}s, Fragments and {@link TiView}s including their subclasses in the app, view proxies
+ * and Android framework classes. Those are counted as a reference only.
+ */
+public class RetainedSizeEstimator {
+
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * max number of objects visited, larger graphs return the size up to this limit
+     */
+    private static final int MAX_OBJECTS = 10000;
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+
+    private static final int REFERENCE_BYTES = 4;
+
+    /**
+     * @param root         the object to estimate the retained size of
+     * @param excludedType objects of this type other than {@code root} are not followed
+     * @return estimated size in bytes
+     */
+    public static long estimate(@NonNull final Object root, @NonNull final Class<?> excludedType) {
+        final IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<>();
+        final ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        visited.put(root, Boolean.TRUE);
+
+        long size = 0;
+        while (!pending.isEmpty() && visited.size() <= MAX_OBJECTS) {
+            final Object obj = pending.pop();
+            final Class<?> type = obj.getClass();
+
+            if (type.isArray()) {
+                final Class<?> component = type.getComponentType();
+                final int length = Array.getLength(obj);
+                size += align(ARRAY_HEADER_BYTES + (long) length * sizeOf(component));
+                if (!component.isPrimitive()) {
+                    for (int i = 0; i < length; i++) {
+                        follow(Array.get(obj, i), root, excludedType, visited, pending);
+                    }
+                }
+                continue;
+            }
+
+            long shallow = OBJECT_HEADER_BYTES;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (final Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    shallow += sizeOf(field.getType());
+                    if (field.getType().isPrimitive() || obj instanceof Reference) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        follow(field.get(obj), root, excludedType, visited, pending);
+                    } catch (RuntimeException | IllegalAccessException ignored) {
+                        // inaccessible field, count the reference only
+                    }
+                }
+            }
+            size += align(shallow);
+        }
+        return size;
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static void follow(final Object value, final Object root, final Class<?> excludedType,
+            final IdentityHashMap<Object, Boolean> visited, final ArrayDeque<Object> pending) {
+        if (value == null || visited.containsKey(value) || value instanceof Class) {
+            return;
+        }
+        if (value != root && excludedType.isInstance(value)) {
+            return;
+        }
+        if (isHostOrFramework(value)) {
+            return;
+        }
+        visited.put(value, Boolean.TRUE);
+        pending.push(value);
+    }
+
+    /**
+     * @return {@code true} for objects of the ui layer which are retained by the host, not by the
+     * presenter, including subclasses in the app
+     */
+    private static boolean isHostOrFramework(final Object value) {
+        if (value instanceof Context || value instanceof View || value instanceof TiView
+                || value instanceof Fragment || Proxy.isProxyClass(value.getClass())) {
+            return true;
+        }
+        final String name = value.getClass().getName();
+        return name.startsWith("android.") || name.startsWith("androidx.")
+                || name.startsWith("com.android.");
+    }
+
+    private static int sizeOf(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_BYTES;
+    }
+
+    private RetainedSizeEstimator() {
+        // no instances
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.TiView;
+
+/**
+ * The reflection results the {@link BindViewInterceptor}s need to wrap a view of a class: the
+ * interface extending {@link TiView} and the annotations of the methods of all interfaces the
+ * class or one of its superclasses implements.
+ * <p>
+ * Reflection is slow on Android. The plan of a class is computed once on first use and shared by
+ * all views of this class for the lifetime of the process, i.e. by every Activity instance after
+ * a rotation. Plans are immutable and thread safe.
+ * </p>
+ */
+public final class ViewBindingPlan {
+
+    private static final ConcurrentHashMap<Class<?>, ViewBindingPlan> PLANS = new ConcurrentHashMap<>();
+
+    /**
+     * annotated methods by annotation type
+     */
+    private final Map<Class<? extends Annotation>, Map<Method, Annotation>> mAnnotatedMethods;
+
+    private final Class<?> mViewInterface;
+
+    /**
+     * @return the plan of the {@code viewClass}, computed when called the first time
+     */
+    @NonNull
+    public static ViewBindingPlan of(@NonNull final Class<?> viewClass) {
+        final ViewBindingPlan plan = PLANS.get(viewClass);
+        if (plan != null) {
+            return plan;
+        }
+        final ViewBindingPlan created = new ViewBindingPlan(viewClass);
+        final ViewBindingPlan previous = PLANS.putIfAbsent(viewClass, created);
+        return previous != null ? previous : created;
+    }
+
+    private ViewBindingPlan(final Class<?> viewClass) {
+        mViewInterface = AnnotationUtil
+                .getInterfaceOfClassExtendingGivenInterface(viewClass, TiView.class);
+
+        final Map<Class<? extends Annotation>, Map<Method, Annotation>> annotatedMethods =
+                new HashMap<>();
+        // i.e. an Activity implementing the view interface in an abstract base class
+        for (Class<?> clazz = viewClass; clazz != null; clazz = clazz.getSuperclass()) {
+            for (final Class<?> anInterface : clazz.getInterfaces()) {
+                for (final Method method : anInterface.getMethods()) {
+                    for (final Annotation annotation : method.getAnnotations()) {
+                        Map<Method, Annotation> methods =
+                                annotatedMethods.get(annotation.annotationType());
+                        if (methods == null) {
+                            methods = new HashMap<>();
+                            annotatedMethods.put(annotation.annotationType(), methods);
+                        }
+                        methods.put(method, annotation);
+                    }
+                }
+            }
+        }
+        mAnnotatedMethods = Collections.unmodifiableMap(annotatedMethods);
+    }
+
+    /**
+     * @return the annotation of the {@code method}, {@code null} when not annotated. Only methods
+     * of interfaces are part of the plan, methods of classes are looked up with reflection.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <T extends Annotation> T getAnnotation(@NonNull final Method method,
+            @NonNull final Class<T> annotationType) {
+        if (!method.getDeclaringClass().isInterface()) {
+            return method.getAnnotation(annotationType);
+        }
+        final Map<Method, Annotation> methods = mAnnotatedMethods.get(annotationType);
+        return methods != null ? (T) methods.get(method) : null;
+    }
+
+    /**
+     * @return the interface extending {@link TiView}, {@code null} when the class isn't a view
+     * @see AnnotationUtil#getInterfaceOfClassExtendingGivenInterface(Class, Class)
+     */
+    @Nullable
+    public Class<?> getViewInterface() {
+        return mViewInterface;
+    }
+
+    /**
+     * @return {@code true} when a method of an interface of the class or one of its superclasses
+     * has the annotation
+     * @see AnnotationUtil#hasObjectMethodWithAnnotation(Object, Class)
+     */
+    public boolean hasMethodWithAnnotation(@NonNull final Class<? extends Annotation> annotation) {
+        return mAnnotatedMethods.containsKey(annotation);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+
+public class DetachGracePeriodTest {
+
+    private int mAttachCalls;
+
+    private int mDetachCalls;
+
+    private TiMockPresenter mPresenter;
+
+    /**
+     * the scheduled timeouts, run them to end the grace period
+     */
+    private List<Runnable> mTimeouts;
+
+    private final List<Runnable> mUiThreadQueue = new ArrayList<>();
+
+    private TiView mView;
+
+    @Test
+    public void destroyDetachesRightAway() throws Exception {
+        mPresenter.detachView();
+
+        mPresenter.destroy();
+
+        assertThat(mDetachCalls).isEqualTo(1);
+        assertThat(mPresenter.isDestroyed()).isTrue();
+
+        // the outdated timeout does nothing
+        runTimeouts();
+        runUiThreadQueue();
+        assertThat(mDetachCalls).isEqualTo(1);
+    }
+
+    @Test
+    public void differentViewDetachesPrevious() throws Exception {
+        mPresenter.detachView();
+
+        final TiView newView = mock(TiView.class);
+        mPresenter.attachView(newView);
+
+        assertThat(mDetachCalls).isEqualTo(1);
+        assertThat(mAttachCalls).isEqualTo(2);
+        assertThat(mPresenter.getView()).isSameAs(newView);
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.create();
+        presenter.attachView(mock(TiView.class));
+
+        presenter.detachView();
+
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(mTimeouts).isEmpty();
+    }
+
+    @Test
+    public void negativeGracePeriod() throws Exception {
+        try {
+            new TiConfiguration.Builder().setDetachGracePeriodMillis(-1);
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("negative");
+        }
+    }
+
+    @Test
+    public void reattachWithinGracePeriod() throws Exception {
+        mPresenter.detachView();
+
+        assertThat(mPresenter.isViewAttached()).isFalse();
+        assertThat(mPresenter.isViewDetachPending()).isTrue();
+        assertThat(mPresenter.getView()).isNull();
+        assertThat(mDetachCalls).isEqualTo(0);
+
+        mPresenter.attachView(mView);
+
+        assertThat(mPresenter.isViewAttached()).isTrue();
+        assertThat(mPresenter.isViewDetachPending()).isFalse();
+        assertThat(mPresenter.getView()).isSameAs(mView);
+        assertThat(mDetachCalls).isEqualTo(0);
+        assertThat(mAttachCalls).isEqualTo(1);
+
+        // the timeout of the first detach does nothing
+        runTimeouts();
+        runUiThreadQueue();
+        assertThat(mPresenter.isViewAttached()).isTrue();
+        assertThat(mDetachCalls).isEqualTo(0);
+    }
+
+    @Test
+    public void sendToViewWaitsForTheView() throws Exception {
+        mPresenter.detachView();
+        final ViewAction<TiView> action = mock(ViewAction.class);
+
+        mPresenter.sendToView(action);
+        verify(action, never()).call(any(TiView.class));
+
+        mPresenter.attachView(mView);
+        verify(action).call(mView);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mTimeouts = new ArrayList<>();
+        final ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+        when(timer.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(new Answer<ScheduledFuture<?>>() {
+                    @Override
+                    public ScheduledFuture<?> answer(final InvocationOnMock invocation)
+                            throws Throwable {
+                        assertThat(invocation.getArguments()[1]).isEqualTo(500L);
+                        mTimeouts.add((Runnable) invocation.getArguments()[0]);
+                        return mock(ScheduledFuture.class);
+                    }
+                });
+        TiPresenter.setTimer(timer);
+
+        mPresenter = new TiMockPresenter(new TiConfiguration.Builder()
+                .setDetachGracePeriodMillis(500)
+                .build());
+        mPresenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                mUiThreadQueue.add(command);
+            }
+        });
+        mPresenter.addLifecycleObserver(new TiLifecycleObserver() {
+            @Override
+            public void onChange(final TiPresenter.State state,
+                    final boolean hasLifecycleMethodBeenCalled) {
+                if (!hasLifecycleMethodBeenCalled) {
+                    return;
+                }
+                if (state == TiPresenter.State.VIEW_ATTACHED) {
+                    mAttachCalls++;
+                }
+                if (state == TiPresenter.State.VIEW_DETACHED
+                        && mPresenter.getCreatedNanos() != 0) {
+                    mDetachCalls++;
+                }
+            }
+        });
+        mPresenter.create();
+        mView = mock(TiView.class);
+        mPresenter.attachView(mView);
+        mUiThreadQueue.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TiPresenter.setTimer(null);
+    }
+
+    @Test
+    public void timeoutDetachesOnUiThread() throws Exception {
+        mPresenter.detachView();
+
+        runTimeouts();
+        // posted to the ui thread
+        assertThat(mDetachCalls).isEqualTo(0);
+        assertThat(mUiThreadQueue).hasSize(1);
+
+        mUiThreadQueue.remove(0).run();
+        assertThat(mDetachCalls).isEqualTo(1);
+        assertThat(mPresenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(mPresenter.isViewDetachPending()).isFalse();
+
+        // a later attach calls onAttachView again
+        mPresenter.attachView(mView);
+        assertThat(mAttachCalls).isEqualTo(2);
+    }
+
+    @Test
+    public void withoutUiThreadExecutorDetachesRightAway() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter(new TiConfiguration.Builder()
+                .setDetachGracePeriodMillis(500)
+                .build());
+        presenter.create();
+        presenter.attachView(mock(TiView.class));
+
+        presenter.detachView();
+
+        // the timeout would call onDetachView() on the timer thread
+        assertThat(presenter.isViewDetachPending()).isFalse();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(mTimeouts).isEmpty();
+    }
+
+    private void runTimeouts() {
+        while (!mTimeouts.isEmpty()) {
+            mTimeouts.remove(0).run();
+        }
+    }
+
+    private void runUiThreadQueue() {
+        while (!mUiThreadQueue.isEmpty()) {
+            mUiThreadQueue.remove(0).run();
+        }
+    }
+}
@@ -19,13 +19,17 @@ package net.grandcentrix.thirtyinch;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import android.os.MessageQueue;
 import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.internal.IdleDispatcher;
 import org.junit.*;
 import org.mockito.*;
 
@@ -89,6 +93,59 @@ public class SendToViewTest {
         inOrder.verify(view).doSomething2();
     }
 
+    @Test
+    public void sendToViewWhenIdle() throws Exception {
+        final List<MessageQueue.IdleHandler> idleHandlers = new ArrayList<>();
+        TiPresenter.setIdleDispatcher(new IdleDispatcher(new IdleDispatcher.IdleQueue() {
+            @Override
+            public void addIdleHandler(@NonNull final MessageQueue.IdleHandler handler) {
+                idleHandlers.add(handler);
+            }
+        }, IdleDispatcher.DEFAULT_BUDGET_NANOS));
+        try {
+            final TestPresenter presenter = new TestPresenter();
+            presenter.create();
+            presenter.setUiThreadExecutor(mImmediatelySameThread);
+            final TestView view = mock(TestView.class);
+            presenter.attachView(view);
+
+            presenter.sendToViewWhenIdle(new ViewAction<TestView>() {
+                @Override
+                public void call(final TestView view) {
+                    view.doSomething1();
+                }
+            });
+            presenter.sendToView(new ViewAction<TestView>() {
+                @Override
+                public void call(final TestView view) {
+                    view.doSomething2();
+                }
+            });
+            verify(view).doSomething2();
+            verify(view, never()).doSomething1();
+
+            // the main thread gets idle
+            assertThat(idleHandlers).hasSize(1);
+            assertThat(idleHandlers.remove(0).queueIdle()).isFalse();
+            verify(view).doSomething1();
+
+            // detached in the meantime, executed when attached again
+            presenter.sendToViewWhenIdle(new ViewAction<TestView>() {
+                @Override
+                public void call(final TestView view) {
+                    view.doSomething3();
+                }
+            });
+            presenter.detachView();
+            idleHandlers.remove(0).queueIdle();
+            assertThat(presenter.getQueuedViewActions()).hasSize(1);
+            presenter.attachView(view);
+            verify(view).doSomething3();
+        } finally {
+            TiPresenter.setIdleDispatcher(null);
+        }
+    }
+
     @Test
     public void testSendToViewRunsOnTheMainThread() throws Exception {
 
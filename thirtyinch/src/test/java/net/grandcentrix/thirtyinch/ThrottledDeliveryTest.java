@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+
+public class ThrottledDeliveryTest {
+
+    /**
+     * records the delivered actions
+     */
+    private class RecordingAction implements ViewAction<TiView> {
+
+        private final String mName;
+
+        RecordingAction(final String name) {
+            mName = name;
+        }
+
+        @Override
+        public void call(final TiView view) {
+            mDelivered.add(mName);
+        }
+    }
+
+    private final List<String> mDelivered = new ArrayList<>();
+
+    /**
+     * the scheduled deliveries, run them to let the interval pass
+     */
+    private final List<Runnable> mDeliveries = new ArrayList<>();
+
+    private TiMockPresenter mPresenter;
+
+    @Test
+    public void conflatedWhileInactive() throws Exception {
+        mPresenter.setDeliveryPriority(TiPresenter.DeliveryPriority.LOW);
+
+        mPresenter.sendToViewConflated("progress", new RecordingAction("progress 1"));
+        mPresenter.sendToView(new RecordingAction("toast"));
+        mPresenter.sendToViewConflated("progress", new RecordingAction("progress 2"));
+        mPresenter.sendToViewConflated("title", new RecordingAction("title"));
+        assertThat(mDelivered).isEmpty();
+        // one delivery per interval
+        assertThat(mDeliveries).hasSize(1);
+
+        runDeliveries();
+
+        assertThat(mDelivered).containsExactly("toast", "progress 2", "title");
+    }
+
+    @Test
+    public void deliveredOnResume() throws Exception {
+        mPresenter.setDeliveryPriority(TiPresenter.DeliveryPriority.LOW);
+        mPresenter.sendToViewConflated("progress", new RecordingAction("progress 1"));
+        mPresenter.sendToViewConflated("progress", new RecordingAction("progress 2"));
+
+        mPresenter.setDeliveryPriority(TiPresenter.DeliveryPriority.HIGH);
+        assertThat(mDelivered).containsExactly("progress 2");
+
+        // the outdated delivery does nothing
+        runDeliveries();
+        assertThat(mDelivered).containsExactly("progress 2");
+
+        // active views receive every action
+        mPresenter.sendToViewConflated("progress", new RecordingAction("progress 3"));
+        mPresenter.sendToViewConflated("progress", new RecordingAction("progress 4"));
+        assertThat(mDelivered).containsExactly("progress 2", "progress 3", "progress 4");
+    }
+
+    @Test
+    public void detachKeepsThrottledActions() throws Exception {
+        mPresenter.setDeliveryPriority(TiPresenter.DeliveryPriority.LOW);
+        mPresenter.sendToView(new RecordingAction("toast"));
+
+        mPresenter.detachView();
+        runDeliveries();
+        assertThat(mDelivered).isEmpty();
+
+        mPresenter.attachView(mock(TiView.class));
+        assertThat(mDelivered).containsExactly("toast");
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        });
+        presenter.create();
+        presenter.attachView(mock(TiView.class));
+        presenter.setDeliveryPriority(TiPresenter.DeliveryPriority.LOW);
+
+        presenter.sendToViewConflated("progress", new RecordingAction("progress 1"));
+        presenter.sendToViewConflated("progress", new RecordingAction("progress 2"));
+
+        assertThat(mDelivered).containsExactly("progress 1", "progress 2");
+        assertThat(mDeliveries).isEmpty();
+    }
+
+    @Test
+    public void onlyOnResume() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter(new TiConfiguration.Builder()
+                .setInactiveDeliveryIntervalMillis(Long.MAX_VALUE)
+                .build());
+        presenter.create();
+        presenter.attachView(mock(TiView.class));
+        presenter.setDeliveryPriority(TiPresenter.DeliveryPriority.LOW);
+
+        presenter.sendToView(new RecordingAction("toast"));
+        assertThat(mDeliveries).isEmpty();
+
+        presenter.setDeliveryPriority(TiPresenter.DeliveryPriority.HIGH);
+        assertThat(mDelivered).containsExactly("toast");
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+        when(timer.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(new Answer<ScheduledFuture<?>>() {
+                    @Override
+                    public ScheduledFuture<?> answer(final InvocationOnMock invocation)
+                            throws Throwable {
+                        assertThat(invocation.getArguments()[1]).isEqualTo(200L);
+                        mDeliveries.add((Runnable) invocation.getArguments()[0]);
+                        return mock(ScheduledFuture.class);
+                    }
+                });
+        TiPresenter.setTimer(timer);
+
+        mPresenter = new TiMockPresenter(new TiConfiguration.Builder()
+                .setInactiveDeliveryIntervalMillis(200)
+                .build());
+        mPresenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        });
+        mPresenter.create();
+        mPresenter.attachView(mock(TiView.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TiPresenter.setTimer(null);
+    }
+
+    private void runDeliveries() {
+        while (!mDeliveries.isEmpty()) {
+            mDeliveries.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import android.app.Activity;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.internal.HostingActivity;
+import net.grandcentrix.thirtyinch.internal.TestPresenterSavior;
+import org.junit.*;
+
+public class TiDiagnosticsTest {
+
+    private static class LargePresenter extends TiPresenter<TiView> {
+
+        final byte[] mCache = new byte[64 * 1024];
+    }
+
+    /**
+     * a view retaining a lot of memory, i.e. a bitmap
+     */
+    private static class LargeView implements TiView {
+
+        final byte[] mPixels = new byte[64 * 1024];
+    }
+
+    private Activity mActivity;
+
+    private TiDiagnostics mDiagnostics;
+
+    private TestPresenterSavior mSavior;
+
+    @Test
+    public void collectedPresenterIsNoLeak() throws Exception {
+        TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        mSavior.save(presenter, mActivity);
+        presenter.create();
+        finishActivity();
+        //noinspection UnusedAssignment
+        presenter = null;
+
+        for (int i = 0; i < 50 && mSavior.getLeakWatcher().getWatchedCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(mDiagnostics.findLeaks(0, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @Test
+    public void estimateRetainedSize() throws Exception {
+        final TiPresenter<TiView> small = new TiPresenter<TiView>() {
+        };
+        mSavior.save(small, mActivity);
+        final LargePresenter large = new LargePresenter();
+        mSavior.save(large, mActivity);
+
+        long smallSize = -1;
+        long largeSize = -1;
+        for (final TiDiagnostics.RetainedPresenter retained
+                : mDiagnostics.getRetainedPresenters(true)) {
+            if (retained.getPresenter() == small) {
+                smallSize = retained.getRetainedSizeBytes();
+            } else {
+                largeSize = retained.getRetainedSizeBytes();
+            }
+        }
+
+        assertThat(smallSize).isGreaterThan(0);
+        assertThat(largeSize).isGreaterThan(64 * 1024);
+    }
+
+    @Test
+    public void estimateStopsAtTheView() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        mSavior.save(presenter, mActivity);
+        presenter.create();
+        presenter.attachView(new LargeView());
+
+        final TiDiagnostics.RetainedPresenter info =
+                mDiagnostics.getRetainedPresenters(true).get(0);
+        assertThat(info.getRetainedSizeBytes()).isLessThan(64 * 1024);
+    }
+
+    @Test
+    public void leakAfterFree() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        final long presenterId = mSavior.save(presenter, mActivity);
+        presenter.create();
+        presenter.destroy();
+        mSavior.free(presenterId, mActivity);
+
+        final List<TiDiagnostics.LeakedPresenter> leaks =
+                mDiagnostics.findLeaks(0, TimeUnit.SECONDS);
+        assertThat(leaks).hasSize(1);
+        assertThat(leaks.get(0).getPresenter()).isSameAs(presenter);
+    }
+
+    @Test
+    public void leakAfterHostFinished() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        mSavior.save(presenter, mActivity);
+        presenter.create();
+        final long hostId = finishActivity();
+
+        assertThat(mDiagnostics.getRetainedPresenters()).isEmpty();
+        assertThat(mDiagnostics.findLeaks(1, TimeUnit.HOURS)).isEmpty();
+
+        // still referenced by this test
+        final List<TiDiagnostics.LeakedPresenter> leaks =
+                mDiagnostics.findLeaks(0, TimeUnit.SECONDS);
+        assertThat(leaks).hasSize(1);
+        final TiDiagnostics.LeakedPresenter leak = leaks.get(0);
+        assertThat(leak.getPresenter()).isSameAs(presenter);
+        assertThat(leak.getHostId()).isEqualTo(hostId);
+        assertThat(leak.getDescription()).isEqualTo(presenter.toString());
+        assertThat(presenter.isDestroyed()).isTrue();
+    }
+
+    @Test
+    public void retainedPresenterInfo() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        final long presenterId = mSavior.save(presenter, mActivity);
+        presenter.create();
+        presenter.sendToView(mock(ViewAction.class));
+        presenter.sendToView(mock(ViewAction.class));
+        Thread.sleep(5);
+
+        final List<TiDiagnostics.RetainedPresenter> retained =
+                mDiagnostics.getRetainedPresenters();
+        assertThat(retained).hasSize(1);
+        final TiDiagnostics.RetainedPresenter info = retained.get(0);
+        assertThat(info.getPresenter()).isSameAs(presenter);
+        assertThat(info.getPresenterId()).isEqualTo(presenterId);
+        assertThat(info.getHostId()).isNotEqualTo(presenterId);
+        assertThat(info.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(info.getQueuedActionCount()).isEqualTo(2);
+        assertThat(info.getAgeNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(info.getIdleNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(info.getRetainedSizeBytes()).isEqualTo(-1);
+    }
+
+    @Test
+    public void retainedPresenterWithView() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+        };
+        mSavior.save(presenter, mActivity);
+        presenter.create();
+        presenter.attachView(mock(TiView.class));
+
+        final TiDiagnostics.RetainedPresenter info = mDiagnostics.getRetainedPresenters().get(0);
+        assertThat(info.getState()).isEqualTo(TiPresenter.State.VIEW_ATTACHED);
+        assertThat(info.getIdleNanos()).isEqualTo(0);
+        assertThat(info.getQueuedActionCount()).isEqualTo(0);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mSavior = new TestPresenterSavior();
+        mDiagnostics = new TiDiagnostics(mSavior);
+        mActivity = new HostingActivity().getMockActivityInstance();
+    }
+
+    /**
+     * @return the host id of the finished Activity
+     */
+    private long finishActivity() {
+        final long hostId = mSavior.getRetainedPresenters().keySet().iterator().next();
+        mSavior.onActivityFinished(mActivity, hostId);
+        return hostId;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.*;
+
+public class TiHostCacheTest {
+
+    /**
+     * counts the loads and blocks until released
+     */
+    private static class BlockingLoader implements TiHostCache.Loader<String> {
+
+        final AtomicInteger mLoads = new AtomicInteger();
+
+        final CountDownLatch mRelease = new CountDownLatch(1);
+
+        final CountDownLatch mStarted = new CountDownLatch(1);
+
+        @Override
+        public String load() throws Exception {
+            mLoads.incrementAndGet();
+            mStarted.countDown();
+            assertThat(mRelease.await(5, TimeUnit.SECONDS)).isTrue();
+            return "value";
+        }
+    }
+
+    private ExecutorService mExecutor;
+
+    @Test
+    public void clearWhileLoading() throws Exception {
+        final TiHostCache cache = new TiHostCache();
+        final BlockingLoader loader = new BlockingLoader();
+        final Future<String> result = load(cache, "key", loader);
+        assertThat(loader.mStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.clear();
+        loader.mRelease.countDown();
+
+        // the caller gets the value but it's not cached
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(cache.<String>getIfPresent("key")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void failedLoadNotCached() throws Exception {
+        final TiHostCache cache = new TiHostCache();
+        try {
+            cache.get("key", new TiHostCache.Loader<String>() {
+                @Override
+                public String load() throws Exception {
+                    throw new IOException("offline");
+                }
+            });
+            fail("did not throw");
+        } catch (IOException e) {
+            assertThat(e).hasMessage("offline");
+        }
+        assertThat(cache.size()).isEqualTo(0);
+
+        final String value = cache.get("key", new TiHostCache.Loader<String>() {
+            @Override
+            public String load() throws Exception {
+                return "online";
+            }
+        });
+        assertThat(value).isEqualTo("online");
+        assertThat(cache.<String>getIfPresent("key")).isEqualTo("online");
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws Exception {
+        final TiHostCache cache = new TiHostCache(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // a is used more recently than b
+        assertThat(cache.<Integer>getIfPresent("a")).isEqualTo(1);
+
+        cache.put("c", 3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.<String>getIfPresent("b")).isNull();
+        assertThat(cache.<Integer>getIfPresent("a")).isEqualTo(1);
+        assertThat(cache.<Integer>getIfPresent("c")).isEqualTo(3);
+    }
+
+    @Test
+    public void maxSizeAtLeastOne() throws Exception {
+        try {
+            new TiHostCache(0);
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("at least 1");
+        }
+    }
+
+    @Test
+    public void presenterWithoutHost() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        try {
+            presenter.getHostCache();
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("no host");
+        }
+
+        final TiHostCache cache = new TiHostCache();
+        presenter.setHostCache(cache);
+        assertThat(presenter.getHostCache()).isSameAs(cache);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mExecutor = Executors.newCachedThreadPool();
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        final TiHostCache cache = new TiHostCache();
+        final BlockingLoader loader = new BlockingLoader();
+
+        final Future<String> first = load(cache, "key", loader);
+        assertThat(loader.mStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        final Future<String> second = load(cache, "key", loader);
+        loader.mRelease.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(loader.mLoads.get()).isEqualTo(1);
+
+        // cached afterwards
+        assertThat(cache.get("key", loader)).isEqualTo("value");
+        assertThat(loader.mLoads.get()).isEqualTo(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mExecutor.shutdownNow();
+    }
+
+    private Future<String> load(final TiHostCache cache, final String key,
+            final TiHostCache.Loader<String> loader) {
+        return mExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return cache.get(key, loader);
+            }
+        });
+    }
+}
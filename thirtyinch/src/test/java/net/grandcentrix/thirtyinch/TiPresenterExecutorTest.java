@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+
+public class TiPresenterExecutorTest {
+
+    /**
+     * runs the submitted tasks when asked to
+     */
+    private static class ManualPool implements Executor {
+
+        final List<Runnable> mQueue = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable command) {
+            mQueue.add(command);
+        }
+
+        void runAll() {
+            while (!mQueue.isEmpty()) {
+                mQueue.remove(0).run();
+            }
+        }
+    }
+
+    private static class CountingTask implements Runnable {
+
+        int mRuns = 0;
+
+        @Override
+        public void run() {
+            mRuns++;
+        }
+    }
+
+    private ManualPool mPool;
+
+    private TiMockPresenter mPresenter;
+
+    @Test
+    public void cancelPendingOnDestroy() throws Exception {
+        final TiPresenterExecutor executor = mPresenter.getBackgroundExecutor();
+        final CountingTask task = new CountingTask();
+        executor.execute(task);
+        executor.execute(task);
+        executor.execute(task);
+
+        mPresenter.destroy();
+        mPool.runAll();
+
+        assertThat(task.mRuns).isEqualTo(0);
+        assertThat(executor.getMetrics().getCancelledCount()).isEqualTo(3);
+        assertThat(executor.getMetrics().getRunningCount()).isEqualTo(0);
+
+        // dropped after destroy
+        executor.execute(task);
+        mPool.runAll();
+        assertThat(task.mRuns).isEqualTo(0);
+        try {
+            mPresenter.getBackgroundExecutor();
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("destroyed");
+        }
+    }
+
+    @Test
+    public void concurrencyLimit() throws Exception {
+        final TiPresenterExecutor executor = mPresenter.getBackgroundExecutor();
+        final CountingTask task = new CountingTask();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(task);
+        }
+
+        // default concurrency is 2
+        assertThat(mPool.mQueue).hasSize(2);
+        assertThat(executor.getMetrics().getQueueDepth()).isEqualTo(3);
+        assertThat(executor.getMetrics().getMaxQueueDepth()).isEqualTo(3);
+
+        mPool.mQueue.remove(0).run();
+        assertThat(mPool.mQueue).hasSize(2);
+
+        mPool.runAll();
+        assertThat(task.mRuns).isEqualTo(5);
+        final TiPresenterExecutor.Metrics metrics = executor.getMetrics();
+        assertThat(metrics.getCompletedCount()).isEqualTo(5);
+        assertThat(metrics.getQueueDepth()).isEqualTo(0);
+        assertThat(metrics.getMaxWaitNanos()).isGreaterThanOrEqualTo(metrics.getAverageWaitNanos());
+    }
+
+    @Test
+    public void interruptRunningOnDestroy() throws Exception {
+        TiPresenterExecutor.setSharedExecutor(null);
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.create();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        presenter.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        presenter.destroy();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void perPresenterConcurrency() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter(new TiConfiguration.Builder()
+                .setBackgroundConcurrency(1)
+                .build());
+        presenter.create();
+        final CountingTask task = new CountingTask();
+        presenter.getBackgroundExecutor().execute(task);
+        presenter.getBackgroundExecutor().execute(task);
+        // other presenters are not blocked
+        mPresenter.getBackgroundExecutor().execute(task);
+
+        assertThat(mPool.mQueue).hasSize(2);
+        mPool.runAll();
+        assertThat(task.mRuns).isEqualTo(3);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mPool = new ManualPool();
+        TiPresenterExecutor.setSharedExecutor(mPool);
+        mPresenter = new TiMockPresenter();
+        mPresenter.create();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TiPresenterExecutor.setSharedExecutor(null);
+    }
+
+    @Test
+    public void viewScopedTasksCancelledOnDetach() throws Exception {
+        final Executor viewScoped = mPresenter.getViewScopedBackgroundExecutor();
+        final CountingTask viewTask = new CountingTask();
+        final CountingTask presenterTask = new CountingTask();
+
+        // no view attached
+        viewScoped.execute(viewTask);
+        assertThat(mPool.mQueue).isEmpty();
+
+        mPresenter.attachView(mock(TiView.class));
+        viewScoped.execute(viewTask);
+        viewScoped.execute(viewTask);
+        mPresenter.getBackgroundExecutor().execute(presenterTask);
+        mPresenter.detachView();
+        mPool.runAll();
+
+        assertThat(viewTask.mRuns).isEqualTo(0);
+        assertThat(presenterTask.mRuns).isEqualTo(1);
+        assertThat(mPresenter.getBackgroundExecutor().getMetrics().getCancelledCount())
+                .isEqualTo(3);
+
+        mPresenter.attachView(mock(TiView.class));
+        viewScoped.execute(viewTask);
+        mPool.runAll();
+        assertThat(viewTask.mRuns).isEqualTo(1);
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assume.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import android.os.MessageQueue;
+import androidx.annotation.NonNull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import net.grandcentrix.thirtyinch.internal.IdleDispatcher;
+import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
+import org.junit.*;
+
+public class TiPresenterPoolTest {
+
+    private static class ItemPresenter extends TiPresenter<ItemView> {
+
+        String item;
+
+        ItemPresenter() {
+            super();
+        }
+
+        ItemPresenter(final TiConfiguration config) {
+            super(config);
+        }
+
+        void bind(final String item) {
+            this.item = item;
+            sendToView(new ViewAction<ItemView>() {
+                @Override
+                public void call(final ItemView view) {
+                    view.showItem(ItemPresenter.this.item);
+                }
+            });
+        }
+    }
+
+    public interface ItemView extends TiView {
+
+        void showItem(String item);
+    }
+
+    /**
+     * a fake view, allocation free
+     */
+    private static class FakeItemView implements ItemView {
+
+        int shownItems = 0;
+
+        @Override
+        public void showItem(final String item) {
+            shownItems++;
+        }
+    }
+
+    private static final int ITEMS = 2000;
+
+    private static final int VISIBLE_ITEMS = 10;
+
+    private final TiPresenterProvider<ItemPresenter> mProvider =
+            new TiPresenterProvider<ItemPresenter>() {
+                @NonNull
+                @Override
+                public ItemPresenter providePresenter() {
+                    return new ItemPresenter();
+                }
+            };
+
+    private final TiPresenterPool.ResetHook<ItemPresenter> mResetHook =
+            new TiPresenterPool.ResetHook<ItemPresenter>() {
+                @Override
+                public void reset(@NonNull final ItemPresenter presenter) {
+                    presenter.item = null;
+                }
+            };
+
+    private final String[] mItems = new String[ITEMS];
+
+    @Test
+    public void acquireCreatesPresenter() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, 2);
+
+        final ItemPresenter presenter = pool.acquire();
+
+        assertThat(presenter.isInitialized()).isTrue();
+        assertThat(pool.getCreateCount()).isEqualTo(1);
+        assertThat(pool.getReuseCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void clearDestroysPooledPresenters() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, 2);
+        final ItemPresenter presenter = pool.acquire();
+        pool.release(presenter);
+
+        pool.clear();
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(pool.getPooledCount()).isEqualTo(0);
+        assertThat(pool.getDestroyCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void destroyWhenPoolIsFull() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, 1);
+        final ItemPresenter first = pool.acquire();
+        final ItemPresenter second = pool.acquire();
+
+        pool.release(first);
+        pool.release(second);
+
+        assertThat(first.isDestroyed()).isFalse();
+        assertThat(second.isDestroyed()).isTrue();
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+        assertThat(pool.getPeakSize()).isEqualTo(1);
+        assertThat(pool.getDestroyCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void negativeMaxSize() throws Exception {
+        try {
+            new TiPresenterPool<>(mProvider, mResetHook, -1);
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("-1");
+        }
+    }
+
+    @Test
+    public void releaseDropsQueuedActionsAndResets() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, 2);
+        final ItemPresenter presenter = pool.acquire();
+        // never attached, the action is queued
+        presenter.bind("a");
+
+        pool.release(presenter);
+        assertThat(presenter.item).isNull();
+        assertThat(presenter.getQueuedViewActions()).isEmpty();
+
+        final ItemPresenter reused = pool.acquire();
+        assertThat(reused).isSameAs(presenter);
+        final ItemView view = mock(ItemView.class);
+        reused.attachView(view);
+        verifyZeroInteractions(view);
+        assertThat(pool.getReuseCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void releaseDropsPendingWork() throws Exception {
+        final List<MessageQueue.IdleHandler> idleHandlers = new ArrayList<>();
+        TiPresenter.setIdleDispatcher(new IdleDispatcher(new IdleDispatcher.IdleQueue() {
+            @Override
+            public void addIdleHandler(@NonNull final MessageQueue.IdleHandler handler) {
+                idleHandlers.add(handler);
+            }
+        }, IdleDispatcher.DEFAULT_BUDGET_NANOS));
+        final List<Runnable> backgroundTasks = new ArrayList<>();
+        TiPresenterExecutor.setSharedExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                backgroundTasks.add(command);
+            }
+        });
+        try {
+            final TiPresenterPool<ItemPresenter> pool =
+                    new TiPresenterPool<>(mProvider, mResetHook, 2);
+            final ItemPresenter presenter = pool.acquire();
+            final ViewAction<ItemView> idleAction = mock(ViewAction.class);
+            presenter.sendToViewWhenIdle(idleAction);
+            final Runnable task = mock(Runnable.class);
+            presenter.getBackgroundExecutor().execute(task);
+
+            pool.release(presenter);
+
+            final ItemPresenter reused = pool.acquire();
+            reused.attachView(mock(ItemView.class));
+            for (final MessageQueue.IdleHandler handler : idleHandlers) {
+                handler.queueIdle();
+            }
+            for (final Runnable backgroundTask : backgroundTasks) {
+                backgroundTask.run();
+            }
+            verify(idleAction, never()).call(any(ItemView.class));
+            verify(task, never()).run();
+        } finally {
+            TiPresenter.setIdleDispatcher(null);
+            TiPresenterExecutor.setSharedExecutor(null);
+        }
+    }
+
+    @Test
+    public void releasePresenterWithPendingDetach() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool = new TiPresenterPool<>(
+                new TiPresenterProvider<ItemPresenter>() {
+                    @NonNull
+                    @Override
+                    public ItemPresenter providePresenter() {
+                        return new ItemPresenter(new TiConfiguration.Builder()
+                                .setDetachGracePeriodMillis(500)
+                                .build());
+                    }
+                }, mResetHook, 2);
+        final ItemPresenter presenter = pool.acquire();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        });
+        presenter.attachView(mock(ItemView.class));
+        presenter.detachView();
+        assertThat(presenter.isViewDetachPending()).isTrue();
+
+        pool.release(presenter);
+
+        // onDetachView() got called right away
+        assertThat(presenter.isViewDetachPending()).isFalse();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void releasePresenterWithAttachedView() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, 2);
+        final ItemPresenter presenter = pool.acquire();
+        presenter.attachView(mock(ItemView.class));
+
+        try {
+            pool.release(presenter);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("detachView()");
+        }
+    }
+
+    @Test
+    public void releaseUnknownPresenter() throws Exception {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, 2);
+
+        try {
+            pool.release(new ItemPresenter());
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("INITIALIZED");
+        }
+    }
+
+    /**
+     * Simulates scrolling through a list showing {@link #VISIBLE_ITEMS} at once. Every item which
+     * scrolls in gets a presenter, every item scrolling out releases it. Compares the allocated
+     * bytes per scrolled item with and without the pool.
+     */
+    @Test
+    public void scrollBenchmark() throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocations =
+                (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported()
+                && allocations.isThreadAllocatedMemoryEnabled());
+        final long thread = Thread.currentThread().getId();
+
+        // warm up both paths
+        scrollWithoutPool(new FakeItemView());
+        scrollWithPool(new FakeItemView());
+
+        final FakeItemView unpooledView = new FakeItemView();
+        long start = allocations.getThreadAllocatedBytes(thread);
+        final int unpooledCreated = scrollWithoutPool(unpooledView);
+        final long unpooledBytes = allocations.getThreadAllocatedBytes(thread) - start;
+
+        final FakeItemView pooledView = new FakeItemView();
+        start = allocations.getThreadAllocatedBytes(thread);
+        final TiPresenterPool<ItemPresenter> pool = scrollWithPool(pooledView);
+        final long pooledBytes = allocations.getThreadAllocatedBytes(thread) - start;
+
+        // same work for the views
+        assertThat(unpooledView.shownItems).isEqualTo(ITEMS);
+        assertThat(pooledView.shownItems).isEqualTo(ITEMS);
+
+        // every item allocates a presenter without pool, only the visible items with pool
+        assertThat(unpooledCreated).isEqualTo(ITEMS);
+        assertThat(pool.getCreateCount()).isEqualTo(VISIBLE_ITEMS + 1);
+        assertThat(pool.getReuseCount()).isEqualTo(ITEMS - VISIBLE_ITEMS - 1);
+        assertThat(pooledBytes).isLessThan(unpooledBytes);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < ITEMS; i++) {
+            mItems[i] = "item" + i;
+        }
+    }
+
+    private TiPresenterPool<ItemPresenter> scrollWithPool(final ItemView view) {
+        final TiPresenterPool<ItemPresenter> pool =
+                new TiPresenterPool<>(mProvider, mResetHook, VISIBLE_ITEMS + 2);
+        final ArrayDeque<ItemPresenter> visible = new ArrayDeque<>(VISIBLE_ITEMS + 1);
+        for (final String item : mItems) {
+            final ItemPresenter presenter = pool.acquire();
+            presenter.bind(item);
+            presenter.attachView(view);
+            visible.addLast(presenter);
+
+            if (visible.size() > VISIBLE_ITEMS) {
+                final ItemPresenter recycled = visible.pollFirst();
+                recycled.detachView();
+                pool.release(recycled);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return the number of created presenters
+     */
+    private int scrollWithoutPool(final ItemView view) {
+        final ArrayDeque<ItemPresenter> visible = new ArrayDeque<>(VISIBLE_ITEMS + 1);
+        int created = 0;
+        for (final String item : mItems) {
+            final ItemPresenter presenter = mProvider.providePresenter();
+            presenter.create();
+            created++;
+            presenter.bind(item);
+            presenter.attachView(view);
+            visible.addLast(presenter);
+
+            if (visible.size() > VISIBLE_ITEMS) {
+                final ItemPresenter recycled = visible.pollFirst();
+                recycled.detachView();
+                recycled.destroy();
+            }
+        }
+        return created;
+    }
+}
@@ -147,6 +147,77 @@ public class TiPresenterTest {
         mPresenter.detachView();
     }
 
+    @Test
+    public void evictCallsOnEvictedBeforeOnDestroy() throws Exception {
+        final StringBuilder calls = new StringBuilder();
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+            @Override
+            protected void onDestroy() {
+                super.onDestroy();
+                calls.append("onDestroy;");
+            }
+
+            @Override
+            protected void onEvicted() {
+                calls.append("onEvicted ").append(getState()).append(";");
+            }
+        };
+        presenter.create();
+        presenter.attachView(mView);
+        presenter.detachView();
+
+        presenter.evict();
+
+        assertThat(calls.toString()).isEqualTo("onEvicted VIEW_DETACHED;onDestroy;");
+        assertThat(presenter.isDestroyed()).isTrue();
+    }
+
+    @Test
+    public void evictDestroyedPresenter() throws Exception {
+        mPresenter.create();
+        mPresenter.destroy();
+
+        // no exception, just ignoring
+        mPresenter.evict();
+        assertThat(mPresenter.onDestroyCalled).isEqualTo(1);
+    }
+
+    @Test
+    public void evictPresenterWithAttachedView() throws Exception {
+        mPresenter.create();
+        mPresenter.attachView(mView);
+
+        try {
+            mPresenter.evict();
+            fail("error expected");
+        } catch (IllegalStateException e) {
+            assertThat(e)
+                    .hasMessageContaining("attached")
+                    .hasMessageContaining("detachView()");
+        }
+        assertThat(mPresenter.isViewAttached()).isTrue();
+    }
+
+    @Test
+    public void lastUsedUpdatesOnAttachAndDetach() throws Exception {
+        assertThat(mPresenter.getLastUsedNanos()).isEqualTo(0);
+
+        mPresenter.create();
+        final long created = mPresenter.getLastUsedNanos();
+        assertThat(created).isNotEqualTo(0);
+
+        mPresenter.attachView(mView);
+        final long attached = mPresenter.getLastUsedNanos();
+        assertThat(attached).isGreaterThanOrEqualTo(created);
+
+        mPresenter.detachView();
+        assertThat(mPresenter.getLastUsedNanos()).isGreaterThanOrEqualTo(attached);
+
+        final long detached = mPresenter.getLastUsedNanos();
+        mPresenter.destroy();
+        assertThat(mPresenter.getLastUsedNanos()).isEqualTo(detached);
+    }
+
     @Before
     public void setUp() throws Exception {
         mView = mock(TiView.class);
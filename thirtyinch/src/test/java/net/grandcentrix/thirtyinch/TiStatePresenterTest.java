@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import net.grandcentrix.thirtyinch.internal.TiPresenterProvider;
+import org.junit.*;
+
+public class TiStatePresenterTest {
+
+    private static class UserState implements TiViewState {
+
+        final boolean loading;
+
+        final String name;
+
+        final String[] tags;
+
+        UserState(final String name, final boolean loading, final String... tags) {
+            this.name = name;
+            this.loading = loading;
+            this.tags = tags;
+        }
+    }
+
+    private class UserPresenter extends TiStatePresenter<UserState, TiView> {
+
+        @Override
+        protected void onRender(@NonNull final TiView view, @NonNull final UserState state,
+                @NonNull final TiStateDiff diff) {
+            mRenders.add(state.name + " " + diff);
+        }
+    }
+
+    private UserPresenter mPresenter;
+
+    private final List<String> mRenders = new ArrayList<>();
+
+    @Test
+    public void conflatedWhileDetached() throws Exception {
+        mPresenter.setViewState(new UserState("Alice", false));
+        mPresenter.detachView();
+
+        mPresenter.setViewState(new UserState("Bob", true));
+        mPresenter.setViewState(new UserState("Carol", true));
+        assertThat(mRenders).containsExactly("Alice TiStateDiff{full}");
+
+        // a new view gets the latest state, no replay
+        mPresenter.attachView(mock(TiView.class));
+        assertThat(mRenders).containsExactly("Alice TiStateDiff{full}", "Carol TiStateDiff{full}");
+    }
+
+    @Test
+    public void equalStateNotRendered() throws Exception {
+        mPresenter.setViewState(new UserState("Alice", false, "admin"));
+        mPresenter.setViewState(new UserState("Alice", false, "admin"));
+
+        assertThat(mRenders).containsExactly("Alice TiStateDiff{full}");
+    }
+
+    @Test
+    public void onlyChangedFields() throws Exception {
+        mPresenter.setViewState(new UserState("Alice", true));
+        mPresenter.setViewState(new UserState("Alice", false));
+        mPresenter.setViewState(new UserState("Bob", false, "admin"));
+
+        assertThat(mRenders).containsExactly("Alice TiStateDiff{full}",
+                "Alice TiStateDiff{changed=[loading]}",
+                "Bob TiStateDiff{changed=[name, tags]}");
+        assertThat(mPresenter.getViewState().name).isEqualTo("Bob");
+    }
+
+    @Test
+    public void reattachRendersLatestState() throws Exception {
+        mPresenter.setViewState(new UserState("Alice", false));
+        mPresenter.detachView();
+
+        mPresenter.attachView(mock(TiView.class));
+
+        assertThat(mRenders).containsExactly("Alice TiStateDiff{full}",
+                "Alice TiStateDiff{full}");
+    }
+
+    @Test
+    public void releasedWithPendingDiff() throws Exception {
+        final ArrayDeque<Runnable> sharedQueue = new ArrayDeque<>();
+        TiPresenterExecutor.setSharedExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                sharedQueue.add(command);
+            }
+        });
+        final TiPresenterPool<UserPresenter> pool = new TiPresenterPool<>(
+                new TiPresenterProvider<UserPresenter>() {
+                    @NonNull
+                    @Override
+                    public UserPresenter providePresenter() {
+                        return new UserPresenter();
+                    }
+                }, new TiPresenterPool.ResetHook<UserPresenter>() {
+                    @Override
+                    public void reset(@NonNull final UserPresenter presenter) {
+                    }
+                }, 1);
+        final UserPresenter presenter = pool.acquire();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        });
+        presenter.attachView(mock(TiView.class));
+
+        // the diff is still queued when the presenter goes back to the pool
+        presenter.setViewState(new UserState("Alice", false));
+        presenter.detachView();
+        pool.release(presenter);
+        assertThat(presenter.getViewState()).isNull();
+
+        assertThat(pool.acquire()).isSameAs(presenter);
+        presenter.setViewState(new UserState("Bob", false));
+        presenter.attachView(mock(TiView.class));
+        while (!sharedQueue.isEmpty()) {
+            sharedQueue.poll().run();
+        }
+
+        assertThat(mRenders).containsExactly("Bob TiStateDiff{full}");
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final Executor inline = new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        };
+        TiPresenterExecutor.setSharedExecutor(inline);
+
+        mPresenter = new UserPresenter();
+        mPresenter.setUiThreadExecutor(inline);
+        mPresenter.create();
+        mPresenter.attachView(mock(TiView.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TiPresenterExecutor.setSharedExecutor(null);
+    }
+
+    @Test
+    public void unknownField() throws Exception {
+        final TiStateDiff diff = TiStateDiff.full(new UserState("Alice", false));
+        assertThat(diff.hasChanged("name")).isTrue();
+
+        try {
+            diff.hasChanged("nmae");
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("nmae");
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.util.concurrent.Executor;
+import org.junit.*;
+
+public class TiTraceEventExporterTest {
+
+    /**
+     * advances 1500ns on every read
+     */
+    private static class FakeClock implements TiTraceEventExporter.Clock {
+
+        long mNanos = 0;
+
+        @Override
+        public long nanoTime() {
+            final long now = mNanos;
+            mNanos += 1500;
+            return now;
+        }
+    }
+
+    private static class NoopAction implements ViewAction<TiView> {
+
+        @Override
+        public void call(final TiView view) {
+        }
+    }
+
+    private final FakeClock mClock = new FakeClock();
+
+    private TiTraceEventExporter mExporter;
+
+    private StringWriter mOutput;
+
+    @Test
+    public void closeEndsTheArray() throws Exception {
+        mExporter.close();
+        mExporter.close();
+
+        assertThat(mOutput.toString()).isEqualTo("[\n]\n");
+    }
+
+    @Test
+    public void eventsAfterCloseAreIgnored() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        mExporter.observe(presenter);
+        mExporter.close();
+        final String closed = mOutput.toString();
+
+        presenter.create();
+
+        assertThat(mOutput.toString()).isEqualTo(closed);
+    }
+
+    @Test
+    public void escape() throws Exception {
+        assertThat(TiTraceEventExporter.escape("a\"b\\c\nd")).isEqualTo("a\\\"b\\\\c\\u000ad");
+    }
+
+    @Test
+    public void flush() throws Exception {
+        final StringWriter output = new StringWriter();
+        final TiTraceEventExporter exporter =
+                new TiTraceEventExporter(new BufferedWriter(output), mClock);
+        exporter.observe(new TiMockPresenter());
+        assertThat(output.toString()).isEmpty();
+
+        exporter.flush();
+
+        assertThat(output.toString()).contains("thread_name");
+    }
+
+    @Test
+    public void flushedPeriodically() throws Exception {
+        final StringWriter output = new StringWriter();
+        final TiTraceEventExporter exporter =
+                new TiTraceEventExporter(new BufferedWriter(output), mClock);
+        final TiMockPresenter presenter = new TiMockPresenter();
+        exporter.observe(presenter);
+        presenter.create();
+
+        presenter.sendToView(new NoopAction());
+        assertThat(output.toString()).doesNotContain("sendToView");
+
+        mClock.mNanos += TiTraceEventExporter.FLUSH_INTERVAL_MILLIS * 1000000;
+        presenter.sendToView(new NoopAction());
+        assertThat(countOf(output.toString(), "\"ph\":\"s\"")).isEqualTo(2);
+    }
+
+    @Test
+    public void lifecycleMethodsFlushedWhenDue() throws Exception {
+        final StringWriter output = new StringWriter();
+        final TiTraceEventExporter exporter =
+                new TiTraceEventExporter(new BufferedWriter(output), mClock);
+        final TiMockPresenter presenter = new TiMockPresenter();
+        exporter.observe(presenter);
+
+        presenter.create();
+        assertThat(output.toString()).doesNotContain("\"name\":\"onCreate\"");
+
+        mClock.mNanos += TiTraceEventExporter.FLUSH_INTERVAL_MILLIS * 1000000;
+        presenter.attachView(mock(TiView.class));
+        assertThat(output.toString()).contains("\"name\":\"onCreate\"")
+                .contains("\"name\":\"onAttachView\"");
+    }
+
+    @Test
+    public void lifecycleOnOwnTrack() throws Exception {
+        final TiMockPresenter first = new TiMockPresenter();
+        final TiMockPresenter second = new TiMockPresenter();
+        mExporter.observe(first);
+        mExporter.observe(second);
+
+        first.create();
+        second.create();
+        first.attachView(mock(TiView.class));
+        first.detachView();
+        first.destroy();
+        mExporter.close();
+
+        final String trace = mOutput.toString();
+        assertThat(trace).startsWith("[\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,"
+                + "\"args\":{\"name\":\"TiMockPresenter #1\"}},\n");
+        assertThat(trace).contains("\"args\":{\"name\":\"TiMockPresenter #2\"}");
+        assertThat(trace).contains("{\"name\":\"onCreate\",\"cat\":\"lifecycle\",\"ph\":\"X\","
+                + "\"pid\":1,\"tid\":1,\"ts\":1.500,\"dur\":1.500}");
+        assertThat(trace).contains("{\"name\":\"onCreate\",\"cat\":\"lifecycle\",\"ph\":\"X\","
+                + "\"pid\":1,\"tid\":2,");
+        assertThat(trace).contains("\"name\":\"onAttachView\"");
+        assertThat(trace).contains("\"name\":\"onDetachView\"");
+        assertThat(trace).contains("\"name\":\"onDestroy\"");
+        assertThat(trace).endsWith("}\n]\n");
+    }
+
+    @Test
+    public void pendingActionsBounded() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        mExporter.observe(presenter);
+        presenter.create();
+
+        for (int i = 0; i < TiTraceEventExporter.MAX_PENDING_VIEW_ACTIONS + 10; i++) {
+            presenter.sendToView(new NoopAction());
+        }
+        mExporter.close();
+
+        final String trace = mOutput.toString();
+        assertThat(countOf(trace, "\"ph\":\"i\""))
+                .isEqualTo(TiTraceEventExporter.MAX_PENDING_VIEW_ACTIONS + 10);
+        assertThat(countOf(trace, "\"ph\":\"s\""))
+                .isEqualTo(TiTraceEventExporter.MAX_PENDING_VIEW_ACTIONS);
+    }
+
+    @Test
+    public void removeStopsRecording() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        final Removable removable = mExporter.observe(presenter);
+
+        removable.remove();
+        presenter.create();
+        presenter.sendToView(new NoopAction());
+        mExporter.close();
+
+        assertThat(removable.isRemoved()).isTrue();
+        assertThat(mOutput.toString()).doesNotContain("onCreate").doesNotContain("sendToView");
+    }
+
+    @Test
+    public void sendToViewConnectedWithExecution() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                command.run();
+            }
+        });
+        mExporter.observe(presenter);
+        presenter.create();
+
+        // postponed until the view is attached
+        presenter.sendToView(new NoopAction());
+        presenter.attachView(mock(TiView.class));
+        // executed right away
+        presenter.sendToView(new NoopAction());
+        mExporter.close();
+
+        final String trace = mOutput.toString();
+        assertThat(countOf(trace, "\"name\":\"sendToView\",\"cat\":\"viewaction\",\"ph\":\"i\""))
+                .isEqualTo(2);
+        assertThat(trace).contains("\"ph\":\"s\",\"bp\":\"e\",\"id\":1,")
+                .contains("\"ph\":\"f\",\"bp\":\"e\",\"id\":1,")
+                .contains("\"ph\":\"s\",\"bp\":\"e\",\"id\":2,")
+                .contains("\"ph\":\"f\",\"bp\":\"e\",\"id\":2,");
+        assertThat(countOf(trace, "\"name\":\"" + NoopAction.class.getName()
+                + "\",\"cat\":\"viewaction\",\"ph\":\"X\"")).isEqualTo(2);
+        // the postponed action is executed after onAttachView
+        assertThat(trace.indexOf("\"ph\":\"f\",\"bp\":\"e\",\"id\":1,"))
+                .isGreaterThan(trace.indexOf("\"name\":\"onAttachView\""));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mOutput = new StringWriter();
+        mExporter = new TiTraceEventExporter(mOutput, mClock);
+    }
+
+    private static int countOf(final String text, final String part) {
+        int count = 0;
+        int index = text.indexOf(part);
+        while (index >= 0) {
+            count++;
+            index = text.indexOf(part, index + part.length());
+        }
+        return count;
+    }
+}
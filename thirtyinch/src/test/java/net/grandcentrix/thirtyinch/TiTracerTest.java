@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import net.grandcentrix.thirtyinch.internal.PresenterViewBinder;
+import net.grandcentrix.thirtyinch.internal.TiLoggingTagProvider;
+import net.grandcentrix.thirtyinch.internal.TiViewProvider;
+import org.junit.*;
+
+public class TiTracerTest {
+
+    private static class RecordingTracer implements TiTracer.Tracer {
+
+        final List<String> mSections = new ArrayList<>();
+
+        @Override
+        public void beginSection(@NonNull final String name) {
+            mSections.add("begin " + name);
+        }
+
+        @Override
+        public void endSection() {
+            mSections.add("end");
+        }
+    }
+
+    private final RecordingTracer mTracer = new RecordingTracer();
+
+    @Test
+    public void bindViewSections() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.create();
+        mTracer.mSections.clear();
+
+        final PresenterViewBinder<TiView> binder = new PresenterViewBinder<>(
+                new TiLoggingTagProvider() {
+                    @Override
+                    public String getLoggingTag() {
+                        return "test";
+                    }
+                });
+        final TiViewProvider<TiView> viewProvider = new TiViewProvider<TiView>() {
+            @NonNull
+            @Override
+            public TiView provideView() {
+                return mock(TiView.class);
+            }
+        };
+        binder.bindView(presenter, viewProvider);
+
+        assertThat(mTracer.mSections).containsExactly(
+                "begin PresenterViewBinder.bindView",
+                "begin PresenterViewBinder.intercept",
+                "end",
+                "begin TiPresenter.onAttachView",
+                "end",
+                "end");
+        presenter.detachView();
+        mTracer.mSections.clear();
+
+        // the cached view doesn't get intercepted again
+        binder.bindView(presenter, viewProvider);
+        assertThat(mTracer.mSections).containsExactly(
+                "begin PresenterViewBinder.bindView",
+                "begin TiPresenter.onAttachView",
+                "end",
+                "end");
+    }
+
+    @Test
+    public void lifecycleSections() throws Exception {
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.create();
+        presenter.sendToView(new ViewAction<TiView>() {
+            @Override
+            public void call(final TiView tiView) {
+                TiTracer.beginSection("action");
+                TiTracer.endSection();
+            }
+        });
+        presenter.attachView(mock(TiView.class));
+        presenter.detachView();
+        presenter.destroy();
+
+        assertThat(mTracer.mSections).containsExactly(
+                "begin TiPresenter.onCreate", "end",
+                "begin TiPresenter.onAttachView", "end",
+                "begin TiPresenter.sendPostponedActionsToView",
+                "begin action", "end",
+                "end",
+                "begin TiPresenter.onDetachView", "end",
+                "begin TiPresenter.onDestroy", "end");
+    }
+
+    @Test
+    public void lifecycleSectionsEndWhenThrowing() throws Exception {
+        final TiPresenter<TiView> presenter = new TiPresenter<TiView>() {
+            @Override
+            protected void onAttachView(@NonNull final TiView view) {
+                super.onAttachView(view);
+                throw new IllegalArgumentException("broken view");
+            }
+        };
+        presenter.create();
+
+        try {
+            presenter.attachView(mock(TiView.class));
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("broken view");
+        }
+
+        // the section of the throwing onAttachView() got ended
+        assertThat(mTracer.mSections).containsExactly(
+                "begin TiPresenter.onCreate", "end",
+                "begin TiPresenter.onAttachView", "end");
+    }
+
+    @Test
+    public void nullTracerDisablesTracing() throws Exception {
+        TiTracer.setTracer(null);
+
+        final TiMockPresenter presenter = new TiMockPresenter();
+        presenter.create();
+
+        assertThat(mTracer.mSections).isEmpty();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        TiTracer.setTracer(mTracer);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TiTracer.setTracer(TiTracer.NOOP);
+    }
+}
@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.lang.reflect.Method;
 import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.util.ViewBindingPlan;
 import org.junit.*;
 
 public class DistinctUntilChangedInvocationHandlerTest {
@@ -95,7 +96,8 @@ public class DistinctUntilChangedInvocationHandlerTest {
     @Before
     public void setUp() {
         ducView = new TestView();
-        handler = new DistinctUntilChangedInvocationHandler<>(ducView);
+        handler = new DistinctUntilChangedInvocationHandler<>(ducView,
+                ViewBindingPlan.of(TestView.class));
     }
 
     @Test
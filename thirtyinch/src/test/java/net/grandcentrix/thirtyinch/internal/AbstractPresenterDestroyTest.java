@@ -15,6 +15,7 @@
 
 package net.grandcentrix.thirtyinch.internal;
 
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -43,21 +44,21 @@ public abstract class AbstractPresenterDestroyTest {
 
     TestPresenterSavior mSavior;
 
-    private final HashMap<String, String> activityHostBundle = new HashMap<>();
+    private final HashMap<String, Object> activityHostBundle = new HashMap<>();
 
-    private final HashMap<String, String> fakeBundle = new HashMap<>();
+    private final HashMap<String, Object> fakeBundle = new HashMap<>();
 
     @Before
     public void setUp() throws Exception {
         mSavior = new TestPresenterSavior();
         mFragmentSavedState = mock(Bundle.class);
-        doAnswer(saveInMap(fakeBundle)).when(mFragmentSavedState).putString(anyString(), anyString());
-        doAnswer(getFromMap(fakeBundle)).when(mFragmentSavedState).getString(anyString());
+        doAnswer(saveInMap(fakeBundle)).when(mFragmentSavedState).putLong(anyString(), anyLong());
+        doAnswer(getFromMap(fakeBundle)).when(mFragmentSavedState).get(anyString());
 
         mActivitySavedState = mock(Bundle.class);
         doAnswer(saveInMap(activityHostBundle)).when(mActivitySavedState)
-                .putString(anyString(), anyString());
-        doAnswer(getFromMap(activityHostBundle)).when(mActivitySavedState).getString(anyString());
+                .putLong(anyString(), anyLong());
+        doAnswer(getFromMap(activityHostBundle)).when(mActivitySavedState).get(anyString());
     }
 
     @After
@@ -66,10 +67,10 @@ public abstract class AbstractPresenterDestroyTest {
     }
 
     @NonNull
-    private Answer getFromMap(final HashMap<String, String> store) {
+    private Answer getFromMap(final HashMap<String, Object> store) {
         return new Answer() {
             @Override
-            public String answer(final InvocationOnMock invocation) throws Throwable {
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
                 //noinspection RedundantCast
                 return store.get((String) args[0]);
@@ -78,12 +79,12 @@ public abstract class AbstractPresenterDestroyTest {
     }
 
     @NonNull
-    private Answer saveInMap(final HashMap<String, String> store) {
+    private Answer saveInMap(final HashMap<String, Object> store) {
         return new Answer() {
             @Override
             public Object answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
-                store.put((String) args[0], (String) args[1]);
+                store.put((String) args[0], args[1]);
                 return null;
             }
         };
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import androidx.annotation.NonNull;
+import net.grandcentrix.thirtyinch.HostScopeResolver;
+import net.grandcentrix.thirtyinch.Removable;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import org.junit.*;
+
+public class HostScopeResolverTest {
+
+    /**
+     * a host which survives recreation by passing its id to the next instance, like a custom
+     * view saving it in its saved state
+     */
+    private static class CustomHost {
+
+        HostScopeResolver.HostFinishListener mFinishListener;
+
+        long mId = TiPresenterSavior.NO_ID;
+
+        CustomHost recreate() {
+            final CustomHost host = new CustomHost();
+            host.mId = mId;
+            host.mFinishListener = mFinishListener;
+            return host;
+        }
+
+        void finish() {
+            mFinishListener.onHostFinished(mId);
+        }
+    }
+
+    private static class CustomHostResolver implements HostScopeResolver<CustomHost> {
+
+        int mStopTrackingCount;
+
+        @Override
+        public long getHostId(@NonNull final CustomHost host) {
+            return host.mId;
+        }
+
+        @NonNull
+        @Override
+        public Class<CustomHost> getHostType() {
+            return CustomHost.class;
+        }
+
+        @Override
+        public void startTracking(@NonNull final CustomHost host, final long hostId,
+                @NonNull final HostFinishListener listener) {
+            host.mId = hostId;
+            host.mFinishListener = listener;
+        }
+
+        @Override
+        public void stopTracking(@NonNull final CustomHost host, final long hostId) {
+            host.mId = TiPresenterSavior.NO_ID;
+            mStopTrackingCount++;
+        }
+    }
+
+    private CustomHostResolver mResolver;
+
+    private TestPresenterSavior mSavior;
+
+    @Test
+    public void destroyPresentersWhenHostFinishes() throws Exception {
+        final CustomHost host = new CustomHost();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+        mSavior.save(presenter, host);
+
+        host.finish();
+
+        assertThat(presenter.isDestroyed()).isTrue();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+        assertThat(mSavior.mScopes).isEmpty();
+    }
+
+    @Test
+    public void freeLastPresenterStopsTracking() throws Exception {
+        final CustomHost host = new CustomHost();
+        final long id = mSavior.save(new TiPresenter() {
+        }, host);
+        final long id2 = mSavior.save(new TiPresenter() {
+        }, host);
+
+        mSavior.free(id, host);
+        assertThat(mResolver.mStopTrackingCount).isEqualTo(0);
+
+        mSavior.free(id2, host);
+        assertThat(mResolver.mStopTrackingCount).isEqualTo(1);
+        assertThat(host.mId).isEqualTo(TiPresenterSavior.NO_ID);
+        assertThat(mSavior.mScopes).isEmpty();
+    }
+
+    @Test
+    public void hostOfSubclass() throws Exception {
+        final CustomHost host = new CustomHost() {
+        };
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        final long id = mSavior.save(presenter, host);
+
+        assertThat(mSavior.recover(id, host)).isSameAs(presenter);
+    }
+
+    @Test
+    public void recoverWithRecreatedHost() throws Exception {
+        final CustomHost host = new CustomHost();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        final long id = mSavior.save(presenter, host);
+        assertThat(host.mId).isNotEqualTo(TiPresenterSavior.NO_ID);
+
+        final CustomHost recreated = host.recreate();
+        assertThat(mSavior.recover(id, recreated)).isSameAs(presenter);
+
+        // a different host doesn't see the presenter
+        assertThat(mSavior.recover(id, new CustomHost())).isNull();
+    }
+
+    @Test
+    public void freeAfterResolverRemoved() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final CustomHostResolver resolver = new CustomHostResolver();
+        final Removable removable = savior.addHostScopeResolver(resolver);
+        final CustomHost host = new CustomHost();
+        final long id = savior.save(new TiPresenter() {
+        }, host);
+
+        removable.remove();
+        savior.free(id, host);
+
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+        assertThat(savior.mScopes).isEmpty();
+    }
+
+    @Test
+    public void removedResolverRejectsHost() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Removable removable = savior.addHostScopeResolver(new CustomHostResolver());
+        savior.save(new TiPresenter() {
+        }, new CustomHost());
+
+        removable.remove();
+
+        try {
+            savior.save(new TiPresenter() {
+            }, new CustomHost());
+            fail("did not throw");
+        } catch (Throwable e) {
+            assertThat(e).isInstanceOf(PresenterSavior.IllegalHostException.class)
+                    .hasMessageContaining("CustomHost");
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mSavior = new TestPresenterSavior();
+        mResolver = new CustomHostResolver();
+        mSavior.addHostScopeResolver(mResolver);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import android.os.MessageQueue;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.*;
+
+public class IdleDispatcherTest {
+
+    /**
+     * stand-in for the {@link MessageQueue} of the main thread
+     */
+    private static class FakeIdleQueue implements IdleDispatcher.IdleQueue {
+
+        final List<MessageQueue.IdleHandler> mHandlers = new ArrayList<>();
+
+        @Override
+        public void addIdleHandler(@NonNull final MessageQueue.IdleHandler handler) {
+            mHandlers.add(handler);
+        }
+
+        /**
+         * calls the added handlers like the queue does when it runs out of messages
+         */
+        void idle() {
+            final List<MessageQueue.IdleHandler> handlers = new ArrayList<>(mHandlers);
+            for (final MessageQueue.IdleHandler handler : handlers) {
+                boolean keep = false;
+                try {
+                    keep = handler.queueIdle();
+                } catch (RuntimeException e) {
+                    // the queue logs and removes the handler
+                }
+                if (!keep) {
+                    mHandlers.remove(handler);
+                }
+            }
+        }
+    }
+
+    private class RecordingTask implements Runnable {
+
+        private final String mName;
+
+        RecordingTask(final String name) {
+            mName = name;
+        }
+
+        @Override
+        public void run() {
+            mExecuted.add(mName);
+        }
+    }
+
+    private final List<String> mExecuted = new ArrayList<>();
+
+    private FakeIdleQueue mQueue;
+
+    @Test
+    public void budgetSplitsIdlePhases() throws Exception {
+        // every task uses up the budget
+        final IdleDispatcher dispatcher = new IdleDispatcher(mQueue, 0);
+        dispatcher.execute(new RecordingTask("1"));
+        dispatcher.execute(new RecordingTask("2"));
+        dispatcher.execute(new RecordingTask("3"));
+
+        mQueue.idle();
+        assertThat(mExecuted).containsExactly("1");
+        assertThat(dispatcher.getPendingCount()).isEqualTo(2);
+        assertThat(mQueue.mHandlers).hasSize(1);
+
+        mQueue.idle();
+        mQueue.idle();
+        assertThat(mExecuted).containsExactly("1", "2", "3");
+        assertThat(mQueue.mHandlers).isEmpty();
+    }
+
+    @Test
+    public void drainedInOneIdlePhase() throws Exception {
+        final IdleDispatcher dispatcher = new IdleDispatcher(mQueue,
+                IdleDispatcher.DEFAULT_BUDGET_NANOS * 1000);
+        dispatcher.execute(new RecordingTask("1"));
+        dispatcher.execute(new RecordingTask("2"));
+
+        // one handler for all tasks
+        assertThat(mQueue.mHandlers).hasSize(1);
+        assertThat(mExecuted).isEmpty();
+
+        mQueue.idle();
+        assertThat(mExecuted).containsExactly("1", "2");
+        assertThat(mQueue.mHandlers).isEmpty();
+
+        // added again for new tasks
+        dispatcher.execute(new RecordingTask("3"));
+        assertThat(mQueue.mHandlers).hasSize(1);
+        mQueue.idle();
+        assertThat(mExecuted).containsExactly("1", "2", "3");
+    }
+
+    @Test
+    public void failingTaskDoesNotStopOthers() throws Exception {
+        final IdleDispatcher dispatcher = new IdleDispatcher(mQueue,
+                IdleDispatcher.DEFAULT_BUDGET_NANOS * 1000);
+        dispatcher.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("failed");
+            }
+        });
+        dispatcher.execute(new RecordingTask("2"));
+
+        mQueue.idle();
+        assertThat(mExecuted).isEmpty();
+        assertThat(mQueue.mHandlers).hasSize(1);
+
+        mQueue.idle();
+        assertThat(mExecuted).containsExactly("2");
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mQueue = new FakeIdleQueue();
+    }
+}
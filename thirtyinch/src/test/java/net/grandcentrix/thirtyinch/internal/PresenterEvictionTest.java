@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static android.content.ComponentCallbacks2.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import android.app.Activity;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+
+public class PresenterEvictionTest {
+
+    private static class EvictablePresenter extends TiPresenter<TiView> {
+
+        int onEvictedCalled = 0;
+
+        @Override
+        protected void onEvicted() {
+            super.onEvicted();
+            onEvictedCalled++;
+        }
+    }
+
+    private Activity mActivity;
+
+    private TestPresenterSavior mSavior;
+
+    @Test
+    public void budgetShrinksWithTrimLevel() throws Exception {
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_RUNNING_MODERATE))
+                .isEqualTo(10);
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_UI_HIDDEN))
+                .isEqualTo(10);
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_RUNNING_LOW))
+                .isEqualTo(5);
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_BACKGROUND))
+                .isEqualTo(5);
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_RUNNING_CRITICAL))
+                .isEqualTo(0);
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_MODERATE))
+                .isEqualTo(0);
+        assertThat(PresenterSavior.budgetForTrimLevel(10, TRIM_MEMORY_COMPLETE))
+                .isEqualTo(0);
+        assertThat(PresenterSavior.budgetForTrimLevel(PresenterSavior.UNLIMITED_BUDGET,
+                TRIM_MEMORY_COMPLETE)).isEqualTo(PresenterSavior.UNLIMITED_BUDGET);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        final EvictablePresenter oldest = createDetachedPresenter();
+        final EvictablePresenter older = createDetachedPresenter();
+        final EvictablePresenter newest = createDetachedPresenter();
+        // using the oldest presenter again makes it the most recently used one
+        oldest.attachView(mock(TiView.class));
+        oldest.detachView();
+
+        assertThat(mSavior.evictPresenters(1)).isEqualTo(2);
+
+        assertThat(older.isDestroyed()).isTrue();
+        assertThat(older.onEvictedCalled).isEqualTo(1);
+        assertThat(newest.isDestroyed()).isTrue();
+        assertThat(oldest.isDestroyed()).isFalse();
+        assertThat(oldest.onEvictedCalled).isEqualTo(0);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictedPresenterCanNotBeRecovered() throws Exception {
+        final EvictablePresenter presenter = new EvictablePresenter();
+        final long id = mSavior.save(presenter, mActivity);
+        presenter.create();
+
+        mSavior.evictPresenters(0);
+
+        assertThat(mSavior.recover(id, mActivity)).isNull();
+        // the empty scope is reused
+        mSavior.save(new EvictablePresenter(), mActivity);
+        assertThat(mSavior.mScopes).hasSize(1);
+    }
+
+    @Test
+    public void negativeBudget() throws Exception {
+        try {
+            mSavior.setEvictionBudget(-1);
+            fail("did not throw");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("-1");
+        }
+    }
+
+    @Test
+    public void neverEvictPresenterWithView() throws Exception {
+        final EvictablePresenter attached = createDetachedPresenter();
+        attached.attachView(mock(TiView.class));
+        // not created yet, can't be evicted either
+        mSavior.save(new EvictablePresenter(), mActivity);
+
+        assertThat(mSavior.evictPresenters(0)).isEqualTo(0);
+
+        assertThat(attached.isViewAttached()).isTrue();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void noEvictionByDefault() throws Exception {
+        final EvictablePresenter presenter = createDetachedPresenter();
+
+        mSavior.onTrimMemory(TRIM_MEMORY_COMPLETE);
+        mSavior.onLowMemory();
+
+        assertThat(presenter.isDestroyed()).isFalse();
+        assertThat(mSavior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void registerForTrimMemoryCallbacks() throws Exception {
+        final EvictablePresenter presenter = new EvictablePresenter();
+        final long id = mSavior.save(presenter, mActivity);
+        verify(mActivity.getApplication()).registerComponentCallbacks(mSavior);
+
+        mSavior.free(id, mActivity);
+        verify(mActivity.getApplication(), never()).unregisterComponentCallbacks(mSavior);
+
+        // unregistered when the app moves to the background without retained presenters
+        mSavior.onTrimMemory(TRIM_MEMORY_UI_HIDDEN);
+        verify(mActivity.getApplication()).unregisterComponentCallbacks(mSavior);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mSavior = new TestPresenterSavior();
+        mActivity = new HostingActivity().getMockActivityInstance();
+    }
+
+    @Test
+    public void trimMemoryEvictsAboveBudget() throws Exception {
+        mSavior.setEvictionBudget(4);
+        for (int i = 0; i < 6; i++) {
+            createDetachedPresenter();
+        }
+
+        mSavior.onTrimMemory(TRIM_MEMORY_UI_HIDDEN);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(4);
+
+        mSavior.onTrimMemory(TRIM_MEMORY_BACKGROUND);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(2);
+
+        mSavior.onTrimMemory(TRIM_MEMORY_COMPLETE);
+        assertThat(mSavior.getPresenterCount()).isEqualTo(0);
+    }
+
+    private EvictablePresenter createDetachedPresenter() throws InterruptedException {
+        final EvictablePresenter presenter = new EvictablePresenter();
+        mSavior.save(presenter, mActivity);
+        presenter.create();
+        // make sure the next presenter is used later
+        Thread.sleep(1);
+        return presenter;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static android.content.ComponentCallbacks2.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+
+public class PresenterPrefetchTest {
+
+    private static class CreatingPresenter extends TiPresenter<TiView> {
+
+        volatile Thread mCreatedOn;
+
+        @Override
+        protected void onCreate() {
+            super.onCreate();
+            mCreatedOn = Thread.currentThread();
+        }
+    }
+
+    /**
+     * executor holding the tasks until {@link #runAll()}
+     */
+    private static class PendingExecutor implements Executor {
+
+        final List<Runnable> mPending = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            mPending.add(command);
+        }
+
+        void runAll() {
+            for (final Runnable runnable : mPending) {
+                runnable.run();
+            }
+            mPending.clear();
+        }
+    }
+
+    private static class CountingProvider implements TiPresenterProvider<CreatingPresenter> {
+
+        final List<CreatingPresenter> mProvided = new ArrayList<>();
+
+        @NonNull
+        @Override
+        public synchronized CreatingPresenter providePresenter() {
+            final CreatingPresenter presenter = new CreatingPresenter();
+            mProvided.add(presenter);
+            return presenter;
+        }
+    }
+
+    private PendingExecutor mExecutor;
+
+    /**
+     * the scheduled prefetch timeouts, run them to let the timeout pass
+     */
+    private List<Runnable> mExpiries;
+
+    private CountingProvider mProvider;
+
+    private TestPresenterSavior mSavior;
+
+    @Test
+    public void adoptCreatedOnBackgroundThread() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final long token = mSavior.prefetch(mProvider, executor);
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+            final TiPresenter presenter = mSavior.adoptPrefetched(token);
+            assertThat(presenter).isSameAs(mProvider.mProvided.get(0));
+            assertThat(presenter.isInitialized()).isTrue();
+            assertThat(((CreatingPresenter) presenter).mCreatedOn)
+                    .isNotSameAs(Thread.currentThread());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void adoptOnlyOnce() throws Exception {
+        final long token = mSavior.prefetch(mProvider, mExecutor);
+        mExecutor.runAll();
+
+        assertThat(mSavior.adoptPrefetched(token)).isNotNull();
+        assertThat(mSavior.adoptPrefetched(token)).isNull();
+        assertThat(mSavior.adoptPrefetched(TiPresenterSavior.NO_ID)).isNull();
+    }
+
+    @Test
+    public void adoptPendingCreatesOnCallingThread() throws Exception {
+        final long token = mSavior.prefetch(mProvider, mExecutor);
+
+        final TiPresenter presenter = mSavior.adoptPrefetched(token);
+        assertThat(presenter.isInitialized()).isTrue();
+        assertThat(((CreatingPresenter) presenter).mCreatedOn).isSameAs(Thread.currentThread());
+
+        // the executor runs the task later, nothing is created twice
+        mExecutor.runAll();
+        assertThat(mProvider.mProvided).hasSize(1);
+    }
+
+    @Test
+    public void discardCreatedPresenter() throws Exception {
+        final long token = mSavior.prefetch(mProvider, mExecutor);
+        mExecutor.runAll();
+
+        mSavior.discardPrefetched(token);
+
+        assertThat(mProvider.mProvided.get(0).isDestroyed()).isTrue();
+        assertThat(mSavior.adoptPrefetched(token)).isNull();
+    }
+
+    @Test
+    public void discardPendingPresenter() throws Exception {
+        final long token = mSavior.prefetch(mProvider, mExecutor);
+
+        mSavior.discardPrefetched(token);
+        mExecutor.runAll();
+
+        assertThat(mProvider.mProvided).isEmpty();
+    }
+
+    @Test
+    public void discardWhenAppMovesToBackground() throws Exception {
+        mSavior.prefetch(mProvider, mExecutor);
+        mExecutor.runAll();
+
+        mSavior.onTrimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+        assertThat(mProvider.mProvided.get(0).isDestroyed()).isTrue();
+        assertThat(mSavior.mPrefetched).isEmpty();
+    }
+
+    @Test
+    public void expiresWithoutFurtherPrefetch() throws Exception {
+        final long token = mSavior.prefetch(mProvider, mExecutor);
+        mExecutor.runAll();
+
+        // the timeout passes, no other prefetch or trim memory event happens
+        for (final Runnable expiry : mExpiries) {
+            expiry.run();
+        }
+
+        assertThat(mProvider.mProvided.get(0).isDestroyed()).isTrue();
+        assertThat(mSavior.adoptPrefetched(token)).isNull();
+    }
+
+    @Test
+    public void reusedPresenterFailsOnAdopt() throws Exception {
+        final CreatingPresenter used = new CreatingPresenter();
+        used.create();
+        final long token = mSavior.prefetch(new TiPresenterProvider<CreatingPresenter>() {
+            @NonNull
+            @Override
+            public CreatingPresenter providePresenter() {
+                return used;
+            }
+        }, mExecutor);
+        mExecutor.runAll();
+
+        try {
+            mSavior.adoptPrefetched(token);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("Presenter not in initialized state")
+                    .hasMessageContaining("providePresenter");
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mExpiries = new ArrayList<>();
+        final ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+        when(timer.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(new Answer<ScheduledFuture<?>>() {
+                    @Override
+                    public ScheduledFuture<?> answer(final InvocationOnMock invocation)
+                            throws Throwable {
+                        mExpiries.add((Runnable) invocation.getArguments()[0]);
+                        return mock(ScheduledFuture.class);
+                    }
+                });
+        mSavior = new TestPresenterSavior();
+        mSavior.setPrefetchTimer(timer);
+        mExecutor = new PendingExecutor();
+        mProvider = new CountingProvider();
+    }
+}
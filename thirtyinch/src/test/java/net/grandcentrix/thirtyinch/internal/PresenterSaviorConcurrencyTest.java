@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import android.app.Activity;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import org.junit.*;
+
+public class PresenterSaviorConcurrencyTest {
+
+    private static final int ITERATIONS = 500;
+
+    private static final int THREADS = 8;
+
+    private ExecutorService mExecutor;
+
+    @Test(timeout = 30000)
+    public void concurrentFirstSaveCreatesSingleScope() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Activity activity = new HostingActivity().getMockActivityInstance();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(mExecutor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    start.await();
+                    return savior.save(new TiPresenter() {
+                    }, activity);
+                }
+            }));
+        }
+        start.countDown();
+
+        final HashSet<Long> ids = new HashSet<>();
+        for (final Future<Long> future : futures) {
+            final long id = future.get();
+            assertThat(savior.recover(id, activity)).isNotNull();
+            ids.add(id);
+        }
+
+        assertThat(ids).hasSize(THREADS);
+        assertThat(savior.getPresenterCount()).isEqualTo(THREADS);
+        assertThat(savior.mScopes).hasSize(1);
+    }
+
+    @Test(timeout = 30000)
+    public void saveRecoverFreeFromManyThreads() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        // a few hosts shared by all threads, emptied scopes get removed and recreated
+        final Activity[] activities = new Activity[3];
+        for (int i = 0; i < activities.length; i++) {
+            activities[i] = new HostingActivity().getMockActivityInstance();
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(mExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        final Activity activity = activities[(thread + i) % activities.length];
+                        final TiPresenter presenter = new TiPresenter() {
+                        };
+                        final long id = savior.save(presenter, activity);
+                        assertThat(savior.recover(id, activity)).isSameAs(presenter);
+                        savior.free(id, activity);
+                        assertThat(savior.recover(id, activity)).isNull();
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        for (final Future<?> future : futures) {
+            // rethrows assertion errors of the worker threads
+            future.get();
+        }
+
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+        assertThat(savior.mScopes).isEmpty();
+        assertThat(savior.mActivityInstanceObserver).isNull();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mExecutor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mExecutor.shutdownNow();
+        mExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -16,12 +16,16 @@
 package net.grandcentrix.thirtyinch.internal;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import java.util.HashMap;
+import net.grandcentrix.thirtyinch.TiHostCache;
 import net.grandcentrix.thirtyinch.TiPresenter;
 import org.junit.*;
 import org.mockito.invocation.*;
@@ -29,7 +33,7 @@ import org.mockito.stubbing.*;
 
 public class PresenterSaviorTest {
 
-    private final HashMap<String, String> fakeBundle = new HashMap<>();
+    private final HashMap<String, Object> fakeBundle = new HashMap<>();
 
     private Bundle mSavedState;
 
@@ -42,7 +46,7 @@ public class PresenterSaviorTest {
         // create lifecycle callbacks with different scope
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(id).isNotNull();
         assertThat(savior.getPresenterCount()).isEqualTo(1);
         assertThat(savior.mScopes).hasSize(1);
@@ -69,10 +73,10 @@ public class PresenterSaviorTest {
         };
 
         // When both are saved in savior
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
-        final String id2 = savior.save(presenter2, hostingActivity.getMockActivityInstance());
+        final long id2 = savior.save(presenter2, hostingActivity.getMockActivityInstance());
 
         // Then the ids are different
         assertThat(id2).isNotEqualTo(id);
@@ -101,7 +105,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
         assertThat(savior.mScopes).hasSize(1);
 
@@ -109,7 +113,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity2 = new HostingActivity();
         final TiPresenter presenter2 = new TiPresenter() {
         };
-        final String id2 = savior.save(presenter2, hostingActivity2.getMockActivityInstance());
+        final long id2 = savior.save(presenter2, hostingActivity2.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(2);
         assertThat(savior.mScopes).hasSize(2);
 
@@ -138,9 +142,9 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
 
         hostingActivity.setFinishing(true);
         savior.mActivityInstanceObserver
@@ -158,7 +162,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         savior.free(id, hostingActivity.getMockActivityInstance());
@@ -173,13 +177,13 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         savior.free(id, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(0);
 
-        final String id2 = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id2 = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(id2).isNotEqualTo(id);
 
         assertThat(savior.getPresenterCount()).isEqualTo(1);
@@ -193,7 +197,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         savior.free(id, hostingActivity.getMockActivityInstance());
@@ -214,7 +218,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         final HostingActivity hostingActivity2 = new HostingActivity();
@@ -229,9 +233,9 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
 
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
@@ -246,9 +250,9 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
 
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
@@ -256,6 +260,102 @@ public class PresenterSaviorTest {
         assertThat(savior.getPresenterCount()).isEqualTo(1);
     }
 
+    @Test
+    public void lifecycleDispatcherInstalledOnce() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Activity activity = new HostingActivity().getMockActivityInstance();
+
+        // open and close a screen with a single presenter a few times
+        for (int i = 0; i < 3; i++) {
+            final long id = savior.save(new TiPresenter() {
+            }, activity);
+            assertThat(savior.mLifecycleDispatcher.getCallbacks())
+                    .isSameAs(savior.mActivityInstanceObserver);
+            savior.free(id, activity);
+            assertThat(savior.mActivityInstanceObserver).isNull();
+            assertThat(savior.mLifecycleDispatcher.getCallbacks()).isNull();
+        }
+
+        verify(activity.getApplication())
+                .registerActivityLifecycleCallbacks(savior.mLifecycleDispatcher);
+        verify(activity.getApplication(), never())
+                .unregisterActivityLifecycleCallbacks(savior.mLifecycleDispatcher);
+        assertThat(savior.mLifecycleDispatcher.isInstalled()).isTrue();
+
+        // uninstalled in background
+        savior.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        verify(activity.getApplication())
+                .unregisterActivityLifecycleCallbacks(savior.mLifecycleDispatcher);
+        assertThat(savior.mLifecycleDispatcher.isInstalled()).isFalse();
+    }
+
+    @Test
+    public void lifecycleDispatcherStaysInstalledWithScopes() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final Activity activity = new HostingActivity().getMockActivityInstance();
+        savior.save(new TiPresenter() {
+        }, activity);
+
+        savior.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertThat(savior.mLifecycleDispatcher.isInstalled()).isTrue();
+        verify(activity.getApplication(), never())
+                .unregisterActivityLifecycleCallbacks(savior.mLifecycleDispatcher);
+    }
+
+    @Test
+    public void hostCacheSharedUntilHostFinishes() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final HostingActivity hostingActivity = new HostingActivity();
+        final long id = savior.save(new TiPresenter() {
+        }, hostingActivity.getMockActivityInstance());
+
+        final TiHostCache cache = savior.getHostCache(hostingActivity.getMockActivityInstance());
+        cache.put("user", "Bob");
+        assertThat(savior.getHostCache(hostingActivity.getMockActivityInstance()))
+                .isSameAs(cache);
+        assertThat(savior.getHostCache(new HostingActivity().getMockActivityInstance()))
+                .isNotSameAs(cache);
+
+        // kept when the last presenter is freed while the host is alive
+        savior.free(id, hostingActivity.getMockActivityInstance());
+        assertThat(savior.getHostCache(hostingActivity.getMockActivityInstance()))
+                .isSameAs(cache);
+
+        // Activity changes configuration
+        savior.mActivityInstanceObserver.onActivitySaveInstanceState(
+                hostingActivity.getMockActivityInstance(), mSavedState);
+        savior.mActivityInstanceObserver
+                .onActivityDestroyed(hostingActivity.getMockActivityInstance());
+        final HostingActivity hostingActivity2 = new HostingActivity();
+        savior.mActivityInstanceObserver.onActivityCreated(
+                hostingActivity2.getMockActivityInstance(), mSavedState);
+        assertThat(savior.getHostCache(hostingActivity2.getMockActivityInstance()))
+                .isSameAs(cache);
+        assertThat(cache.<String>getIfPresent("user")).isEqualTo("Bob");
+
+        // Activity finishes
+        hostingActivity2.setFinishing(true);
+        savior.mActivityInstanceObserver
+                .onActivityDestroyed(hostingActivity2.getMockActivityInstance());
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void readSavedIdIgnoresLegacyStringIds() throws Exception {
+        assertThat(PresenterSavior.readSavedId(null, "key")).isEqualTo(TiPresenterSavior.NO_ID);
+        assertThat(PresenterSavior.readSavedId(mSavedState, "key"))
+                .isEqualTo(TiPresenterSavior.NO_ID);
+
+        // ids saved by previous versions
+        fakeBundle.put("key", "TiPresenter:1234:5678");
+        assertThat(PresenterSavior.readSavedId(mSavedState, "key"))
+                .isEqualTo(TiPresenterSavior.NO_ID);
+
+        mSavedState.putLong("key", 42L);
+        assertThat(PresenterSavior.readSavedId(mSavedState, "key")).isEqualTo(42L);
+    }
+
     @Test
     public void recoverKeyWithNewActivity() throws Exception {
         final TestPresenterSavior savior = new TestPresenterSavior();
@@ -263,12 +363,12 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
 
         // Activity changes configuration
         savior.mActivityInstanceObserver.onActivitySaveInstanceState(
                 hostingActivity.getMockActivityInstance(), mSavedState);
-        final String scopeId = fakeBundle.get(ActivityInstanceObserver.TI_ACTIVITY_ID_KEY);
+        final Object scopeId = fakeBundle.get(ActivityInstanceObserver.TI_ACTIVITY_ID_KEY);
         assertThat(scopeId).isNotNull();
         savior.mActivityInstanceObserver
                 .onActivityDestroyed(hostingActivity.getMockActivityInstance());
@@ -288,7 +388,7 @@ public class PresenterSaviorTest {
     public void recoverUnsupportedHost() throws Exception {
         final TestPresenterSavior savior = new TestPresenterSavior();
         try {
-            savior.recover("someRandomId", "not supported host");
+            savior.recover(42L, "not supported host");
             fail("did not throw");
         } catch (Throwable e) {
             assertThat(e).isInstanceOf(PresenterSavior.IllegalHostException.class)
@@ -304,7 +404,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         final HostingActivity hostingActivity2 = new HostingActivity();
@@ -314,6 +414,26 @@ public class PresenterSaviorTest {
         assertThat(savior.getPresenterCount()).isEqualTo(1);
     }
 
+    @Test
+    public void recoverDestroyedPresenter() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+
+        final HostingActivity hostingActivity = new HostingActivity();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        presenter.create();
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+
+        // destroyed without telling the savior
+        presenter.evict();
+
+        final TiPresenter recovered = savior.recover(id, hostingActivity.getMockActivityInstance());
+        assertThat(recovered).isNull();
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+        // the emptied scope got freed
+        assertThat(savior.mScopes).isEmpty();
+    }
+
     @Test
     public void restoreFromSavior() throws Exception {
 
@@ -322,7 +442,7 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
 
         final TiPresenter recovered = savior.recover(id, hostingActivity.getMockActivityInstance());
@@ -338,9 +458,14 @@ public class PresenterSaviorTest {
         final HostingActivity hostingActivity = new HostingActivity();
         final TiPresenter presenter = new TiPresenter() {
         };
-        final String id = savior.save(presenter, hostingActivity.getMockActivityInstance());
+        final long id = savior.save(presenter, hostingActivity.getMockActivityInstance());
         assertThat(savior.getPresenterCount()).isEqualTo(1);
-        assertThat(id).isNotEmpty().isNotNull();
+        assertThat(id).isNotEqualTo(TiPresenterSavior.NO_ID);
+
+        // ids are increasing
+        final long id2 = savior.save(new TiPresenter() {
+        }, hostingActivity.getMockActivityInstance());
+        assertThat(id2).isGreaterThan(id);
     }
 
     @Test
@@ -360,15 +485,15 @@ public class PresenterSaviorTest {
     @Before
     public void setUp() throws Exception {
         mSavedState = mock(Bundle.class);
-        doAnswer(saveInMap()).when(mSavedState).putString(anyString(), anyString());
-        doAnswer(getFromMap()).when(mSavedState).getString(anyString());
+        doAnswer(saveInMap()).when(mSavedState).putLong(anyString(), anyLong());
+        doAnswer(getFromMap()).when(mSavedState).get(anyString());
     }
 
     @NonNull
     private Answer getFromMap() {
         return new Answer() {
             @Override
-            public String answer(final InvocationOnMock invocation) throws Throwable {
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
                 //noinspection RedundantCast
                 return fakeBundle.get((String) args[0]);
@@ -382,7 +507,7 @@ public class PresenterSaviorTest {
             @Override
             public Object answer(final InvocationOnMock invocation) throws Throwable {
                 final Object[] args = invocation.getArguments();
-                fakeBundle.put((String) args[0], (String) args[1]);
+                fakeBundle.put((String) args[0], args[1]);
                 return null;
             }
         };
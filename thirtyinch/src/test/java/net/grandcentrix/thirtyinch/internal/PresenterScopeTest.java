@@ -18,6 +18,7 @@ package net.grandcentrix.thirtyinch.internal;
 import static org.assertj.core.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import net.grandcentrix.thirtyinch.TiPresenter;
 import org.junit.*;
 
@@ -29,7 +30,7 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter = new TiPresenter() {
         };
-        scope.save("a", presenter);
+        scope.save(1L, presenter);
 
         assertThat(scope.getAll())
                 .hasSize(1)
@@ -37,7 +38,7 @@ public class PresenterScopeTest {
 
         assertThat(scope.size()).isEqualTo(1);
         assertThat(scope.getAllMappings()).hasSize(1);
-        assertThat(scope.getAllMappings().get(0).getKey()).isEqualTo("a");
+        assertThat(scope.getAllMappings().get(0).getKey()).isEqualTo(1L);
         assertThat(scope.getAllMappings().get(0).getValue()).isEqualTo(presenter);
     }
 
@@ -47,12 +48,12 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter1 = new TiPresenter() {
         };
-        scope.save("a", presenter1);
+        scope.save(1L, presenter1);
 
         // add second presenter with different id
         final TiPresenter presenter2 = new TiPresenter() {
         };
-        scope.save("b", presenter2);
+        scope.save(2L, presenter2);
 
         assertThat(scope.size()).isEqualTo(2);
 
@@ -61,6 +62,41 @@ public class PresenterScopeTest {
                 .contains(presenter1, presenter2);
     }
 
+    @Test
+    public void saveAndRemoveThousandPresenters() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final ArrayList<TiPresenter> presenters = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final TiPresenter presenter = new TiPresenter() {
+            };
+            presenters.add(presenter);
+            scope.save(i + 1, presenter);
+        }
+        assertThat(scope.size()).isEqualTo(1000);
+        assertThat(scope.presenters()).hasSize(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(scope.getId(presenters.get(i))).isEqualTo(i + 1);
+            assertThat(scope.remove(i + 1)).isSameAs(presenters.get(i));
+        }
+        assertThat(scope.isEmpty()).isTrue();
+        assertThat(scope.getId(presenters.get(0))).isEqualTo(TiPresenterSavior.NO_ID);
+    }
+
+    @Test
+    public void getIdOfPresenter() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        assertThat(scope.getId(presenter)).isEqualTo(TiPresenterSavior.NO_ID);
+
+        scope.save(1L, presenter);
+        assertThat(scope.getId(presenter)).isEqualTo(1L);
+
+        scope.remove(1L);
+        assertThat(scope.getId(presenter)).isEqualTo(TiPresenterSavior.NO_ID);
+    }
+
     @Test
     public void getAllIsEmptyNotNullForEmptyScope() throws Exception {
         final PresenterScope scope = new PresenterScope();
@@ -81,16 +117,35 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter1 = new TiPresenter() {
         };
-        scope.save("myId", presenter1);
+        scope.save(42L, presenter1);
 
         // override with same id throws
         final TiPresenter presenter2 = new TiPresenter() {
         };
         try {
-            scope.save("myId", presenter2);
+            scope.save(42L, presenter2);
             fail("did not throw");
         } catch (IllegalStateException e) {
-            assertThat(e).hasMessageContaining("myId");
+            assertThat(e).hasMessageContaining("42");
+        }
+    }
+
+    @Test
+    public void presentersIsLiveView() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final Collection<TiPresenter> presenters = scope.presenters();
+        assertThat(presenters).isEmpty();
+
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        scope.save(1L, presenter);
+        assertThat(presenters).containsExactly(presenter);
+
+        try {
+            presenters.clear();
+            fail("did not throw");
+        } catch (UnsupportedOperationException e) {
+            assertThat(scope.size()).isEqualTo(1);
         }
     }
 
@@ -100,13 +155,13 @@ public class PresenterScopeTest {
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter = new TiPresenter() {
         };
-        scope.save("a", presenter);
+        scope.save(1L, presenter);
 
         assertThat(scope.getAll())
                 .hasSize(1)
                 .contains(presenter);
 
-        final TiPresenter removedPresenter = scope.remove("a");
+        final TiPresenter removedPresenter = scope.remove(1L);
 
         assertThat(scope.getAll()).isEmpty();
         assertThat(removedPresenter).isEqualTo(presenter);
@@ -115,7 +170,7 @@ public class PresenterScopeTest {
     @Test
     public void removePresenterNotInScope() throws Exception {
         final PresenterScope scope = new PresenterScope();
-        final TiPresenter removedPresenter = scope.remove("a");
+        final TiPresenter removedPresenter = scope.remove(1L);
         assertThat(removedPresenter).isNull();
     }
 
@@ -123,7 +178,7 @@ public class PresenterScopeTest {
     public void saveNullPresenterThrows() throws Exception {
         final PresenterScope scope = new PresenterScope();
         try {
-            scope.save("a", null);
+            scope.save(1L, null);
             fail("did not throw");
         } catch (IllegalStateException e) {
             assertThat(e).hasMessageContaining("null").hasMessageContaining("presenter");
@@ -131,31 +186,44 @@ public class PresenterScopeTest {
     }
 
     @Test
-    public void savePresenterWithNullIdThrows() throws Exception {
+    public void savePresenterWithNoIdThrows() throws Exception {
         final PresenterScope scope = new PresenterScope();
         try {
-            scope.save(null, new TiPresenter() {
+            scope.save(TiPresenterSavior.NO_ID, new TiPresenter() {
             });
             fail("did not throw");
         } catch (IllegalStateException e) {
-            assertThat(e).hasMessageContaining("null").hasMessageContaining("id");
+            assertThat(e).hasMessageContaining("NO_ID").hasMessageContaining("id");
         }
     }
 
+    @Test
+    public void saveSamePresenterAgainAfterRemove() throws Exception {
+        final PresenterScope scope = new PresenterScope();
+        final TiPresenter presenter = new TiPresenter() {
+        };
+        scope.save(1L, presenter);
+        scope.remove(1L);
+
+        scope.save(2L, presenter);
+        assertThat(scope.get(2L)).isSameAs(presenter);
+        assertThat(scope.getId(presenter)).isEqualTo(2L);
+    }
+
     @Test
     public void saveSamePresenterTwiceThrows() throws Exception {
 
         final PresenterScope scope = new PresenterScope();
         final TiPresenter presenter = new TiPresenter() {
         };
-        scope.save("myId", presenter);
+        scope.save(42L, presenter);
 
         // try to save the same presenter with a different id
         try {
-            scope.save("b", presenter);
+            scope.save(2L, presenter);
             fail("did not throw");
         } catch (IllegalStateException e) {
-            assertThat(e).hasMessageContaining("myId");
+            assertThat(e).hasMessageContaining("42");
         }
     }
 }
\ No newline at end of file
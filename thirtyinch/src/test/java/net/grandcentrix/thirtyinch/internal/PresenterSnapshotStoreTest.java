@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import androidx.annotation.NonNull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+import org.junit.rules.*;
+
+public class PresenterSnapshotStoreTest {
+
+    private static class CounterPresenter extends TiPresenter<TiView> {
+
+        int mCount;
+
+        byte[] mPayload = new byte[0];
+
+        @Override
+        protected void onRestoreSnapshot(@NonNull final DataInput in) throws IOException {
+            super.onRestoreSnapshot(in);
+            mCount = in.readInt();
+            mPayload = new byte[in.readInt()];
+            in.readFully(mPayload);
+        }
+
+        @Override
+        protected void onSaveSnapshot(@NonNull final DataOutput out) throws IOException {
+            super.onSaveSnapshot(out);
+            out.writeInt(mCount);
+            out.writeInt(mPayload.length);
+            out.write(mPayload);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder mTempFolder = new TemporaryFolder();
+
+    private PresenterSnapshotStore mStore;
+
+    @Test
+    public void deleteSnapshot() throws Exception {
+        final CounterPresenter presenter = new CounterPresenter();
+        presenter.create();
+        mStore.save(42L, presenter);
+
+        mStore.delete(42L);
+
+        assertThat(mStore.restore(42L, new CounterPresenter())).isFalse();
+    }
+
+    @Test
+    public void ignoreCorruptSnapshot() throws Exception {
+        final FileOutputStream out = new FileOutputStream(new File(mTempFolder.getRoot(),
+                "42.snapshot"));
+        out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        out.close();
+
+        final CounterPresenter presenter = new CounterPresenter();
+        assertThat(mStore.restore(42L, presenter)).isFalse();
+        assertThat(mTempFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void overwriteSnapshot() throws Exception {
+        final CounterPresenter presenter = new CounterPresenter();
+        presenter.create();
+        presenter.mPayload = new byte[4096];
+        mStore.save(42L, presenter);
+        presenter.mCount = 2;
+        presenter.mPayload = new byte[]{7};
+        mStore.save(42L, presenter);
+
+        final CounterPresenter restored = new CounterPresenter();
+        assertThat(mStore.restore(42L, restored)).isTrue();
+        assertThat(restored.mCount).isEqualTo(2);
+        assertThat(restored.mPayload).containsExactly(7);
+    }
+
+    @Test
+    public void pruneOutdatedSnapshots() throws Exception {
+        final File outdated = mTempFolder.newFile("1.snapshot");
+        assertThat(outdated.setLastModified(
+                System.currentTimeMillis() - PresenterSnapshotStore.MAX_AGE_MILLIS - 1000))
+                .isTrue();
+        final File recent = mTempFolder.newFile("2.snapshot");
+
+        final CounterPresenter presenter = new CounterPresenter();
+        presenter.create();
+        mStore.save(42L, presenter);
+
+        assertThat(outdated.exists()).isFalse();
+        assertThat(recent.exists()).isTrue();
+    }
+
+    @Test
+    public void restoreMissingSnapshot() throws Exception {
+        final CounterPresenter presenter = new CounterPresenter();
+        assertThat(mStore.restore(42L, presenter)).isFalse();
+        assertThat(presenter.mCount).isEqualTo(0);
+    }
+
+    @Test
+    public void restoreRequiresNewPresenter() throws Exception {
+        final CounterPresenter presenter = new CounterPresenter();
+        presenter.create();
+        mStore.save(42L, presenter);
+
+        try {
+            mStore.restore(42L, presenter);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("before create()");
+        }
+    }
+
+    @Test
+    public void saveDestroyedPresenter() throws Exception {
+        final CounterPresenter presenter = new CounterPresenter();
+        presenter.create();
+        presenter.destroy();
+
+        assertThat(mStore.save(42L, presenter)).isFalse();
+        assertThat(mTempFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void saveAndRestore() throws Exception {
+        final CounterPresenter presenter = new CounterPresenter();
+        presenter.create();
+        presenter.mCount = 5;
+        presenter.mPayload = new byte[]{1, 2, 3};
+        assertThat(mStore.save(42L, presenter)).isTrue();
+
+        final CounterPresenter restored = new CounterPresenter();
+        assertThat(mStore.restore(42L, restored)).isTrue();
+        assertThat(restored.mCount).isEqualTo(5);
+        assertThat(restored.mPayload).containsExactly(1, 2, 3);
+
+        // snapshots are restored once
+        assertThat(mStore.restore(42L, new CounterPresenter())).isFalse();
+    }
+
+    @Test
+    public void saveRequiresCreatedPresenter() throws Exception {
+        try {
+            new CounterPresenter().saveSnapshot(null);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("INITIALIZED");
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mStore = new PresenterSnapshotStore(mTempFolder.getRoot());
+    }
+}
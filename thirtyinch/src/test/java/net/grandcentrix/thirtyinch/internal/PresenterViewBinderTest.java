@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.Removable;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import org.junit.*;
+
+public class PresenterViewBinderTest {
+
+    private static class CountingInterceptor implements BindViewInterceptor {
+
+        int interceptCount = 0;
+
+        @Override
+        public <V extends TiView> V intercept(final V view) {
+            interceptCount++;
+            return view;
+        }
+    }
+
+    private PresenterViewBinder<TiView> mBinder;
+
+    private TiPresenter<TiView> mPresenter;
+
+    private int mProvideViewCount;
+
+    private final TiViewProvider<TiView> mViewProvider = new TiViewProvider<TiView>() {
+        @NonNull
+        @Override
+        public TiView provideView() {
+            mProvideViewCount++;
+            return mock(TiView.class);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        mBinder = new PresenterViewBinder<>(new TiLoggingTagProvider() {
+            @Override
+            public String getLoggingTag() {
+                return "Test";
+            }
+        });
+        mPresenter = new TiPresenter<TiView>() {
+        };
+        mPresenter.create();
+        mProvideViewCount = 0;
+    }
+
+    @Test
+    public void addInterceptorAfterBindOnlyRunsNewInterceptor() throws Exception {
+        final CountingInterceptor first = new CountingInterceptor();
+        mBinder.addBindViewInterceptor(first);
+        bindAndDetach();
+
+        final CountingInterceptor second = new CountingInterceptor();
+        mBinder.addBindViewInterceptor(second);
+        bindAndDetach();
+
+        assertThat(first.interceptCount).isEqualTo(1);
+        assertThat(second.interceptCount).isEqualTo(1);
+        assertThat(mProvideViewCount).isEqualTo(1);
+    }
+
+    @Test
+    public void addInterceptorsInBatch() throws Exception {
+        final CountingInterceptor first = new CountingInterceptor();
+        final CountingInterceptor second = new CountingInterceptor();
+        mBinder.addBindViewInterceptors(Arrays.asList(first, second));
+
+        assertThat(mBinder.getInterceptors(new InterceptableViewBinder.Filter<BindViewInterceptor>() {
+            @Override
+            public boolean apply(final BindViewInterceptor it) {
+                return true;
+            }
+        })).containsExactly(first, second);
+
+        bindAndDetach();
+        bindAndDetach();
+
+        assertThat(first.interceptCount).isEqualTo(1);
+        assertThat(second.interceptCount).isEqualTo(1);
+        assertThat(mBinder.getInterceptedViewOf(second)).isNotNull();
+    }
+
+    @Test
+    public void invalidateViewRunsAllInterceptors() throws Exception {
+        final CountingInterceptor first = new CountingInterceptor();
+        final CountingInterceptor second = new CountingInterceptor();
+        mBinder.addBindViewInterceptors(Arrays.asList(first, second));
+        bindAndDetach();
+
+        mBinder.invalidateView();
+        assertThat(mBinder.getInterceptedViewOf(first)).isNull();
+        bindAndDetach();
+
+        assertThat(first.interceptCount).isEqualTo(2);
+        assertThat(second.interceptCount).isEqualTo(2);
+        assertThat(mProvideViewCount).isEqualTo(2);
+    }
+
+    @Test
+    public void removeBatchRemovesAllInterceptors() throws Exception {
+        final CountingInterceptor first = new CountingInterceptor();
+        final CountingInterceptor second = new CountingInterceptor();
+        final CountingInterceptor third = new CountingInterceptor();
+        mBinder.addBindViewInterceptor(first);
+        final Removable removable = mBinder.addBindViewInterceptors(Arrays.asList(second, third));
+        bindAndDetach();
+
+        removable.remove();
+        assertThat(mBinder.getInterceptedViewOf(second)).isNull();
+        assertThat(mBinder.getInterceptedViewOf(third)).isNull();
+        bindAndDetach();
+
+        // the view of the first interceptor is still valid
+        assertThat(first.interceptCount).isEqualTo(1);
+        assertThat(second.interceptCount).isEqualTo(1);
+        assertThat(third.interceptCount).isEqualTo(1);
+    }
+
+    @Test
+    public void removeInterceptorInTheMiddleRerunsFollowingInterceptors() throws Exception {
+        final CountingInterceptor first = new CountingInterceptor();
+        final CountingInterceptor second = new CountingInterceptor();
+        final CountingInterceptor third = new CountingInterceptor();
+        mBinder.addBindViewInterceptor(first);
+        final Removable removable = mBinder.addBindViewInterceptor(second);
+        mBinder.addBindViewInterceptor(third);
+        bindAndDetach();
+
+        removable.remove();
+        bindAndDetach();
+
+        assertThat(first.interceptCount).isEqualTo(1);
+        assertThat(second.interceptCount).isEqualTo(1);
+        assertThat(third.interceptCount).isEqualTo(2);
+    }
+
+    private void bindAndDetach() {
+        mPresenter.setUiThreadExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        });
+        mBinder.bindView(mPresenter, mViewProvider);
+        assertThat(mPresenter.isViewAttached()).isTrue();
+        mPresenter.detachView();
+    }
+}
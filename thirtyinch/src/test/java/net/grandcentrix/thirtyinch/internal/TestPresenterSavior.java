@@ -22,10 +22,6 @@ package net.grandcentrix.thirtyinch.internal;
 public class TestPresenterSavior extends PresenterSavior {
 
     public int getPresenterCount() {
-        if (mScopes.isEmpty()) {
-            return 0;
-        }
-
         int size = 0;
         for (final PresenterScope scope : mScopes.values()) {
             size += scope.size();
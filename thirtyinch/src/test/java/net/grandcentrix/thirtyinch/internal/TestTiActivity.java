@@ -37,10 +37,18 @@ public class TestTiActivity
 
         private TiPresenter<TiView> mPresenter;
 
+        private Executor mPresenterCreationExecutor;
+
         private TiPresenterProvider<TiPresenter<TiView>> mPresenterProvider;
 
+        private long mPrefetchToken = TiPresenterSavior.NO_ID;
+
         private TiPresenterSavior mSavior = new PresenterSavior();
 
+        private PresenterSnapshotStore mSnapshotStore;
+
+        private Executor mUiThreadExecutor;
+
         public Builder() {
         }
 
@@ -55,7 +63,19 @@ public class TestTiActivity
                     }
                 };
             }
-            return new TestTiActivity(presenterProvider, mSavior);
+            final TestTiActivity activity = new TestTiActivity(presenterProvider, mSavior);
+            if (mUiThreadExecutor != null) {
+                activity.mUiThreadExecutor = mUiThreadExecutor;
+            }
+            activity.mDelegate.setPrefetchToken(mPrefetchToken);
+            activity.mDelegate.setPresenterCreationExecutor(mPresenterCreationExecutor);
+            activity.mDelegate.setSnapshotStore(mSnapshotStore);
+            return activity;
+        }
+
+        public Builder setPrefetchToken(final long token) {
+            mPrefetchToken = token;
+            return this;
         }
 
         public Builder setPresenter(TiPresenter<TiView> presenter) {
@@ -63,6 +83,11 @@ public class TestTiActivity
             return this;
         }
 
+        public Builder setPresenterCreationExecutor(final Executor executor) {
+            mPresenterCreationExecutor = executor;
+            return this;
+        }
+
         public Builder setPresenterProvider(
                 TiPresenterProvider<TiPresenter<TiView>> provider) {
             mPresenterProvider = provider;
@@ -73,12 +98,29 @@ public class TestTiActivity
             mSavior = savior;
             return this;
         }
+
+        public Builder setSnapshotStore(final PresenterSnapshotStore snapshotStore) {
+            mSnapshotStore = snapshotStore;
+            return this;
+        }
+
+        public Builder setUiThreadExecutor(final Executor uiThreadExecutor) {
+            mUiThreadExecutor = uiThreadExecutor;
+            return this;
+        }
     }
 
     private final TiActivityDelegate<TiPresenter<TiView>, TiView> mDelegate;
 
     private final HostingActivity mHostingActivity = new HostingActivity();
 
+    private Executor mUiThreadExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable action) {
+            action.run();
+        }
+    };
+
 
     private TestTiActivity(final TiPresenterProvider<TiPresenter<TiView>> presenterProvider,
             final TiPresenterSavior savior) {
@@ -107,12 +149,7 @@ public class TestTiActivity
 
     @Override
     public Executor getUiThreadExecutor() {
-        return new Executor() {
-            @Override
-            public void execute(@NonNull final Runnable action) {
-                action.run();
-            }
-        };
+        return mUiThreadExecutor;
     }
 
     @Override
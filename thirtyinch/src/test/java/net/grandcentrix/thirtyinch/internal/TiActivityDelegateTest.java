@@ -16,12 +16,222 @@
 package net.grandcentrix.thirtyinch.internal;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
 import org.junit.*;
+import org.junit.rules.*;
+import org.mockito.*;
 
 public class TiActivityDelegateTest extends AbstractPresenterDestroyTest {
 
+    private static class SnapshotPresenter extends TiPresenter<TiView> {
+
+        String mQuery;
+
+        boolean mRestored;
+
+        SnapshotPresenter() {
+            super(new TiConfiguration.Builder().setStateSnapshotEnabled(true).build());
+        }
+
+        @Override
+        protected void onRestoreSnapshot(@NonNull final DataInput in) throws IOException {
+            super.onRestoreSnapshot(in);
+            mQuery = in.readUTF();
+            mRestored = true;
+        }
+
+        @Override
+        protected void onSaveSnapshot(@NonNull final DataOutput out) throws IOException {
+            super.onSaveSnapshot(out);
+            out.writeUTF(mQuery);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder mTempFolder = new TemporaryFolder();
+
+    @Test
+    public void adoptPrefetchedPresenter() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final TestPresenter prefetched = new TestPresenter(TiConfiguration.DEFAULT);
+        final long token = savior.prefetch(new TiPresenterProvider<TiPresenter<TiView>>() {
+            @NonNull
+            @Override
+            public TiPresenter<TiView> providePresenter() {
+                return prefetched;
+            }
+        }, new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                command.run();
+            }
+        });
+        assertThat(prefetched.isInitialized()).isTrue();
+
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setPrefetchToken(token)
+                .setPresenterProvider(new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        throw new AssertionError("prefetched presenter should be adopted");
+                    }
+                })
+                .build();
+        activity.onCreate(null);
+
+        assertThat(activity.getPresenter()).isSameAs(prefetched);
+        assertThat(savior.getPresenterCount()).isEqualTo(1);
+        assertThat(savior.mPrefetched).isEmpty();
+    }
+
+    @Test
+    public void createPresenterAsync() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final List<Runnable> creation = new ArrayList<>();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        creation.add(command);
+                    }
+                })
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        assertThat(activity.getPresenter()).isNull();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.INITIALIZED);
+
+        // view actions are queued until the view gets bound
+        final TiView[] sentTo = new TiView[1];
+        presenter.sendToView(new ViewAction<TiView>() {
+            @Override
+            public void call(final TiView view) {
+                sentTo[0] = view;
+            }
+        });
+
+        assertThat(creation).hasSize(1);
+        creation.get(0).run();
+
+        assertThat(activity.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.isViewAttached()).isTrue();
+        assertThat(sentTo[0]).isNotNull();
+
+        activity.onStop();
+        assertThat(presenter.isViewAttached()).isFalse();
+    }
+
+    @Test
+    public void createPresenterAsync_destroyBeforeCreated() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final List<Runnable> creation = new ArrayList<>();
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        creation.add(command);
+                    }
+                })
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        activity.onStop();
+        activity.setFinishing(true);
+        activity.onDestroy();
+
+        // the creation runs after the host is gone
+        creation.get(0).run();
+
+        assertThat(activity.getPresenter()).isNull();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.INITIALIZED);
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void createPresenterAsync_saveStateBeforeCreated() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final List<Runnable> creation = new ArrayList<>();
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        creation.add(command);
+                    }
+                })
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        activity.onStop();
+
+        // configuration change while the presenter is still created in the background
+        final Bundle savedState = mock(Bundle.class);
+        final Runnable pending = creation.get(0);
+        final Thread background = new Thread(pending);
+        background.start();
+        activity.onSaveInstanceState(savedState);
+        background.join();
+
+        assertThat(activity.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+        assertThat(savior.recover(captureSavedId(savedState),
+                activity.getHostingContainer())).isSameAs(presenter);
+        // set before onCreate() on the background thread
+        assertThat(presenter.getHostCache()).isNotNull();
+    }
+
+    @Test
+    public void createPresenterAsync_stopBeforeCreated() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final List<Runnable> creation = new ArrayList<>();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setPresenterCreationExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        creation.add(command);
+                    }
+                })
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        activity.onStop();
+        creation.get(0).run();
+
+        // created but not bound, the view is stopped
+        assertThat(activity.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.isViewAttached()).isFalse();
+        assertThat(presenter.getState()).isEqualTo(TiPresenter.State.VIEW_DETACHED);
+
+        activity.onStart();
+        assertThat(presenter.isViewAttached()).isTrue();
+    }
+
     @Test
     public void provideDestroyedPresenter() throws Exception {
         final TestPresenter destroyedPresenter = new TestPresenter(TiConfiguration.DEFAULT);
@@ -59,4 +269,205 @@ public class TiActivityDelegateTest extends AbstractPresenterDestroyTest {
                     .hasMessageContaining("providePresenter");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void recoveredPresenterDeletesSnapshot() throws Exception {
+        final PresenterSnapshotStore store = new PresenterSnapshotStore(mTempFolder.getRoot());
+        final SnapshotPresenter presenter = new SnapshotPresenter();
+        final TiPresenterSavior savior = mock(TiPresenterSavior.class);
+        when(savior.save(any(TiPresenter.class), any())).thenReturn(1L, 2L);
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setSnapshotStore(store)
+                .setPresenter(presenter)
+                .build();
+        activity.onCreate(null);
+        presenter.mQuery = "ti";
+        activity.onSaveInstanceState(mock(Bundle.class));
+        assertThat(mTempFolder.getRoot().list()).hasSize(1);
+
+        // configuration change, the presenter survived in the savior
+        when(savior.recover(eq(1L), any())).thenReturn(presenter);
+        final TestTiActivity recreated = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setSnapshotStore(store)
+                .build();
+        final Bundle savedState = mock(Bundle.class);
+        when(savedState.get(TiActivityDelegate.SAVED_STATE_PRESENTER_ID)).thenReturn(1L);
+        recreated.onCreate(savedState);
+
+        assertThat(recreated.getPresenter()).isSameAs(presenter);
+        assertThat(presenter.mRestored).isFalse();
+        assertThat(mTempFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void replaceEvictedPresenterOnStart() throws Exception {
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setPresenterProvider(new TiPresenterProvider<TiPresenter<TiView>>() {
+                    @NonNull
+                    @Override
+                    public TiPresenter<TiView> providePresenter() {
+                        return new TestPresenter(TiConfiguration.DEFAULT);
+                    }
+                })
+                .build();
+        activity.onCreate(null);
+        activity.onStart();
+        final TiPresenter<TiView> evicted = activity.getPresenter();
+        assertThat(evicted.isViewAttached()).isTrue();
+
+        // Activity moves to the background, the system runs low on memory
+        activity.onStop();
+        assertThat(savior.evictPresenters(0)).isEqualTo(1);
+        assertThat(evicted.isDestroyed()).isTrue();
+        assertThat(savior.getPresenterCount()).isEqualTo(0);
+
+        activity.onStart();
+        final TiPresenter<TiView> presenter = activity.getPresenter();
+        assertThat(presenter).isNotSameAs(evicted);
+        assertThat(presenter.isViewAttached()).isTrue();
+        assertThat(savior.getPresenterCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void saveStateAfterEviction() throws Exception {
+        final PresenterSnapshotStore store = new PresenterSnapshotStore(mTempFolder.getRoot());
+        final TestPresenterSavior savior = new TestPresenterSavior();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(savior)
+                .setSnapshotStore(store)
+                .setPresenter(new SnapshotPresenter())
+                .build();
+        activity.onCreate(null);
+        activity.onStart();
+        activity.onStop();
+        assertThat(savior.evictPresenters(0)).isEqualTo(1);
+        assertThat(activity.getPresenter().isDestroyed()).isTrue();
+
+        // must not crash, the destroyed presenter has no snapshot
+        activity.onSaveInstanceState(mock(Bundle.class));
+
+        assertThat(mTempFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void restoreSnapshotAfterProcessDeath() throws Exception {
+        final PresenterSnapshotStore store = new PresenterSnapshotStore(mTempFolder.getRoot());
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSavior(new TestPresenterSavior())
+                .setSnapshotStore(store)
+                .setPresenter(new SnapshotPresenter())
+                .build();
+        activity.onCreate(null);
+        activity.onStart();
+        ((SnapshotPresenter) activity.getPresenter()).mQuery = "thirtyinch";
+        activity.onStop();
+        final Bundle savedState = mock(Bundle.class);
+        activity.onSaveInstanceState(savedState);
+        final long id = captureSavedId(savedState);
+
+        // process got killed, a new process has an empty savior
+        final SnapshotPresenter newPresenter = new SnapshotPresenter();
+        final TestTiActivity restored = new TestTiActivity.Builder()
+                .setSavior(new TestPresenterSavior())
+                .setSnapshotStore(store)
+                .setPresenter(newPresenter)
+                .build();
+        final Bundle restoredState = mock(Bundle.class);
+        when(restoredState.get(TiActivityDelegate.SAVED_STATE_PRESENTER_ID)).thenReturn(id);
+        restored.onCreate(restoredState);
+
+        assertThat(restored.getPresenter()).isSameAs(newPresenter);
+        assertThat(newPresenter.mRestored).isTrue();
+        assertThat(newPresenter.mQuery).isEqualTo("thirtyinch");
+        // the snapshot is consumed
+        assertThat(mTempFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void postFirstBindByDefault() throws Exception {
+        final TestPresenter presenter = new TestPresenter(TiConfiguration.DEFAULT);
+        final List<Runnable> mainQueue = new ArrayList<>();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setUiThreadExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        mainQueue.add(command);
+                    }
+                })
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        assertThat(presenter.isViewAttached()).isFalse();
+
+        // stopped before the posted binding runs
+        activity.onStop();
+        runAll(mainQueue);
+        assertThat(presenter.isViewAttached()).isFalse();
+
+        activity.onStart();
+        runAll(mainQueue);
+        assertThat(presenter.isViewAttached()).isTrue();
+    }
+
+    @Test
+    public void snapshotDisabledByDefault() throws Exception {
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setSnapshotStore(new PresenterSnapshotStore(mTempFolder.getRoot()))
+                .setPresenter(new TestPresenter(TiConfiguration.DEFAULT))
+                .build();
+        activity.onCreate(null);
+        activity.onSaveInstanceState(mock(Bundle.class));
+
+        assertThat(mTempFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void synchronousFirstBind() throws Exception {
+        final TestPresenter presenter = new TestPresenter(new TiConfiguration.Builder()
+                .setSynchronousFirstBindEnabled(true)
+                .build());
+        final List<Runnable> mainQueue = new ArrayList<>();
+        final TestTiActivity activity = new TestTiActivity.Builder()
+                .setPresenter(presenter)
+                .setUiThreadExecutor(new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        mainQueue.add(command);
+                    }
+                })
+                .build();
+
+        activity.onCreate(null);
+        activity.onStart();
+        // attached without waiting for the main queue
+        assertThat(presenter.isViewAttached()).isTrue();
+
+        activity.onStop();
+        assertThat(presenter.isViewAttached()).isFalse();
+
+        // returning from the background posts the binding again
+        activity.onStart();
+        assertThat(presenter.isViewAttached()).isFalse();
+        runAll(mainQueue);
+        assertThat(presenter.isViewAttached()).isTrue();
+    }
+
+    private long captureSavedId(final Bundle savedState) {
+        final ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
+        verify(savedState).putLong(eq(TiActivityDelegate.SAVED_STATE_PRESENTER_ID),
+                captor.capture());
+        return captor.getValue();
+    }
+
+    private static void runAll(final List<Runnable> queue) {
+        while (!queue.isEmpty()) {
+            queue.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import net.grandcentrix.thirtyinch.BindViewInterceptor;
+import net.grandcentrix.thirtyinch.TiConfiguration;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import org.junit.*;
+
+public class TiViewHolderDelegateTest {
+
+    public interface ItemView extends TiView {
+
+        @DistinctUntilChanged
+        void showTitle(String title);
+    }
+
+    public static class ItemHolder implements ItemView {
+
+        int mShowTitleCount;
+
+        @Override
+        public void showTitle(final String title) {
+            mShowTitleCount++;
+        }
+    }
+
+    private static class ItemPresenter extends TiPresenter<ItemView> {
+
+        private final String mTitle;
+
+        ItemPresenter(final String title) {
+            this(title, TiConfiguration.DEFAULT);
+        }
+
+        ItemPresenter(final String title, final TiConfiguration config) {
+            super(config);
+            mTitle = title;
+            create();
+        }
+
+        @Override
+        protected void onAttachView(final ItemView view) {
+            super.onAttachView(view);
+            view.showTitle(mTitle);
+        }
+    }
+
+    private TiViewHolderDelegate<ItemPresenter, ItemView> mDelegate;
+
+    private ItemHolder mHolder;
+
+    private final List<Runnable> mUiThreadQueue = new ArrayList<>();
+
+    private final Executor mUiThreadExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            mUiThreadQueue.add(command);
+        }
+    };
+
+    @Test
+    public void attachWhenBoundAndAttachedToWindow() throws Exception {
+        final ItemPresenter presenter = new ItemPresenter("a");
+
+        mDelegate.bind(presenter);
+        assertThat(presenter.isViewAttached()).isFalse();
+
+        mDelegate.onViewAttachedToWindow();
+        assertThat(presenter.isViewAttached()).isTrue();
+
+        mDelegate.onViewDetachedFromWindow();
+        assertThat(presenter.isViewAttached()).isFalse();
+        assertThat(mDelegate.getPresenter()).isSameAs(presenter);
+    }
+
+    @Test
+    public void bindAlreadyAttachedPresenter() throws Exception {
+        final ItemPresenter presenter = new ItemPresenter("a");
+        presenter.attachView(new ItemHolder());
+
+        try {
+            mDelegate.bind(presenter);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("already bound");
+        }
+    }
+
+    @Test
+    public void bindNotCreatedPresenter() throws Exception {
+        final TiViewHolderDelegate<TiPresenter<ItemView>, ItemView> delegate =
+                new TiViewHolderDelegate<>(provideHolder(), mUiThreadExecutor);
+        try {
+            delegate.bind(new TiPresenter<ItemView>() {
+            });
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("create()");
+        }
+    }
+
+    @Test
+    public void builtInInterceptorsAddedOnce() throws Exception {
+        mDelegate.onViewAttachedToWindow();
+        mDelegate.bind(new ItemPresenter("a"));
+        mDelegate.bind(new ItemPresenter("b"));
+
+        assertThat(mDelegate.getInterceptors(new InterceptableViewBinder.Filter<BindViewInterceptor>() {
+            @Override
+            public boolean apply(final BindViewInterceptor it) {
+                return it == BuiltInInterceptors.DISTINCT_UNTIL_CHANGED;
+            }
+        })).hasSize(1);
+
+        // interceptors of a different configuration replace the previous ones
+        mDelegate.bind(new ItemPresenter("c", new TiConfiguration.Builder()
+                .setDistinctUntilChangedInterceptorEnabled(false)
+                .build()));
+        assertThat(mDelegate.getInterceptedViewOf(BuiltInInterceptors.DISTINCT_UNTIL_CHANGED))
+                .isNull();
+        assertThat(mDelegate.getInterceptedViewOf(BuiltInInterceptors.CALL_ON_MAIN_THREAD))
+                .isNotNull();
+    }
+
+    @Test
+    public void rebindWhileAttachedToWindow() throws Exception {
+        final ItemPresenter first = new ItemPresenter("same");
+        final ItemPresenter second = new ItemPresenter("same");
+        mDelegate.onViewAttachedToWindow();
+        assertThat(mDelegate.bind(first)).isNull();
+        assertThat(mHolder.mShowTitleCount).isEqualTo(1);
+
+        // the replaced presenter is returned to release it
+        assertThat(mDelegate.bind(second)).isSameAs(first);
+        assertThat(mDelegate.bind(second)).isNull();
+
+        assertThat(first.isViewAttached()).isFalse();
+        assertThat(second.isViewAttached()).isTrue();
+        // the distinctUntilChanged cache of the previous item is cleared
+        assertThat(mHolder.mShowTitleCount).isEqualTo(2);
+    }
+
+    @Test
+    public void sendToViewWhileAttached() throws Exception {
+        final ItemPresenter presenter = new ItemPresenter("a");
+        mDelegate.onViewAttachedToWindow();
+        mDelegate.bind(presenter);
+
+        final ItemView[] sentTo = new ItemView[1];
+        presenter.sendToView(new ViewAction<ItemView>() {
+            @Override
+            public void call(final ItemView view) {
+                sentTo[0] = view;
+            }
+        });
+        assertThat(mUiThreadQueue).hasSize(1);
+        mUiThreadQueue.get(0).run();
+
+        assertThat(sentTo[0]).isNotNull();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mHolder = new ItemHolder();
+        mDelegate = new TiViewHolderDelegate<>(provideHolder(), mUiThreadExecutor);
+    }
+
+    @Test
+    public void unbindReturnsDetachedPresenter() throws Exception {
+        final ItemPresenter presenter = new ItemPresenter("a");
+        mDelegate.onViewAttachedToWindow();
+        mDelegate.bind(presenter);
+
+        assertThat(mDelegate.unbind()).isSameAs(presenter);
+        assertThat(presenter.isViewAttached()).isFalse();
+        assertThat(presenter.isDestroyed()).isFalse();
+        assertThat(mDelegate.getPresenter()).isNull();
+        assertThat(mDelegate.unbind()).isNull();
+    }
+
+    @Test
+    public void unbindFinishesPendingDetach() throws Exception {
+        final ItemPresenter presenter = new ItemPresenter("a", new TiConfiguration.Builder()
+                .setDetachGracePeriodMillis(500)
+                .build());
+        mDelegate.onViewAttachedToWindow();
+        mDelegate.bind(presenter);
+        mDelegate.onViewDetachedFromWindow();
+        assertThat(presenter.isViewDetachPending()).isTrue();
+
+        assertThat(mDelegate.unbind()).isSameAs(presenter);
+
+        // ready for the pool and the next holder
+        assertThat(presenter.isViewDetachPending()).isFalse();
+        assertThat(presenter.isInitialized()).isTrue();
+        final TiViewHolderDelegate<ItemPresenter, ItemView> other =
+                new TiViewHolderDelegate<>(provideHolder(), mUiThreadExecutor);
+        other.bind(presenter);
+        assertThat(other.getPresenter()).isSameAs(presenter);
+    }
+
+    @Test
+    public void unbindRemovesUiThreadExecutor() throws Exception {
+        final ItemPresenter presenter = new ItemPresenter("a");
+        mDelegate.onViewAttachedToWindow();
+        mDelegate.bind(presenter);
+
+        mDelegate.unbind();
+
+        // a presenter of the pool doesn't run ui interactions with the executor of this holder
+        presenter.attachView(new ItemHolder());
+        try {
+            presenter.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining("no ui thread executor");
+        }
+        assertThat(mUiThreadQueue).isEmpty();
+    }
+
+    private TiViewProvider<ItemView> provideHolder() {
+        return new TiViewProvider<ItemView>() {
+            @NonNull
+            @Override
+            public ItemView provideView() {
+                return mHolder;
+            }
+        };
+    }
+}
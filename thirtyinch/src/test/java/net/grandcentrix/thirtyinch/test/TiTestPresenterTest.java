@@ -110,6 +110,31 @@ public class TiTestPresenterTest {
         verify(mMockTiView).helloWorld();
     }
 
+    @Test
+    public void testSendToViewWhenIdle_InUnitTestWithTiTestPresenter_ShouldExecute()
+            throws Exception {
+        final TiPresenter<MockTiView> presenter = new TiPresenter<MockTiView>() {
+            @Override
+            protected void onCreate() {
+                super.onCreate();
+                sendToViewWhenIdle(new ViewAction<MockTiView>() {
+                    @Override
+                    public void call(MockTiView tiView) {
+                        tiView.helloWorld();
+                    }
+                });
+            }
+        };
+        final TiTestPresenter<MockTiView> testPresenter = presenter.test();
+        testPresenter.create();
+        // sent without view, executed when the view gets attached
+        verify(mMockTiView, never()).helloWorld();
+
+        testPresenter.attachView(mMockTiView);
+
+        verify(mMockTiView).helloWorld();
+    }
+
     @Test
     public void testSendToView_InUnitTest_ShouldThrow() throws Exception {
         try {
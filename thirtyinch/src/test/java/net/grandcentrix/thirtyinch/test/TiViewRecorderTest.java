@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.test;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import androidx.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+import net.grandcentrix.thirtyinch.TiPresenter;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.ViewAction;
+import org.junit.*;
+import org.mockito.*;
+
+public class TiViewRecorderTest {
+
+    private class TestPresenter extends TiPresenter<TestView> {
+
+        void showItems(final int count) {
+            for (int i = 0; i < count; i++) {
+                final int item = i;
+                sendToView(new ViewAction<TestView>() {
+                    @Override
+                    public void call(final TestView view) {
+                        view.showItem("item" + item);
+                    }
+                });
+            }
+        }
+
+        @Override
+        protected void onAttachView(@NonNull final TestView view) {
+            super.onAttachView(view);
+            view.showLoading(true);
+        }
+    }
+
+    public interface TestView extends TiView {
+
+        void showItem(String item);
+
+        void showLoading(boolean loading);
+    }
+
+    @Test
+    public void doesNotRecordObjectMethods() throws Exception {
+        final TiViewRecorder<TestView> recorder = new TiViewRecorder<>(TestView.class);
+        final TestView view = recorder.record(mock(TestView.class));
+
+        view.toString();
+        view.hashCode();
+        //noinspection EqualsWithItself
+        view.equals(view);
+
+        assertThat(recorder.getRecording().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void recordPresenterSession() throws Exception {
+        final TiViewRecorder<TestView> recorder = new TiViewRecorder<>(TestView.class);
+        final TestPresenter presenter = new TestPresenter();
+        final TiTestPresenter<TestView> testPresenter = presenter.test();
+
+        final TestView mockView = mock(TestView.class);
+        testPresenter.attachView(recorder.record(mockView));
+        presenter.showItems(3);
+
+        // calls are forwarded
+        final InOrder inOrder = inOrder(mockView);
+        inOrder.verify(mockView).showLoading(true);
+        inOrder.verify(mockView).showItem("item0");
+        inOrder.verify(mockView).showItem("item1");
+        inOrder.verify(mockView).showItem("item2");
+
+        // and recorded
+        final TiViewRecording<TestView> recording = recorder.getRecording();
+        assertThat(recording.size()).isEqualTo(4);
+        assertThat(recording.getCalls().get(0).getMethod().getName()).isEqualTo("showLoading");
+        assertThat(recording.getCalls().get(0).getOffsetNanos()).isEqualTo(0);
+        assertThat(recording.getCalls().get(3).getArgs()).containsExactly("item2");
+    }
+
+    @Test
+    public void replayFullSpeed() throws Exception {
+        final TiViewRecorder<TestView> recorder = new TiViewRecorder<>(TestView.class);
+        final TestView recordingView = recorder.record(mock(TestView.class));
+        recordingView.showLoading(true);
+        recordingView.showItem("a");
+        recordingView.showLoading(false);
+
+        final TestView target = mock(TestView.class);
+        final TiViewRecording.ReplayResult result = recorder.getRecording().replay(target);
+
+        assertThat(result.getCallCount()).isEqualTo(3);
+        final InOrder inOrder = inOrder(target);
+        inOrder.verify(target).showLoading(true);
+        inOrder.verify(target).showItem("a");
+        inOrder.verify(target).showLoading(false);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void replayOriginalPacing() throws Exception {
+        final TiViewRecorder<TestView> recorder = new TiViewRecorder<>(TestView.class);
+        final TestView recordingView = recorder.record(mock(TestView.class));
+        recordingView.showItem("a");
+        Thread.sleep(20);
+        recordingView.showItem("b");
+
+        final TiViewRecording<TestView> recording = recorder.getRecording();
+        assertThat(recording.getDurationNanos()).isGreaterThanOrEqualTo(
+                TimeUnit.MILLISECONDS.toNanos(20));
+
+        final TiViewRecording.ReplayResult result = recording
+                .replay(mock(TestView.class), TiViewRecording.Pacing.ORIGINAL);
+
+        assertThat(result.getCallCount()).isEqualTo(2);
+        assertThat(result.getElapsedNanos()).isGreaterThanOrEqualTo(recording.getDurationNanos());
+    }
+
+    @Test
+    public void replayPropagatesViewExceptions() throws Exception {
+        final TiViewRecorder<TestView> recorder = new TiViewRecorder<>(TestView.class);
+        recorder.record(mock(TestView.class)).showItem("a");
+
+        final TestView target = mock(TestView.class);
+        doThrow(new IllegalStateException("boom")).when(target).showItem("a");
+
+        try {
+            recorder.getRecording().replay(target);
+            fail("did not throw");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("boom");
+        }
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByClear() throws Exception {
+        final TiViewRecorder<TestView> recorder = new TiViewRecorder<>(TestView.class);
+        recorder.record(mock(TestView.class)).showItem("a");
+
+        final TiViewRecording<TestView> recording = recorder.getRecording();
+        recorder.clear();
+
+        assertThat(recording.size()).isEqualTo(1);
+        assertThat(recorder.getRecording().isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import android.os.Bundle;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import org.junit.*;
+
+public class BackstackTrackerTest {
+
+    private Fragment mFragment;
+
+    private final FragmentManager mFragmentManager = mock(FragmentManager.class);
+
+    private BackstackTracker mTracker;
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void backstackReaderDelegates() throws Exception {
+        when(mFragment.getFragmentManager()).thenReturn(mFragmentManager);
+        final BackstackTracker tracker = BackstackTracker.getInstance(mFragmentManager);
+        tracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, null);
+        assertThat(BackstackReader.isInBackStack(mFragment)).isFalse();
+
+        removeFragment();
+        changeBackStack(tracker, 0);
+
+        assertThat(BackstackReader.isInBackStack(mFragment)).isTrue();
+    }
+
+    @Test
+    public void getInstanceRegistersOnce() throws Exception {
+        final FragmentManager fragmentManager = mock(FragmentManager.class);
+
+        final BackstackTracker tracker = BackstackTracker.getInstance(fragmentManager);
+        assertThat(BackstackTracker.getInstance(fragmentManager)).isSameAs(tracker);
+
+        verify(fragmentManager).registerFragmentLifecycleCallbacks(tracker.mLifecycleCallbacks,
+                false);
+        verify(fragmentManager).addOnBackStackChangedListener(tracker.mBackStackListener);
+        assertThat(BackstackTracker.getInstance(mock(FragmentManager.class)))
+                .isNotSameAs(tracker);
+    }
+
+    @Test
+    public void popAndPushTogether() throws Exception {
+        final Fragment first = createFragment(mTracker);
+
+        // replaced by the second fragment
+        final Fragment second = createFragment(mTracker);
+        removeFragment(first);
+        changeBackStack(mTracker, 0);
+        assertThat(mTracker.isInBackStack(first)).isTrue();
+
+        // popping adds the first fragment again, the next transaction replaces it in the same
+        // frame
+        removeFragment(second);
+        changeBackStack(mTracker, 1);
+
+        assertThat(mTracker.isInBackStack(first)).isTrue();
+        assertThat(mTracker.isInBackStack(second)).isFalse();
+    }
+
+    @Test
+    public void popBackStack() throws Exception {
+        mTracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, null);
+        removeFragment();
+        changeBackStack(mTracker, 0);
+        assertThat(mTracker.isInBackStack(mFragment)).isTrue();
+
+        // popping adds the fragment again
+        when(mFragment.isAdded()).thenReturn(true);
+        when(mFragment.isRemoving()).thenReturn(false);
+        changeBackStack(mTracker);
+
+        assertThat(mTracker.isInBackStack(mFragment)).isFalse();
+    }
+
+    @Test
+    public void popBackStackWithAnimation() throws Exception {
+        // added by a transaction on the back stack
+        mTracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, null);
+        changeBackStack(mTracker, 0);
+
+        // still removing while the exit animation runs
+        removeFragment();
+        changeBackStack(mTracker);
+
+        assertThat(mTracker.isInBackStack(mFragment)).isFalse();
+    }
+
+    @Test
+    public void popOtherTransaction() throws Exception {
+        mTracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, null);
+        removeFragment();
+        changeBackStack(mTracker, 0);
+
+        changeBackStack(mTracker, 0, 1);
+        changeBackStack(mTracker, 0);
+
+        // the transaction which removed the fragment is still on the back stack
+        assertThat(mTracker.isInBackStack(mFragment)).isTrue();
+    }
+
+    @Test
+    public void popRestoredBackStack() throws Exception {
+        // the first and the second fragment got replaced by back stack transactions
+        setBackStack(0, 1);
+        final Fragment first = mock(Fragment.class);
+        removeFragment(first);
+        final Fragment second = mock(Fragment.class);
+        removeFragment(second);
+        final Fragment third = mock(Fragment.class);
+        addFragment(third);
+        BackstackTracker tracker = restoreTracker(first, second, third);
+        assertThat(tracker.isInBackStack(first)).isTrue();
+        assertThat(tracker.isInBackStack(second)).isTrue();
+
+        // the pop adds the second fragment again
+        addFragment(second);
+        removeFragment(third);
+        changeBackStack(tracker, 0);
+        tracker.mLifecycleCallbacks.onFragmentDestroyed(mFragmentManager, third);
+
+        assertThat(tracker.isInBackStack(first)).isTrue();
+        assertThat(tracker.isInBackStack(second)).isFalse();
+        assertThat(tracker.isInBackStack(third)).isFalse();
+
+        // recreated again
+        tracker = restoreTracker(first, second);
+
+        assertThat(tracker.isInBackStack(first)).isTrue();
+        assertThat(tracker.isInBackStack(second)).isFalse();
+    }
+
+    @Test
+    public void removeWithBackStack() throws Exception {
+        mTracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, null);
+        assertThat(mTracker.isInBackStack(mFragment)).isFalse();
+
+        removeFragment();
+        changeBackStack(mTracker, 0);
+
+        assertThat(mTracker.isInBackStack(mFragment)).isTrue();
+    }
+
+    @Test
+    public void removeWithoutBackStack() throws Exception {
+        mTracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, null);
+
+        // destroyed while the transaction executes, the back stack didn't change
+        removeFragment();
+        assertThat(mTracker.isInBackStack(mFragment)).isFalse();
+        mTracker.mLifecycleCallbacks.onFragmentDestroyed(mFragmentManager, mFragment);
+
+        // an unrelated back stack change
+        changeBackStack(mTracker, 0);
+        assertThat(mTracker.isInBackStack(mFragment)).isFalse();
+    }
+
+    @Test
+    public void restoredFromBackStack() throws Exception {
+        // the back stack of the recreated Activity restores the removed fragment
+        setBackStack(0);
+        removeFragment();
+        mTracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, mFragment, new Bundle());
+
+        assertThat(mTracker.isInBackStack(mFragment)).isTrue();
+
+        mTracker.mLifecycleCallbacks.onFragmentDestroyed(mFragmentManager, mFragment);
+        assertThat(mTracker.isInBackStack(mFragment)).isFalse();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mTracker = new BackstackTracker(mFragmentManager);
+        mFragment = mock(Fragment.class);
+        when(mFragment.isAdded()).thenReturn(true);
+    }
+
+    private void changeBackStack(final BackstackTracker tracker, final int... entryIds) {
+        setBackStack(entryIds);
+        tracker.mBackStackListener.onBackStackChanged();
+    }
+
+    private Fragment createFragment(final BackstackTracker tracker) {
+        final Fragment fragment = mock(Fragment.class);
+        addFragment(fragment);
+        tracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, fragment, null);
+        return fragment;
+    }
+
+    private void removeFragment() {
+        removeFragment(mFragment);
+    }
+
+    /**
+     * recreates the tracker like the recreated Activity does, restoring the {@code fragments}
+     */
+    private BackstackTracker restoreTracker(final Fragment... fragments) {
+        final BackstackTracker tracker = new BackstackTracker(mFragmentManager);
+        for (final Fragment fragment : fragments) {
+            tracker.mLifecycleCallbacks.onFragmentCreated(mFragmentManager, fragment,
+                    new Bundle());
+        }
+        return tracker;
+    }
+
+    private void setBackStack(final int... entryIds) {
+        when(mFragmentManager.getBackStackEntryCount()).thenReturn(entryIds.length);
+        for (int i = 0; i < entryIds.length; i++) {
+            final FragmentManager.BackStackEntry entry = mock(FragmentManager.BackStackEntry.class);
+            when(entry.getId()).thenReturn(entryIds[i]);
+            when(mFragmentManager.getBackStackEntryAt(i)).thenReturn(entry);
+        }
+    }
+
+    private static void addFragment(final Fragment fragment) {
+        when(fragment.isAdded()).thenReturn(true);
+        when(fragment.isRemoving()).thenReturn(false);
+    }
+
+    private static void removeFragment(final Fragment fragment) {
+        when(fragment.isAdded()).thenReturn(false);
+        when(fragment.isRemoving()).thenReturn(true);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 grandcentrix GmbH
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.grandcentrix.thirtyinch.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.reflect.Method;
+import net.grandcentrix.thirtyinch.TiView;
+import net.grandcentrix.thirtyinch.callonmainthread.CallOnMainThread;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChanged;
+import net.grandcentrix.thirtyinch.distinctuntilchanged.DistinctUntilChangedInterceptor;
+import org.junit.*;
+
+public class ViewBindingPlanTest {
+
+    private interface AnnotatedView extends TiView {
+
+        @DistinctUntilChanged
+        void showText(String text);
+
+        void showTitle(String title);
+    }
+
+    private static class AnnotatedViewImpl implements AnnotatedView {
+
+        @Override
+        public void showText(final String text) {
+        }
+
+        @Override
+        public void showTitle(final String title) {
+        }
+    }
+
+    private abstract static class BaseView implements AnnotatedView {
+
+        @Override
+        public void showText(final String text) {
+        }
+
+        @Override
+        public void showTitle(final String title) {
+        }
+    }
+
+    private static class InheritedViewImpl extends BaseView {
+
+    }
+
+    private static class PlainView implements TiView {
+
+    }
+
+    @Test
+    public void annotatedMethods() throws Exception {
+        final ViewBindingPlan plan = ViewBindingPlan.of(AnnotatedViewImpl.class);
+
+        assertThat(plan.getViewInterface()).isEqualTo(AnnotatedView.class);
+        assertThat(plan.hasMethodWithAnnotation(DistinctUntilChanged.class)).isTrue();
+        assertThat(plan.hasMethodWithAnnotation(CallOnMainThread.class)).isFalse();
+
+        final Method showText = AnnotatedView.class.getMethod("showText", String.class);
+        final Method showTitle = AnnotatedView.class.getMethod("showTitle", String.class);
+        assertThat(plan.getAnnotation(showText, DistinctUntilChanged.class)).isNotNull();
+        assertThat(plan.getAnnotation(showTitle, DistinctUntilChanged.class)).isNull();
+        assertThat(plan.getAnnotation(showText, CallOnMainThread.class)).isNull();
+    }
+
+    @Test
+    public void computedOncePerClass() throws Exception {
+        final ViewBindingPlan plan = ViewBindingPlan.of(AnnotatedViewImpl.class);
+
+        // a second view instance, i.e. after a rotation, reuses the plan
+        new DistinctUntilChangedInterceptor().intercept(new AnnotatedViewImpl());
+
+        assertThat(ViewBindingPlan.of(AnnotatedViewImpl.class)).isSameAs(plan);
+        assertThat(ViewBindingPlan.of(PlainView.class)).isNotSameAs(plan);
+    }
+
+    @Test
+    public void inheritedInterface() throws Exception {
+        final ViewBindingPlan plan = ViewBindingPlan.of(InheritedViewImpl.class);
+
+        assertThat(plan.getViewInterface()).isEqualTo(AnnotatedView.class);
+        assertThat(plan.hasMethodWithAnnotation(DistinctUntilChanged.class)).isTrue();
+        final Method showText = AnnotatedView.class.getMethod("showText", String.class);
+        assertThat(plan.getAnnotation(showText, DistinctUntilChanged.class)).isNotNull();
+    }
+
+    @Test
+    public void plainView() throws Exception {
+        final ViewBindingPlan plan = ViewBindingPlan.of(PlainView.class);
+
+        assertThat(plan.getViewInterface()).isEqualTo(TiView.class);
+        assertThat(plan.hasMethodWithAnnotation(DistinctUntilChanged.class)).isFalse();
+    }
+}